@@ -544,6 +544,64 @@ public final class Settings {
      */
     public final Setting<Float> pathingMapLoadFactor = new Setting<>(0.75f);
 
+    /**
+     * Keep pathing nodes in flat primitive arrays instead of one object per node
+     * <p>
+     * Allocates far less on long paths (e.g. to a far away GoalXZ), so there's less garbage collection while pathing.
+     * pathingMapDefaultSize and pathingMapLoadFactor still apply. Its open set is always a binary heap, so with any other
+     * pathingOpenSet the usual A* is used instead. pathingBidirectional needs its nodes as objects, so it isn't used
+     * while this is on.
+     */
+    public final Setting<Boolean> pathingCompactNodeStore = new Setting<>(false);
+
+    /**
+     * Which priority queue A* uses for its open set: "binary", "4ary", "pairing" or "bucket"
+     * <p>
+     * They all find the same paths, some are just faster than others on some paths. Anything else means "binary".
+     * pathingCompactNodeStore is only used with "binary".
+     */
+    public final Setting<String> pathingOpenSet = new Setting<>("binary");
+
+    /**
+     * How many threads calculate the movements out of each node while pathing
+     * <p>
+     * At 1 (the default) everything happens on the pathing thread like it always has. Above that, A* takes a few of
+     * the lowest nodes off the open set at once and works out their movements in parallel, which is faster when
+     * movements are expensive to calculate (e.g. with allowParkourAdv). The open set and the node map are still only
+     * ever touched by the pathing thread. Some processes (like building) calculate their own costs and always path on
+     * one thread.
+     */
+    public final Setting<Integer> pathingExpansionThreads = new Setting<>(1);
+
+    /**
+     * Search from both the start and the goal at once when the goal is one block (or the couple of blocks next to it),
+     * and that block is loaded or cached
+     * <p>
+     * Usually expands a lot fewer nodes when the goal is hard to get to, like deep inside a maze or a base. Parkour
+     * and falls are only considered from the start's side. Not used with any other kind of goal.
+     */
+    public final Setting<Boolean> pathingBidirectional = new Setting<>(false);
+
+    /**
+     * On long trips to a GoalXZ, plan the route a chunk at a time over the cache first, then aim each path segment at
+     * a spot a little way along that route instead of straight at the goal
+     * <p>
+     * Only knows about chunks that have been cached, and only about walking, jumping up one block and falling a
+     * few, so it's a rough plan. Each segment is still pathed normally. The plan is made on the pathing thread and
+     * only gets a quarter of the primary timeout, and chunks are summarized for it as they're cached.
+     */
+    public final Setting<Boolean> pathingHierarchical = new Setting<>(false);
+
+    /**
+     * Keep the search around between path calculations to the same single block goal, and only fix up the part of
+     * it that blocks changed since last time, instead of starting over every segment and every replan
+     * <p>
+     * Searches backwards from the goal, so it only knows moves with a fixed destination. When that can't get to
+     * where you are (parkour, a long fall) within half of the primary timeout, it falls back to the normal search for
+     * that calculation.
+     */
+    public final Setting<Boolean> pathingIncremental = new Setting<>(false);
+
     /**
      * How far are you allowed to fall onto solid ground (without a water bucket)?
      * 3 won't deal any damage. But if you just want to get down the mountain quickly and you have
@@ -576,7 +634,9 @@ public final class Settings {
     public final Setting<Boolean> simplifyUnloadedYCoord = new Setting<>(true);
 
     /**
-     * Whenever a block changes, repack the whole chunk that it's in
+     * Whenever a block that's kept track of changes, update the cached chunk that it's in
+     * <p>
+     * Only the blocks that changed are packed again, on a packer thread, unless the chunk isn't cached yet
      */
     public final Setting<Boolean> repackOnAnyBlockChange = new Setting<>(true);
 
@@ -641,23 +701,44 @@ public final class Settings {
     public final Setting<Boolean> chunkCaching = new Setting<>(true);
 
     /**
-     * On save, delete from RAM any cached regions that are more than 1024 blocks away from the player
-     * <p>
-     * Temporarily disabled
-     * <p>
-     * Temporarily reenabled
+     * Delete from RAM the cached regions that were used least recently, once they take more than
+     * {@link #cachedRegionMemoryBudget}. They're saved first, and loaded from disk again if they're needed.
      *
      * @see <a href="https://github.com/cabaletta/baritone/issues/248">Issue #248</a>
      */
     public final Setting<Boolean> pruneRegionsFromRAM = new Setting<>(true);
 
     /**
-     * The chunk packer queue can never grow to larger than this, if it does, the oldest chunks are discarded
+     * Roughly how many megabytes of RAM the cached regions of each world can take before the least recently used ones
+     * are deleted from RAM, see {@link #pruneRegionsFromRAM}
      * <p>
-     * The newest chunks are kept, so that if you're moving in a straight line quickly then stop, your immediate render distance is still included
+     * A region with every chunk cached takes about 26MB in the overworld.
+     */
+    public final Setting<Integer> cachedRegionMemoryBudget = new Setting<>(512);
+
+    /**
+     * How many queued chunks the packer threads pick the nearest from. Any more wait in the order they came until
+     * there's room, instead of being discarded.
+     * <p>
+     * The nearest chunks go first, so that if you're moving in a straight line quickly then stop, your immediate render distance is packed first
      */
     public final Setting<Integer> chunkPackerQueueMaxSize = new Setting<>(2000);
 
+    /**
+     * How many threads pack chunks into the cache. The nearest chunks to you or your path's destination go first.
+     * <p>
+     * Only read when a world is loaded
+     */
+    public final Setting<Integer> chunkPackerThreads = new Setting<>(2);
+
+    /**
+     * How many regions ahead, in the direction of the goal, to start loading from disk when a path calculation starts
+     * <p>
+     * Regions that the path thread needs but aren't loaded yet are loaded in the background and treated as unknown
+     * until then, so this is what keeps long paths from running into them.
+     */
+    public final Setting<Integer> regionPrefetchDistance = new Setting<>(4);
+
     /**
      * Fill in blocks behind you
      */
@@ -0,0 +1,90 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.pathing.calc.BlockSnapshot;
+import baritone.utils.pathing.PathingBlockType;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.tags.BlockTags;
+import net.minecraft.util.valueproviders.UniformInt;
+import net.minecraft.world.level.dimension.BuiltinDimensionTypes;
+import net.minecraft.world.level.dimension.DimensionType;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalLong;
+
+/**
+ * Records a {@link BlockSnapshot} from the chunk cache of a real world, for the benchmarks to path through.
+ * <p>
+ * Run with {@code ./gradlew recordSnapshot -PsnapshotArgs="<cache directory> <name> <minY> <height> <x1> <z1> <x2> <z2>
+ * <start x y z> <goal x y z>"}, where the cache directory is the one with the {@code r.x.z.bcr} files in it (something
+ * like {@code baritone/<server>/DIM0/cache}), minY and height are the dimension's, and everything else is in world
+ * coordinates. The snapshot is written to {@code src/jmh/resources/snapshots/<name>.snap}, and chunks that aren't in
+ * the cache are recorded as solid.
+ */
+public final class SnapshotRecorder {
+
+    private SnapshotRecorder() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 14) {
+            System.out.println("Usage: <cache directory> <name> <minY> <height> <x1> <z1> <x2> <z2> <start x y z> <goal x y z>");
+            System.exit(1);
+        }
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        String directory = args[0];
+        String name = args[1];
+        int minY = Integer.parseInt(args[2]);
+        int height = Integer.parseInt(args[3]);
+        int minX = Math.min(Integer.parseInt(args[4]), Integer.parseInt(args[6]));
+        int minZ = Math.min(Integer.parseInt(args[5]), Integer.parseInt(args[7]));
+        int sizeX = Math.max(Integer.parseInt(args[4]), Integer.parseInt(args[6])) - minX + 1;
+        int sizeZ = Math.max(Integer.parseInt(args[5]), Integer.parseInt(args[7])) - minZ + 1;
+        int[] start = {Integer.parseInt(args[8]) - minX, Integer.parseInt(args[9]) - minY, Integer.parseInt(args[10]) - minZ};
+        int[] goal = {Integer.parseInt(args[11]) - minX, Integer.parseInt(args[12]) - minY, Integer.parseInt(args[13]) - minZ};
+
+        // only minY and height matter to the cache, the rest is the overworld's
+        DimensionType dimension = new DimensionType(OptionalLong.empty(), true, false, false, true, 1.0, true, false,
+                minY, height, height, BlockTags.INFINIBURN_OVERWORLD, BuiltinDimensionTypes.OVERWORLD_EFFECTS, 0.0f,
+                new DimensionType.MonsterSettings(false, true, UniformInt.of(0, 7), 0));
+        Map<Long, CachedRegion> regions = new HashMap<>();
+        BlockSnapshot snapshot = BlockSnapshot.create(name, sizeX, height, sizeZ, start, goal, (x, y, z) -> {
+            int worldX = minX + x;
+            int worldZ = minZ + z;
+            CachedRegion region = regions.computeIfAbsent((long) (worldX >> 9) << 32 | ((worldZ >> 9) & 0xFFFFFFFFL), key -> {
+                CachedRegion loaded = new CachedRegion(worldX >> 9, worldZ >> 9, dimension);
+                loaded.load(directory);
+                return loaded;
+            });
+            CachedChunk chunk = region.getChunk((worldX >> 4) & 31, (worldZ >> 4) & 31);
+            if (chunk == null) {
+                return PathingBlockType.SOLID;
+            }
+            return chunk.getType(worldX & 15, y, worldZ & 15);
+        });
+        Path file = Paths.get("src", "jmh", "resources", "snapshots", name + ".snap");
+        snapshot.write(file);
+        System.out.println("Recorded " + sizeX + "x" + height + "x" + sizeZ + " blocks to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.utils.BlockStateInterface;
+import baritone.utils.ChunkSnapshot;
+import baritone.utils.WorldSnapshot;
+import baritone.utils.pathing.PathingBlockType;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A frozen box of the world in the same 2-bit {@link PathingBlockType} encoding the chunk cache uses, so that
+ * searches can be replayed without a running client.
+ * <p>
+ * Snapshots are either loaded from {@code /snapshots/<name>.snap} on the classpath (recorded from a real world's
+ * chunk cache by {@link baritone.cache.SnapshotRecorder}), or generated from a fixed seed so that every run of the
+ * benchmark sees exactly the same terrain.
+ */
+public final class BlockSnapshot {
+
+    private static final int SNAPSHOT_MAGIC = 0x42534E31; // BSN1
+
+    private static final PathingBlockType[] TYPES = PathingBlockType.values();
+
+    public final String name;
+    public final int sizeX;
+    public final int height;
+    public final int sizeZ;
+
+    public final int startX;
+    public final int startY;
+    public final int startZ;
+
+    public final int goalX;
+    public final int goalY;
+    public final int goalZ;
+
+    /**
+     * One {@link PathingBlockType} ordinal per block, indexed y-major like a chunk section
+     */
+    private final byte[] data;
+
+    private BlockSnapshot(String name, int sizeX, int height, int sizeZ, byte[] data, int[] start, int[] goal) {
+        this.name = name;
+        this.sizeX = sizeX;
+        this.height = height;
+        this.sizeZ = sizeZ;
+        this.data = data;
+        this.startX = start[0];
+        this.startY = start[1];
+        this.startZ = start[2];
+        this.goalX = goal[0];
+        this.goalY = goal[1];
+        this.goalZ = goal[2];
+    }
+
+    public PathingBlockType get(int x, int y, int z) {
+        if (x < 0 || x >= sizeX || y < 0 || y >= height || z < 0 || z >= sizeZ) {
+            return PathingBlockType.SOLID; // the edge of the snapshot is a wall, not a cliff
+        }
+        return TYPES[data[index(x, y, z)]];
+    }
+
+    private void set(int x, int y, int z, PathingBlockType type) {
+        if (x < 0 || x >= sizeX || y < 0 || y >= height || z < 0 || z >= sizeZ) {
+            return;
+        }
+        data[index(x, y, z)] = (byte) type.ordinal();
+    }
+
+    private int index(int x, int y, int z) {
+        return (y * sizeZ + z) * sizeX + x;
+    }
+
+    /**
+     * Loads a recorded snapshot from the classpath if one exists, otherwise generates the built in terrain of that name.
+     *
+     * @param name One of {@code flat}, {@code caves}, {@code parkour} or {@code nether}, or the name of a recorded snapshot
+     * @return The snapshot
+     */
+    public static BlockSnapshot load(String name) throws IOException {
+        try (InputStream in = BlockSnapshot.class.getResourceAsStream("/snapshots/" + name + ".snap")) {
+            if (in != null) {
+                return read(in);
+            }
+        }
+        switch (name) {
+            case "flat":
+                return flat();
+            case "caves":
+                return caves();
+            case "parkour":
+                return parkour();
+            case "nether":
+                return nether();
+            default:
+                throw new IllegalArgumentException("No snapshot named " + name);
+        }
+    }
+
+    /**
+     * A snapshot of blocks from somewhere else, see {@link baritone.cache.SnapshotRecorder}
+     *
+     * @param types What kind of block is at each position, from 0, 0, 0 to one less than the size
+     */
+    public static BlockSnapshot create(String name, int sizeX, int height, int sizeZ, int[] start, int[] goal, Source types) {
+        byte[] data = new byte[sizeX * height * sizeZ];
+        BlockSnapshot snap = new BlockSnapshot(name, sizeX, height, sizeZ, data, start, goal);
+        for (int y = 0; y < height; y++) {
+            for (int z = 0; z < sizeZ; z++) {
+                for (int x = 0; x < sizeX; x++) {
+                    snap.set(x, y, z, types.get(x, y, z));
+                }
+            }
+        }
+        return snap;
+    }
+
+    public static BlockSnapshot read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new GZIPInputStream(stream, 32768));
+        int magic = in.readInt();
+        if (magic != SNAPSHOT_MAGIC) {
+            throw new IOException("Bad magic value " + magic);
+        }
+        String name = in.readUTF();
+        int sizeX = in.readInt();
+        int height = in.readInt();
+        int sizeZ = in.readInt();
+        int[] start = {in.readInt(), in.readInt(), in.readInt()};
+        int[] goal = {in.readInt(), in.readInt(), in.readInt()};
+        byte[] data = new byte[sizeX * height * sizeZ];
+        byte[] packed = new byte[(data.length + 3) / 4];
+        in.readFully(packed);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ((packed[i >> 2] >> ((i & 3) << 1)) & 0b11);
+        }
+        return new BlockSnapshot(name, sizeX, height, sizeZ, data, start, goal);
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file), 16384))) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeUTF(name);
+            out.writeInt(sizeX);
+            out.writeInt(height);
+            out.writeInt(sizeZ);
+            out.writeInt(startX);
+            out.writeInt(startY);
+            out.writeInt(startZ);
+            out.writeInt(goalX);
+            out.writeInt(goalY);
+            out.writeInt(goalZ);
+            byte[] packed = new byte[(data.length + 3) / 4];
+            for (int i = 0; i < data.length; i++) {
+                packed[i >> 2] |= (byte) (data[i] << ((i & 3) << 1));
+            }
+            out.write(packed);
+        }
+    }
+
+    /**
+     * The snapshot as chunks that {@link BlockStateInterface} can read, from 0, 0, 0 up, with solid blocks where a
+     * chunk goes past the edge of the snapshot and nothing loaded around it. Each kind of block is a block of that
+     * kind, like stone for solid and lava for avoid.
+     */
+    public WorldSnapshot toWorld() {
+        BlockState[] states = new BlockState[TYPES.length];
+        states[PathingBlockType.AIR.ordinal()] = Blocks.AIR.defaultBlockState();
+        states[PathingBlockType.WATER.ordinal()] = Blocks.WATER.defaultBlockState();
+        states[PathingBlockType.AVOID.ordinal()] = Blocks.LAVA.defaultBlockState();
+        states[PathingBlockType.SOLID.ordinal()] = Blocks.STONE.defaultBlockState();
+        List<ChunkSnapshot> chunks = new ArrayList<>();
+        for (int chunkX = 0; chunkX < (sizeX + 15) >> 4; chunkX++) {
+            for (int chunkZ = 0; chunkZ < (sizeZ + 15) >> 4; chunkZ++) {
+                List<PalettedContainer<BlockState>> sections = new ArrayList<>();
+                for (int sectionY = 0; sectionY < (height + 15) >> 4; sectionY++) {
+                    PalettedContainer<BlockState> section = new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, states[PathingBlockType.AIR.ordinal()], PalettedContainer.Strategy.SECTION_STATES);
+                    for (int y = 0; y < 16; y++) {
+                        if (sectionY * 16 + y >= height) {
+                            break; // above the top of the world, as far as the BlockStateInterface is concerned
+                        }
+                        for (int z = 0; z < 16; z++) {
+                            for (int x = 0; x < 16; x++) {
+                                section.getAndSetUnchecked(x, y, z, states[get(chunkX * 16 + x, sectionY * 16 + y, chunkZ * 16 + z).ordinal()]);
+                            }
+                        }
+                    }
+                    sections.add(section);
+                }
+                chunks.add(ChunkSnapshot.of(chunkX, chunkZ, sections));
+            }
+        }
+        return WorldSnapshot.of(chunks);
+    }
+
+    /**
+     * Rolling grassland with scattered trees, the "walk 200 blocks across the overworld" case
+     */
+    static BlockSnapshot flat() {
+        int size = 256;
+        int height = 96;
+        byte[] data = new byte[size * height * size];
+        BlockSnapshot snap = new BlockSnapshot("flat", size, height, size, data, new int[3], new int[3]);
+        Random rand = new Random(0xF1A7L);
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                int ground = 60 + (int) Math.round(2 * Math.sin(x / 23.0) + 2 * Math.cos(z / 17.0));
+                snap.fill(x, 0, z, x, ground, z, PathingBlockType.SOLID);
+            }
+        }
+        for (int i = 0; i < 900; i++) {
+            int x = rand.nextInt(size);
+            int z = rand.nextInt(size);
+            int ground = snap.surface(x, z);
+            snap.fill(x, ground + 1, z, x, ground + 5, z, PathingBlockType.SOLID);
+        }
+        return snap.withEndpoints(8, 8, size - 9, size - 9);
+    }
+
+    /**
+     * Solid stone with worm tunnels carved through it, the start and goal are at opposite corners of the maze
+     */
+    static BlockSnapshot caves() {
+        int size = 160;
+        int height = 64;
+        byte[] data = new byte[size * height * size];
+        BlockSnapshot snap = new BlockSnapshot("caves", size, height, size, data, new int[3], new int[3]);
+        snap.fill(0, 0, 0, size - 1, height - 1, size - 1, PathingBlockType.SOLID);
+        Random rand = new Random(0xCA7EL);
+        for (int worm = 0; worm < 40; worm++) {
+            double x = rand.nextInt(size);
+            double y = 12 + rand.nextInt(height - 24);
+            double z = rand.nextInt(size);
+            double yaw = rand.nextDouble() * Math.PI * 2;
+            double pitch = 0;
+            for (int step = 0; step < 300; step++) {
+                yaw += (rand.nextDouble() - 0.5) * 0.5;
+                pitch = Math.max(-0.5, Math.min(0.5, pitch + (rand.nextDouble() - 0.5) * 0.2));
+                x += Math.cos(yaw) * Math.cos(pitch);
+                y = Math.max(4, Math.min(height - 6, y + Math.sin(pitch)));
+                z += Math.sin(yaw) * Math.cos(pitch);
+                int r = 1 + rand.nextInt(2);
+                snap.fill((int) x - r, (int) y, (int) z - r, (int) x + r, (int) y + r + 1, (int) z + r, PathingBlockType.AIR);
+            }
+        }
+        // a long straight tunnel guarantees the two ends are connected, the worms make it a maze around it
+        snap.fill(8, 20, 8, 12, 23, size - 9, PathingBlockType.AIR);
+        snap.fill(8, 20, size - 13, size - 9, 23, size - 9, PathingBlockType.AIR);
+        snap.fill(8, 19, 8, 12, 19, size - 9, PathingBlockType.SOLID);
+        snap.fill(8, 19, size - 13, size - 9, 19, size - 9, PathingBlockType.SOLID);
+        return new BlockSnapshot("caves", size, height, size, data, new int[]{10, 20, 10}, new int[]{size - 11, 20, size - 11});
+    }
+
+    /**
+     * Pillars over a lava floor, only reachable by jumping across one to three block gaps
+     */
+    static BlockSnapshot parkour() {
+        int size = 96;
+        int height = 48;
+        byte[] data = new byte[size * height * size];
+        BlockSnapshot snap = new BlockSnapshot("parkour", size, height, size, data, new int[3], new int[3]);
+        snap.fill(0, 0, 0, size - 1, 1, size - 1, PathingBlockType.AVOID);
+        Random rand = new Random(0x9A4CL);
+        // pillars on a grid with uneven spacing, some of them missing so that the route has to wind around
+        int[] columns = gaps(rand, size);
+        int[] rows = gaps(rand, size);
+        for (int x : columns) {
+            for (int z : rows) {
+                if (rand.nextInt(5) != 0) {
+                    snap.fill(x, 2, z, x, 20, z, PathingBlockType.SOLID);
+                }
+            }
+        }
+        snap.fill(1, 2, 1, 3, 20, 3, PathingBlockType.SOLID);
+        snap.fill(size - 4, 2, size - 4, size - 2, 20, size - 2, PathingBlockType.SOLID);
+        return new BlockSnapshot("parkour", size, height, size, data, new int[]{2, 21, 2}, new int[]{size - 3, 21, size - 3});
+    }
+
+    /**
+     * Netherrack hills under a bedrock ceiling with lava lakes in the valleys
+     */
+    static BlockSnapshot nether() {
+        int size = 192;
+        int height = 128;
+        byte[] data = new byte[size * height * size];
+        BlockSnapshot snap = new BlockSnapshot("nether", size, height, size, data, new int[3], new int[3]);
+        Random rand = new Random(0x4E7EL);
+        double phaseX = rand.nextDouble() * 10;
+        double phaseZ = rand.nextDouble() * 10;
+        for (int x = 0; x < size; x++) {
+            for (int z = 0; z < size; z++) {
+                int ground = 40 + (int) Math.round(12 * Math.sin(x / 19.0 + phaseX) * Math.cos(z / 13.0 + phaseZ));
+                snap.fill(x, 0, z, x, ground, z, PathingBlockType.SOLID);
+                if (ground < 33) {
+                    snap.fill(x, ground + 1, z, x, 33, z, PathingBlockType.AVOID);
+                }
+                int ceiling = height - 20 + (int) Math.round(6 * Math.cos(x / 11.0) * Math.sin(z / 7.0));
+                snap.fill(x, ceiling, z, x, height - 1, z, PathingBlockType.SOLID);
+            }
+        }
+        return snap.withEndpoints(8, 8, size - 9, size - 9);
+    }
+
+    private BlockSnapshot withEndpoints(int fromX, int fromZ, int toX, int toZ) {
+        int[] start = {fromX, surface(fromX, fromZ) + 1, fromZ};
+        int[] goal = {toX, surface(toX, toZ) + 1, toZ};
+        // make sure both ends are standable even if a tree or lava landed on them
+        fill(start[0], start[1], start[2], start[0], start[1] + 1, start[2], PathingBlockType.AIR);
+        fill(goal[0], goal[1], goal[2], goal[0], goal[1] + 1, goal[2], PathingBlockType.AIR);
+        set(start[0], start[1] - 1, start[2], PathingBlockType.SOLID);
+        set(goal[0], goal[1] - 1, goal[2], PathingBlockType.SOLID);
+        return new BlockSnapshot(name, sizeX, height, sizeZ, data, start, goal);
+    }
+
+    private static int[] gaps(Random rand, int size) {
+        int[] positions = new int[size];
+        int count = 0;
+        for (int pos = 2; pos < size - 2; pos += 2 + rand.nextInt(3)) {
+            positions[count++] = pos;
+        }
+        return Arrays.copyOf(positions, count);
+    }
+
+    /**
+     * @return The highest solid block in this column that isn't under more solid blocks (so not the nether roof)
+     */
+    private int surface(int x, int z) {
+        for (int y = height - 1; y >= 0; y--) {
+            if (get(x, y, z) == PathingBlockType.SOLID && get(x, y + 1, z) != PathingBlockType.SOLID) {
+                return y;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * What kind of block is at each position of a snapshot that's being made
+     */
+    @FunctionalInterface
+    public interface Source {
+
+        PathingBlockType get(int x, int y, int z);
+    }
+
+    private void fill(int x1, int y1, int z1, int x2, int y2, int z2, PathingBlockType type) {
+        for (int y = y1; y <= y2; y++) {
+            for (int z = z1; z <= z2; z++) {
+                for (int x = x1; x <= x2; x++) {
+                    set(x, y, z, type);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pathfinding benchmarks over fixed terrain, run with {@code ./gradlew jmh}
+ * <p>
+ * {@link #throughput} reports nodes per second as secondary results, {@link #latency} gives the
+ * p50/p99 of a whole calculation, and the gc profiler that the jmh task always enables reports allocation per op.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2G", "-Xmx2G"})
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 10, time = 2)
+public class PathFinderBenchmark {
+
+    @Param({"flat", "caves", "parkour", "nether"})
+    public String terrain;
+
+    /**
+     * The values of the pathingOpenSet setting, plus {@code compact} for {@link CompactAStarPathFinder}
+     */
+    @Param({"binary", "4ary", "pairing", "bucket", "compact"})
+    public String openSet;
+
+    private SnapshotPathFinder finder;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        finder = new SnapshotPathFinder(BlockSnapshot.load(terrain));
+        SnapshotPathFinder.Result result = search();
+        if (!result.reachedGoal) {
+            throw new IllegalStateException("No path across " + terrain + ": " + result);
+        }
+        System.out.println(terrain + ": " + result);
+    }
+
+    private SnapshotPathFinder.Result search() {
+        return finder.calculate(openSet);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public SnapshotPathFinder.Result throughput(SearchCounters counters) {
+        SnapshotPathFinder.Result result = search();
+        counters.nodes += result.numNodes;
+        return result;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public SnapshotPathFinder.Result latency() {
+        return search();
+    }
+
+    /**
+     * Per second rates of the search itself, rather than of whole calculations
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class SearchCounters {
+
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+}
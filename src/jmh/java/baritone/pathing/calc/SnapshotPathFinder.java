@@ -0,0 +1,95 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.BlockStateInterface;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+
+import java.util.Optional;
+
+/**
+ * Runs the real {@link AStarPathFinder} (or {@link CompactAStarPathFinder}) with the real movements over a
+ * {@link BlockSnapshot}, through a {@link BlockStateInterface} that reads the snapshot instead of a loaded world.
+ * <p>
+ * There's no player, so nothing gets broken or placed, and the search goes straight to
+ * {@link AbstractNodeCostSearch#calculate0} since turning the result into movements needs a client.
+ */
+public final class SnapshotPathFinder {
+
+    static {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        // without a game the settings aren't read from anywhere, they start at their defaults and these are set here
+        Baritone.settings().allowParkour.value = true;
+    }
+
+    /**
+     * Long enough that a search never stops early, so that every run does the same work
+     */
+    private static final long TIMEOUT = 600_000;
+
+    private final BlockSnapshot snapshot;
+    private final BlockStateInterface bsi;
+    private final Goal goal;
+
+    public SnapshotPathFinder(BlockSnapshot snapshot) {
+        this.snapshot = snapshot;
+        this.bsi = new BlockStateInterface(snapshot.toWorld(), 0, snapshot.height);
+        this.goal = new GoalBlock(snapshot.goalX, snapshot.goalY, snapshot.goalZ);
+    }
+
+    /**
+     * @param openSet A value of the pathingOpenSet setting, or {@code compact} for {@link CompactAStarPathFinder}
+     */
+    public Result calculate(String openSet) {
+        Baritone.settings().pathingOpenSet.value = openSet.equals("compact") ? "binary" : openSet;
+        CalculationContext context = new CalculationContext(new BlockStateInterface(bsi));
+        Favoring favoring = new Favoring(null, context);
+        AbstractNodeCostSearch search = openSet.equals("compact")
+                ? new CompactAStarPathFinder(snapshot.startX, snapshot.startY, snapshot.startZ, goal, favoring, context)
+                : new AStarPathFinder(snapshot.startX, snapshot.startY, snapshot.startZ, goal, favoring, context);
+        Optional<IPath> path = search.calculate0(TIMEOUT, TIMEOUT);
+        return path.map(p -> new Result(p.getNumNodesConsidered(), p.length(), goal.isInGoal(p.getDest())))
+                .orElseGet(() -> new Result(0, 0, false));
+    }
+
+    public static final class Result {
+
+        public final int numNodes;
+        public final int pathLength;
+        public final boolean reachedGoal;
+
+        Result(int numNodes, int pathLength, boolean reachedGoal) {
+            this.numNodes = numNodes;
+            this.pathLength = pathLength;
+            this.reachedGoal = reachedGoal;
+        }
+
+        @Override
+        public String toString() {
+            return numNodes + " nodes, path of " + pathLength + (reachedGoal ? " to the goal" : " not reaching the goal");
+        }
+    }
+}
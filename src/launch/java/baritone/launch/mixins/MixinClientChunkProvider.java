@@ -17,34 +17,26 @@
 
 package baritone.launch.mixins;
 
+import baritone.utils.WorldSnapshot;
 import baritone.utils.accessor.IChunkArray;
 import baritone.utils.accessor.IClientChunkProvider;
-import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
-import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
 
 import java.lang.reflect.Field;
 import java.util.Arrays;
 import net.minecraft.client.multiplayer.ClientChunkCache;
-import net.minecraft.client.multiplayer.ClientLevel;
 
 @Mixin(ClientChunkCache.class)
 public class MixinClientChunkProvider implements IClientChunkProvider {
 
-    @Final
-    @Shadow
-    ClientLevel level;
+    @Unique
+    private WorldSnapshot snapshot;
 
     @Override
-    public ClientChunkCache createThreadSafeCopy() {
-        IChunkArray arr = extractReferenceArray();
-        ClientChunkCache result = new ClientChunkCache(level, arr.viewDistance() - 3); // -3 because its adds 3 for no reason lmao
-        IChunkArray copyArr = ((IClientChunkProvider) result).extractReferenceArray();
-        copyArr.copyFrom(arr);
-        if (copyArr.viewDistance() != arr.viewDistance()) {
-            throw new IllegalStateException(copyArr.viewDistance() + " " + arr.viewDistance());
-        }
-        return result;
+    public WorldSnapshot snapshot() {
+        snapshot = WorldSnapshot.take(extractReferenceArray(), snapshot);
+        return snapshot;
     }
 
     @Override
@@ -20,16 +20,23 @@ package baritone.behavior;
 import baritone.Baritone;
 import baritone.api.behavior.IPathingBehavior;
 import baritone.api.event.events.*;
+import baritone.api.event.events.type.EventState;
 import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.goals.Goal;
 import baritone.api.pathing.goals.GoalXZ;
 import baritone.api.process.PathingCommand;
 import baritone.api.utils.BetterBlockPos;
 import baritone.api.utils.Helper;
+import baritone.api.utils.Pair;
 import baritone.api.utils.PathCalculationResult;
 import baritone.api.utils.interfaces.IGoalRenderPos;
 import baritone.pathing.calc.AStarPathFinder;
 import baritone.pathing.calc.AbstractNodeCostSearch;
+import baritone.pathing.calc.BidirectionalPathFinder;
+import baritone.pathing.calc.CompactAStarPathFinder;
+import baritone.pathing.calc.HierarchicalPathFinder;
+import baritone.pathing.calc.IncrementalPathFinder;
+import baritone.pathing.calc.IncrementalSearch;
 import baritone.pathing.movement.CalculationContext;
 import baritone.pathing.movement.MovementHelper;
 import baritone.pathing.path.PathExecutor;
@@ -39,10 +46,13 @@ import baritone.utils.PathingCommandContext;
 import baritone.utils.pathing.Favoring;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.LinkedBlockingQueue;
 import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.phys.Vec3;
 
 public final class PathingBehavior extends Behavior implements IPathingBehavior, Helper {
 
@@ -66,6 +76,11 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
     private volatile AbstractNodeCostSearch inProgress;
     private final Object pathCalcLock = new Object();
 
+    /**
+     * Kept between calculations to the same goal when pathingIncremental is on
+     */
+    private volatile IncrementalSearch incrementalSearch;
+
     private final Object pathPlanLock = new Object();
 
     private boolean lastAutoJump;
@@ -251,6 +266,26 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
         }
     }
 
+    @Override
+    public void onChunkEvent(ChunkEvent event) {
+        IncrementalSearch search = incrementalSearch;
+        if (search != null && event.getState() == EventState.POST && (event.getType() == ChunkEvent.Type.UNLOAD || event.getType().isPopulate())) {
+            search.chunkChanged(event.getX(), event.getZ());
+        }
+    }
+
+    @Override
+    public void onBlockChange(BlockChangeEvent event) {
+        IncrementalSearch search = incrementalSearch;
+        if (search != null) {
+            List<BlockPos> positions = new ArrayList<>(event.getBlocks().size());
+            for (Pair<BlockPos, BlockState> change : event.getBlocks()) {
+                positions.add(change.first());
+            }
+            search.blocksChanged(positions);
+        }
+    }
+
     public void secretInternalSetGoal(Goal goal) {
         this.goal = goal;
     }
@@ -493,9 +528,10 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             primaryTimeout = Baritone.settings().planAheadPrimaryTimeoutMS.value;
             failureTimeout = Baritone.settings().planAheadFailureTimeoutMS.value;
         }
+        prefetchRegions(start, goal, context);
         AbstractNodeCostSearch pathfinder = createPathfinder(start, goal, current == null ? null : current.getPath(), context);
         if (!Objects.equals(pathfinder.getGoal(), goal)) { // will return the exact same object if simplification didn't happen
-            logDebug("Simplifying " + goal.getClass() + " to GoalXZ due to distance");
+            logDebug("Simplifying " + goal.getClass() + " to " + pathfinder.getGoal().getClass() + " due to distance");
         }
         inProgress = pathfinder;
         Baritone.getExecutor().execute(() -> {
@@ -553,7 +589,32 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
         });
     }
 
-    private static AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context) {
+    /**
+     * Start loading the cached regions between the start and the goal, so the path thread doesn't find them unknown
+     */
+    private void prefetchRegions(BlockPos start, Goal goal, CalculationContext context) {
+        if (context.worldData == null) {
+            return;
+        }
+        double dirX;
+        double dirZ;
+        if (goal instanceof IGoalRenderPos) {
+            BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
+            dirX = pos.getX() - start.getX();
+            dirZ = pos.getZ() - start.getZ();
+        } else if (goal instanceof GoalXZ) {
+            dirX = ((GoalXZ) goal).getX() - start.getX();
+            dirZ = ((GoalXZ) goal).getZ() - start.getZ();
+        } else {
+            // no one place to head for, so go by which way we're already going
+            Vec3 motion = ctx.player().getDeltaMovement();
+            dirX = motion.x;
+            dirZ = motion.z;
+        }
+        context.worldData.cache.prefetch(start.getX(), start.getZ(), dirX, dirZ);
+    }
+
+    private AbstractNodeCostSearch createPathfinder(BlockPos start, Goal goal, IPath previous, CalculationContext context) {
         Goal transformed = goal;
         if (Baritone.settings().simplifyUnloadedYCoord.value && goal instanceof IGoalRenderPos) {
             BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
@@ -562,7 +623,41 @@ public final class PathingBehavior extends Behavior implements IPathingBehavior,
             }
         }
         Favoring favoring = new Favoring(context.getBaritone().getPlayerContext(), previous, context);
-        return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context);
+        if (Baritone.settings().pathingHierarchical.value && transformed.getClass() == GoalXZ.class && context.worldData != null) {
+            // the plan is made on the path thread, since it can take a while
+            incrementalSearch = null;
+            return new HierarchicalPathFinder(start.getX(), start.getY(), start.getZ(), (GoalXZ) transformed, context, context.worldData.cache, segmentGoal -> createSegmentPathfinder(start, segmentGoal, favoring, context));
+        }
+        if (Baritone.settings().pathingIncremental.value && BidirectionalPathFinder.supports(transformed) && context.getClass() == CalculationContext.class) {
+            BlockPos pos = ((IGoalRenderPos) transformed).getGoalPos();
+            if (context.isLoaded(pos.getX(), pos.getZ())) {
+                IncrementalSearch search = incrementalSearch;
+                if (search == null || !search.matches(transformed, context)) {
+                    search = incrementalSearch = new IncrementalSearch(transformed, context.world);
+                }
+                return new IncrementalPathFinder(start.getX(), start.getY(), start.getZ(), transformed, favoring, context, search);
+            }
+        }
+        incrementalSearch = null; // different goal, so it's no use anymore
+        return createSegmentPathfinder(start, transformed, favoring, context);
+    }
+
+    /**
+     * The search for a path that starts over every time, also used on the path thread for each segment of a
+     * {@link HierarchicalPathFinder}'s plan
+     */
+    private static AbstractNodeCostSearch createSegmentPathfinder(BlockPos start, Goal goal, Favoring favoring, CalculationContext context) {
+        boolean compact = Baritone.settings().pathingCompactNodeStore.value;
+        if (Baritone.settings().pathingBidirectional.value && !compact && BidirectionalPathFinder.supports(goal)) {
+            BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
+            if (context.isLoaded(pos.getX(), pos.getZ())) {
+                return new BidirectionalPathFinder(start.getX(), start.getY(), start.getZ(), goal, favoring, context);
+            }
+        }
+        if (compact && CompactAStarPathFinder.supports(Baritone.settings().pathingOpenSet.value)) {
+            return new CompactAStarPathFinder(start.getX(), start.getY(), start.getZ(), goal, favoring, context);
+        }
+        return new AStarPathFinder(start.getX(), start.getY(), start.getZ(), goal, favoring, context);
     }
 
     @Override
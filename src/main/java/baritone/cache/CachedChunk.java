@@ -27,8 +27,9 @@ import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.dimension.DimensionType;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -110,6 +111,21 @@ public final class CachedChunk {
             Blocks.VINE
     );
 
+    private static final int AIR = PathingBlockType.AIR.getPacked();
+    private static final int AVOID = PathingBlockType.AVOID.getPacked();
+    private static final int SOLID = PathingBlockType.SOLID.getPacked();
+
+    /**
+     * What to return for each packed type, other than solid which depends on the dimension
+     */
+    private static final BlockState[] PACKED_BLOCKS = new BlockState[4];
+
+    static {
+        PACKED_BLOCKS[PathingBlockType.AIR.getPacked()] = Blocks.AIR.defaultBlockState();
+        PACKED_BLOCKS[PathingBlockType.WATER.getPacked()] = Blocks.WATER.defaultBlockState();
+        PACKED_BLOCKS[PathingBlockType.AVOID.getPacked()] = Blocks.LAVA.defaultBlockState();
+    }
+
     public final int height;
 
     /**
@@ -137,11 +153,15 @@ public final class CachedChunk {
     /**
      * The actual raw data of this packed chunk.
      * <p>
-     * Each block is expressed as 2 bits giving a total of 16 KiB
+     * Each block is expressed as 2 bits giving a total of 16 KiB. Bit {@link #getPositionIndex} of the chunk is bit
+     * {@code index & 63} of {@code data[index >> 6]}, the same layout as a BitSet, see {@link PathingBlockType#getPacked()}
      */
-    private final BitSet data;
+    private final long[] data;
 
-    private final Int2ObjectOpenHashMap<String> special;
+    /**
+     * The special blocks by position index, resolved from their names once here rather than on every lookup
+     */
+    private final Int2ObjectOpenHashMap<BlockState> special;
 
     /**
      * The block names of each surface level block for generating an overview
@@ -154,7 +174,12 @@ public final class CachedChunk {
 
     public final long cacheTimestamp;
 
-    CachedChunk(int x, int z, int height, BitSet data, BlockState[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
+    /**
+     * Roughly how many bytes of heap this chunk takes, for the memory budget of the regions in RAM
+     */
+    final long estimatedSize;
+
+    CachedChunk(int x, int z, int height, long[] data, BlockState[] overview, Map<String, List<BlockPos>> specialBlockLocations, long cacheTimestamp) {
         this.size = size(height);
         this.sizeInBytes = sizeInBytes(size);
         validateSize(data);
@@ -174,6 +199,17 @@ public final class CachedChunk {
             setSpecial();
         }
         calculateHeightMap();
+        this.estimatedSize = estimateSize();
+    }
+
+    private long estimateSize() {
+        // object headers and array lengths are 16 bytes, references 4, the block states themselves are shared
+        long size = 64 + (16 + data.length * 8L) + (16 + overview.length * 4L) + (16 + heightMap.length * 4L);
+        for (List<BlockPos> positions : specialBlockLocations.values()) {
+            // the map entry and list, then each BlockPos and the special map's entry for it
+            size += 64 + positions.size() * (32L + 4 + 16);
+        }
+        return size;
     }
 
     public static int size(int dimension_height) {
@@ -184,19 +220,24 @@ public final class CachedChunk {
         return size / 8;
     }
 
+    public static int sizeInLongs(int size) {
+        return size / 64;
+    }
+
     private final void setSpecial() {
         for (Map.Entry<String, List<BlockPos>> entry : specialBlockLocations.entrySet()) {
+            BlockState state = BlockUtils.stringToBlockRequired(entry.getKey()).defaultBlockState();
             for (BlockPos pos : entry.getValue()) {
-                special.put(getPositionIndex(pos.getX(), pos.getY(), pos.getZ()), entry.getKey());
+                special.put(getPositionIndex(pos.getX(), pos.getY(), pos.getZ()), state);
             }
         }
     }
 
     public final BlockState getBlock(int x, int y, int z, DimensionType dimension) {
         int index = getPositionIndex(x, y, z);
-        PathingBlockType type = getType(index);
+        int type = getPacked(data, index);
         int internalPos = z << 4 | x;
-        if (heightMap[internalPos] == y && type != PathingBlockType.AVOID) {
+        if (heightMap[internalPos] == y && type != AVOID) {
             // if the top block in a column is water, we cache it as AVOID but we don't want to just return default state water (which is not flowing) beacuse then it would try to path through it
 
             // we have this exact block, it's a surface block
@@ -207,29 +248,60 @@ public final class CachedChunk {
             return overview[internalPos];
         }
         if (special != null) {
-            String str = special.get(index);
-            if (str != null) {
-                return BlockUtils.stringToBlockRequired(str).defaultBlockState();
+            BlockState state = special.get(index);
+            if (state != null) {
+                return state;
             }
         }
 
-        if (type == PathingBlockType.SOLID) {
-            if (y == dimension.logicalHeight() - 1 && dimension.hasCeiling()) {
-                // nether roof is always unbreakable
-                return Blocks.BEDROCK.defaultBlockState();
-            }
-            if (y < -59 && dimension.natural()) {
-                // solid blocks below 5 are commonly bedrock
-                // however, returning bedrock always would be a little yikes
-                // discourage paths that include breaking blocks below 5 a little more heavily just so that it takes paths breaking what's known to be stone (at 5 or above) instead of what could maybe be bedrock (below 5)
-                return Blocks.OBSIDIAN.defaultBlockState();
-            }
+        if (type != SOLID) {
+            return PACKED_BLOCKS[type];
+        }
+        if (y == dimension.logicalHeight() - 1 && dimension.hasCeiling()) {
+            // nether roof is always unbreakable
+            return Blocks.BEDROCK.defaultBlockState();
         }
-        return ChunkPacker.pathingTypeToBlock(type, dimension);
+        if (y < -59 && dimension.natural()) {
+            // solid blocks below 5 are commonly bedrock
+            // however, returning bedrock always would be a little yikes
+            // discourage paths that include breaking blocks below 5 a little more heavily just so that it takes paths breaking what's known to be stone (at 5 or above) instead of what could maybe be bedrock (below 5)
+            return Blocks.OBSIDIAN.defaultBlockState();
+        }
+        return ChunkPacker.pathingTypeToBlock(PathingBlockType.SOLID, dimension);
+    }
+
+    /**
+     * @param x The x position, within the chunk
+     * @param y The y position, relative to the bottom of the world
+     * @param z The z position, within the chunk
+     * @return What kind of block this is as far as pathing is concerned
+     */
+    final PathingBlockType getType(int x, int y, int z) {
+        return getType(getPositionIndex(x, y, z));
     }
 
     private PathingBlockType getType(int index) {
-        return PathingBlockType.fromBits(data.get(index), data.get(index + 1));
+        return PathingBlockType.fromPacked(getPacked(data, index));
+    }
+
+    /**
+     * @param data  Packed chunk data
+     * @param index The position's bit index, from {@link #getPositionIndex}
+     * @return The position's {@link PathingBlockType#getPacked()}
+     */
+    static int getPacked(long[] data, int index) {
+        return (int) (data[index >> 6] >>> index) & 0b11; // the shift only uses the low 6 bits of index
+    }
+
+    static void setPacked(long[] data, int index, int type) {
+        data[index >> 6] = data[index >> 6] & ~(0b11L << index) | (long) type << index;
+    }
+
+    /**
+     * @return A copy of the packed data, for making an updated version of this chunk
+     */
+    final long[] copyData() {
+        return data.clone();
     }
 
     private void calculateHeightMap() {
@@ -237,9 +309,8 @@ public final class CachedChunk {
             for (int x = 0; x < 16; x++) {
                 int index = z << 4 | x;
                 heightMap[index] = 0;
-                for (int y = height; y >= 0; y--) {
-                    int i = getPositionIndex(x, y, z);
-                    if (data.get(i) || data.get(i + 1)) {
+                for (int y = height - 1; y >= 0; y--) {
+                    if (getPacked(data, getPositionIndex(x, y, z)) != AIR) {
                         heightMap[index] = y;
                         break;
                     }
@@ -268,10 +339,22 @@ public final class CachedChunk {
     }
 
     /**
-     * @return Returns the raw packed chunk data as a byte array
+     * @return Returns the raw packed chunk data as a byte array, {@link #sizeInBytes} long
      */
     public final byte[] toByteArray() {
-        return this.data.toByteArray();
+        ByteBuffer bytes = ByteBuffer.allocate(sizeInBytes).order(ByteOrder.LITTLE_ENDIAN);
+        bytes.asLongBuffer().put(data);
+        return bytes.array();
+    }
+
+    /**
+     * The opposite of {@link #toByteArray()}, bytes in the same order BitSet uses, so files saved from a BitSet still
+     * read the same
+     */
+    static long[] fromByteArray(byte[] bytes) {
+        long[] data = new long[bytes.length / 8];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(data);
+        return data;
     }
 
     /**
@@ -287,16 +370,16 @@ public final class CachedChunk {
     }
 
     /**
-     * Validates the size of an input {@link BitSet} containing the raw
-     * packed chunk data. Sizes that exceed {@link CachedChunk#size} are
+     * Validates the size of an input array containing the raw
+     * packed chunk data. Sizes other than {@link CachedChunk#size} are
      * considered invalid, and thus, an exception will be thrown.
      *
      * @param data The raw data
-     * @throws IllegalArgumentException if the bitset size exceeds the maximum size
+     * @throws IllegalArgumentException if the array isn't the right size
      */
-    private void validateSize(BitSet data) {
-        if (data.size() > size) {
-            throw new IllegalArgumentException("BitSet of invalid length provided");
+    private void validateSize(long[] data) {
+        if (data.length != sizeInLongs(size)) {
+            throw new IllegalArgumentException("Packed data of invalid length provided");
         }
     }
 }
@@ -30,7 +30,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 /**
  * @author Brady
@@ -43,6 +42,8 @@ public final class CachedRegion implements ICachedRegion {
 
     /**
      * Magic value to detect invalid cache files, or incompatible cache files saved in an old version of Baritone
+     * <p>
+     * This is the old whole-region GZIP format, which is only read now (and converted), see {@link RegionFile#MAGIC}
      */
     private static final int CACHED_REGION_MAGIC = 456022911;
 
@@ -68,6 +69,55 @@ public final class CachedRegion implements ICachedRegion {
      */
     private boolean hasUnsavedChanges;
 
+    /**
+     * Whether this region is being evicted, so nothing can be cached into it anymore, see {@link #updateCachedChunk}
+     */
+    private boolean closed;
+
+    /**
+     * Whether this region has been evicted, and taken out of its world's map. Whatever still has it should look it up
+     * again, since nothing is read from its file anymore, see {@link #isEvicted}
+     */
+    private volatile boolean evicted;
+
+    /**
+     * The file that the chunks which haven't been needed yet get read from
+     */
+    private RegionFile file;
+
+    /**
+     * Held for the whole of a save, so there's only one at a time, while the lock on the region itself is only held
+     * for parts of it
+     */
+    private final Object saveLock = new Object();
+
+    /**
+     * Which chunks are in {@link #file} and haven't been read from it yet, indexed x * 32 + z
+     */
+    private final boolean[] onDisk = new boolean[RegionFile.CHUNKS];
+
+    /**
+     * Which chunks have changed (or been removed) since the most recent load or save, indexed x * 32 + z
+     */
+    private final boolean[] dirty = new boolean[RegionFile.CHUNKS];
+
+    /**
+     * The blocks that the chunks in {@link #file} (and any that get saved to it) refer to by id
+     */
+    private RegionPalette palette = new RegionPalette();
+
+    /**
+     * The total {@link CachedChunk#estimatedSize} of the chunks in {@link #chunks}. Only changed with the lock on this
+     * region held, by {@link #setChunk}.
+     */
+    private volatile long chunkBytes;
+
+    /**
+     * When this region was last looked up, from {@link System#nanoTime()}. Not volatile, since it's written on every
+     * lookup and it's fine for it to be a little out of date, see {@link CachedWorld}'s eviction.
+     */
+    private long lastAccess = System.nanoTime();
+
     CachedRegion(int x, int z, DimensionType dimension) {
         this.x = x;
         this.z = z;
@@ -78,7 +128,7 @@ public final class CachedRegion implements ICachedRegion {
     @Override
     public final BlockState getBlock(int x, int y, int z) {
         int adjY = y - dimension.minY();
-        CachedChunk chunk = chunks[x >> 4][z >> 4];
+        CachedChunk chunk = getChunk(x >> 4, z >> 4);
         if (chunk != null) {
             return chunk.getBlock(x & 15, adjY, z & 15, dimension);
         }
@@ -87,10 +137,93 @@ public final class CachedRegion implements ICachedRegion {
 
     @Override
     public final boolean isCached(int x, int z) {
-        return chunks[x >> 4][z >> 4] != null;
+        return chunks[x >> 4][z >> 4] != null || onDisk[(x >> 4) * 32 + (z >> 4)];
+    }
+
+    /**
+     * @param chunkX The chunk x coordinate, within this region
+     * @param chunkZ The chunk z coordinate, within this region
+     * @return The cached chunk, or null if it isn't cached
+     */
+    final CachedChunk getChunk(int chunkX, int chunkZ) {
+        CachedChunk chunk = chunks[chunkX][chunkZ];
+        if (chunk == null && onDisk[chunkX * 32 + chunkZ]) {
+            chunk = readChunk(chunkX, chunkZ);
+        }
+        return chunk;
+    }
+
+    /**
+     * Puts a chunk in {@link #chunks} and keeps {@link #chunkBytes} up to date, only with the lock on this region held
+     */
+    private void setChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+        CachedChunk previous = chunks[chunkX][chunkZ];
+        chunks[chunkX][chunkZ] = chunk;
+        chunkBytes += (chunk == null ? 0 : chunk.estimatedSize) - (previous == null ? 0 : previous.estimatedSize);
+    }
+
+    /**
+     * @return Roughly how many bytes of heap this region takes, including the chunks it's read from disk so far
+     */
+    final long residentBytes() {
+        // the arrays, the chunks that are only on disk aren't on the heap
+        return 8192 + chunkBytes;
+    }
+
+    /**
+     * Called whenever this region is looked up, so that the least recently used regions can be evicted first
+     */
+    final void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    final long lastAccess() {
+        return lastAccess;
+    }
+
+    final synchronized boolean hasUnsavedChanges() {
+        return hasUnsavedChanges;
+    }
+
+    /**
+     * Reads a chunk from {@link #file}, the first time it's needed
+     */
+    private synchronized CachedChunk readChunk(int chunkX, int chunkZ) {
+        int index = chunkX * 32 + chunkZ;
+        if (!onDisk[index]) {
+            return chunks[chunkX][chunkZ]; // another thread got to it first
+        }
+        if (evicted) {
+            return null; // the region loaded in its place reads it instead
+        }
+        byte[] compressed;
+        try {
+            compressed = file.readCompressed(index);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null; // still on disk, so it's read again the next time it's needed
+        }
+        CachedChunk chunk = null;
+        try (DataInputStream in = RegionFile.inflate(compressed)) {
+            chunk = readChunk(in, chunkX + 32 * this.x, chunkZ + 32 * this.z, file.timestamp(index));
+        } catch (Exception ex) { // corrupted chunks can cause NullPointerExceptions as well as IOExceptions
+            ex.printStackTrace();
+        }
+        setChunk(chunkX, chunkZ, chunk);
+        onDisk[index] = false;
+        return chunk;
+    }
+
+    private void readAllChunks() {
+        for (int x = 0; x < 32; x++) {
+            for (int z = 0; z < 32; z++) {
+                getChunk(x, z);
+            }
+        }
     }
 
     public final ArrayList<BlockPos> getLocationsOf(String block) {
+        readAllChunks();
         ArrayList<BlockPos> res = new ArrayList<>();
         for (int chunkX = 0; chunkX < 32; chunkX++) {
             for (int chunkZ = 0; chunkZ < 32; chunkZ++) {
@@ -106,89 +239,297 @@ public final class CachedRegion implements ICachedRegion {
         return res;
     }
 
-    public final synchronized void updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
-        this.chunks[chunkX][chunkZ] = chunk;
+    /**
+     * @return False if this region is {@link #close closed}, in which case nothing changed
+     */
+    public final synchronized boolean updateCachedChunk(int chunkX, int chunkZ, CachedChunk chunk) {
+        if (closed) {
+            return false;
+        }
+        setChunk(chunkX, chunkZ, chunk);
+        onDisk[chunkX * 32 + chunkZ] = false;
+        dirty[chunkX * 32 + chunkZ] = true;
         hasUnsavedChanges = true;
+        return true;
     }
 
+    /**
+     * Stops anything else being cached into this region, before it's saved for the last time and evicted
+     */
+    final synchronized void close() {
+        closed = true;
+    }
 
-    public synchronized final void save(String directory) {
-        if (!hasUnsavedChanges) {
-            return;
+    /**
+     * Lets chunks be cached into this region again, if it couldn't be evicted after all
+     */
+    final synchronized void reopen() {
+        closed = false;
+    }
+
+    /**
+     * Called once this region is out of its world's map, so its file is closed for good. Anything that still reads
+     * from this region gets nothing for the chunks that are only on disk.
+     */
+    final synchronized void evict() {
+        evicted = true;
+        if (file != null) {
+            file.close();
         }
-        removeExpired();
-        try {
-            Path path = Paths.get(directory);
-            if (!Files.exists(path)) {
-                Files.createDirectories(path);
+    }
 
-            }
-            System.out.println("Saving region " + x + "," + z + " to disk " + path);
-            Path regionFile = getRegionFile(path, this.x, this.z);
-            if (!Files.exists(regionFile)) {
-                Files.createFile(regionFile);
-            }
-            try (
-                    FileOutputStream fileOut = new FileOutputStream(regionFile.toFile());
-                    GZIPOutputStream gzipOut = new GZIPOutputStream(fileOut, 16384);
-                    DataOutputStream out = new DataOutputStream(gzipOut)
-            ) {
-                out.writeInt(CACHED_REGION_MAGIC);
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        CachedChunk chunk = this.chunks[x][z];
-                        if (chunk == null) {
-                            out.write(CHUNK_NOT_PRESENT);
-                        } else {
-                            out.write(CHUNK_PRESENT);
-                            byte[] chunkBytes = chunk.toByteArray();
-                            out.write(chunkBytes);
-                            // Messy, but fills the empty 0s that should be trailing to fill up the space.
-                            out.write(new byte[chunk.sizeInBytes - chunkBytes.length]);
-                        }
-                    }
+    /**
+     * @return Whether this region has been evicted, in which case it should be looked up again
+     */
+    public final boolean isEvicted() {
+        return evicted;
+    }
+
+
+    /**
+     * Saves the chunks that have changed since the last save. If the region has a file in the current format, only
+     * those chunks are written and the rest of the file is left alone, unless that would leave more of the file
+     * wasted than in use, in which case it's all written again.
+     * <p>
+     * The lock on this region is only held to copy out what's changed and to swap the file over, not while it's
+     * compressed and written, so that the pathing thread isn't kept waiting to read a chunk.
+     *
+     * @return How many bytes were written
+     */
+    public final long save(String directory) {
+        synchronized (saveLock) {
+            Path regionFile;
+            byte[][] raw = new byte[RegionFile.ENTRIES][]; // still to be compressed
+            byte[][] data = new byte[RegionFile.ENTRIES][];
+            long[] cacheTimestamp = new long[RegionFile.ENTRIES];
+            boolean[] changedEntries;
+            boolean[] skipped = new boolean[RegionFile.CHUNKS];
+            boolean patch;
+            int paletteSize;
+            RegionFile saving;
+            long live = RegionFile.HEADER_SIZE;
+            int changed = 0;
+            synchronized (this) {
+                if (!hasUnsavedChanges) {
+                    return 0;
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            for (int i = 0; i < 256; i++) {
-                                out.writeUTF(BlockUtils.blockToString(chunks[x][z].getOverview()[i].getBlock()));
-                            }
-                        }
+                removeExpired();
+                try {
+                    Path path = Paths.get(directory);
+                    if (!Files.exists(path)) {
+                        Files.createDirectories(path);
                     }
-                }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            Map<String, List<BlockPos>> locs = chunks[x][z].getRelativeBlocks();
-                            out.writeShort(locs.entrySet().size());
-                            for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
-                                out.writeUTF(entry.getKey());
-                                out.writeShort(entry.getValue().size());
-                                for (BlockPos pos : entry.getValue()) {
-                                    out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
-                                    out.writeInt(pos.getY()-dimension.minY());
+                    System.out.println("Saving region " + x + "," + z + " to disk " + path);
+                    regionFile = getRegionFile(path, this.x, this.z);
+                    patch = file != null && file.isOnDisk() && Files.exists(regionFile);
+                    for (int x = 0; x < 32; x++) {
+                        for (int z = 0; z < 32; z++) {
+                            int index = x * 32 + z;
+                            CachedChunk chunk = this.chunks[x][z];
+                            if (dirty[index]) {
+                                changed++;
+                                if (chunk != null) {
+                                    raw[index] = writeChunk(chunk);
+                                    cacheTimestamp[index] = chunk.cacheTimestamp;
+                                }
+                            } else if (chunk != null || onDisk[index]) {
+                                // not changed, so it's the same as what's on disk
+                                if (patch) {
+                                    live += file.length(index);
+                                    skipped[index] = true; // don't need it, unless we end up writing the whole file
+                                } else if (file != null && file.isPresent(index)) {
+                                    data[index] = file.readCompressed(index);
+                                    cacheTimestamp[index] = file.timestamp(index);
+                                } else {
+                                    raw[index] = writeChunk(chunk);
+                                    cacheTimestamp[index] = chunk.cacheTimestamp;
                                 }
                             }
                         }
                     }
+                    // after the chunks, since writing them can add to it
+                    changedEntries = Arrays.copyOf(dirty, RegionFile.ENTRIES);
+                    if (!patch || palette.changedSinceSave()) {
+                        changedEntries[RegionFile.PALETTE] = true;
+                        raw[RegionFile.PALETTE] = palette.toByteArray();
+                    } else {
+                        live += file.length(RegionFile.PALETTE);
+                    }
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    return 0;
                 }
-                for (int x = 0; x < 32; x++) {
-                    for (int z = 0; z < 32; z++) {
-                        if (chunks[x][z] != null) {
-                            out.writeLong(chunks[x][z].cacheTimestamp);
+                paletteSize = palette.size();
+                saving = file;
+                // anything that changes from here on is saved next time
+                Arrays.fill(dirty, false);
+                hasUnsavedChanges = false;
+            }
+            try {
+                long start = System.nanoTime() / 1000000L;
+                long appended = 0;
+                for (int index = 0; index < RegionFile.ENTRIES; index++) {
+                    if (raw[index] != null) {
+                        data[index] = RegionFile.compress(raw[index]);
+                    }
+                    if (data[index] != null) {
+                        live += data[index].length;
+                        if (changedEntries[index]) {
+                            appended += data[index].length;
                         }
                     }
                 }
+                long written;
+                if (patch && saving.fileBytes() + appended <= 2 * live) {
+                    written = saving.patch(data, cacheTimestamp, changedEntries); // the chunks that are still only on disk haven't moved
+                } else {
+                    written = rewrite(regionFile, saving, data, cacheTimestamp, patch ? skipped : null);
+                }
+                synchronized (this) {
+                    palette.markSaved(paletteSize);
+                }
+                long end = System.nanoTime() / 1000000L;
+                System.out.println("Saved region successfully in " + (end - start) + "ms, " + changed + " changed chunks, " + written + " bytes written");
+                return written;
+            } catch (Exception ex) {
+                ex.printStackTrace();
+                synchronized (this) {
+                    // try again next time
+                    for (int index = 0; index < RegionFile.CHUNKS; index++) {
+                        dirty[index] |= changedEntries[index];
+                    }
+                    hasUnsavedChanges = true;
+                }
+                return 0;
             }
-            hasUnsavedChanges = false;
-            System.out.println("Saved region successfully");
-        } catch (Exception ex) {
-            ex.printStackTrace();
         }
     }
 
-    public synchronized void load(String directory) {
+    /**
+     * Writes the whole file again. The old file is closed first, since it would be read with the wrong table once it's
+     * replaced, so while the new one is being written the chunks that are still only on disk are read from a copy in
+     * memory instead.
+     *
+     * @param saving  The file the region had when the save started
+     * @param skipped The unchanged chunks that weren't copied out of the file yet, or null if they all were
+     * @return How many bytes were written
+     */
+    private long rewrite(Path regionFile, RegionFile saving, byte[][] data, long[] cacheTimestamp, boolean[] skipped) throws IOException {
+        RegionFile inMemory;
+        byte[] contents;
+        synchronized (this) {
+            if (file != saving) {
+                throw new IOException("Region file changed while saving");
+            }
+            if (skipped != null) {
+                // mostly wasted space from patches by now, so write it all again without it
+                for (int index = 0; index < RegionFile.CHUNKS; index++) {
+                    if (skipped[index]) {
+                        data[index] = file.readCompressed(index);
+                        cacheTimestamp[index] = file.timestamp(index);
+                    }
+                }
+                if (data[RegionFile.PALETTE] == null) {
+                    data[RegionFile.PALETTE] = file.readCompressed(RegionFile.PALETTE);
+                }
+            }
+            contents = RegionFile.build(data, cacheTimestamp);
+            if (file != null) {
+                file.close(); // everything that's still only on disk is in contents now
+            }
+            file = inMemory = RegionFile.wrap(contents);
+        }
+        RegionFile.write(regionFile, contents);
+        RegionFile opened = RegionFile.open(regionFile);
+        synchronized (this) {
+            if (file == inMemory) {
+                file = opened;
+            } else {
+                opened.close();
+            }
+        }
+        return contents.length;
+    }
+
+    private byte[] writeChunk(CachedChunk chunk) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(chunk.sizeInBytes + 4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(chunk.toByteArray());
+            for (int i = 0; i < 256; i++) {
+                out.writeShort(palette.idFor(chunk.getOverview()[i].getBlock()));
+            }
+            Map<String, List<BlockPos>> locs = chunk.getRelativeBlocks();
+            out.writeShort(locs.entrySet().size());
+            for (Map.Entry<String, List<BlockPos>> entry : locs.entrySet()) {
+                out.writeShort(palette.idFor(entry.getKey()));
+                out.writeShort(entry.getValue().size());
+                for (BlockPos pos : entry.getValue()) {
+                    out.writeByte((byte) (pos.getZ() << 4 | pos.getX()));
+                    out.writeInt(pos.getY() - dimension.minY());
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private CachedChunk readChunk(DataInputStream in, int chunkX, int chunkZ, long cacheTimestamp) throws IOException {
+        byte[] bytes = new byte[CachedChunk.sizeInBytes(CachedChunk.size(dimension.height()))];
+        in.readFully(bytes);
+        BlockState[] overview = new BlockState[256];
+        for (int i = 0; i < 256; i++) {
+            overview[i] = palette.state(in.readShort() & 0xffff);
+        }
+        Map<String, List<BlockPos>> location = new HashMap<>();
+        readSpecialBlocks(in, location, true);
+        return new CachedChunk(chunkX, chunkZ, dimension.height(), CachedChunk.fromByteArray(bytes), overview, location, cacheTimestamp);
+    }
+
+    /**
+     * @param hasPalette False for the old GZIP format, which has block names instead of ids
+     */
+    private void readSpecialBlocks(DataInputStream in, Map<String, List<BlockPos>> location, boolean hasPalette) throws IOException {
+        // 16 * 16 * 256 = 65536 so a short is enough
+        // ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
+        //   also why would you have more than 32767 special blocks in a chunk
+        // haha double jokes on you now it works for 65535 not just 32767
+        int numSpecialBlockTypes = in.readShort() & 0xffff;
+        for (int i = 0; i < numSpecialBlockTypes; i++) {
+            String blockName;
+            if (hasPalette) {
+                int id = in.readShort() & 0xffff;
+                palette.state(id);
+                blockName = palette.name(id);
+            } else {
+                blockName = in.readUTF();
+                BlockUtils.stringToBlockRequired(blockName);
+            }
+            List<BlockPos> locs = new ArrayList<>();
+            location.put(blockName, locs);
+            int numLocations = in.readShort() & 0xffff;
+            if (numLocations == 0) {
+                // an entire chunk full of air can happen in the end
+                numLocations = 65536;
+            }
+            for (int j = 0; j < numLocations; j++) {
+                byte xz = in.readByte();
+                int X = xz & 0x0f;
+                int Z = (xz >>> 4) & 0x0f;
+                int Y = in.readInt();
+                locs.add(new BlockPos(X, Y + dimension.minY(), Z));
+            }
+        }
+    }
+
+    public void load(String directory) {
+        if (read(directory)) {
+            save(directory); // not with the lock held, see save
+        }
+    }
+
+    /**
+     * @return Whether the file was in an old format, and needs saving again
+     */
+    private synchronized boolean read(String directory) {
         try {
             Path path = Paths.get(directory);
             if (!Files.exists(path)) {
@@ -197,12 +538,47 @@ public final class CachedRegion implements ICachedRegion {
 
             Path regionFile = getRegionFile(path, this.x, this.z);
             if (!Files.exists(regionFile)) {
-                return;
+                return false;
             }
 
             System.out.println("Loading region " + x + "," + z + " from disk " + path);
             long start = System.nanoTime() / 1000000L;
 
+            if (RegionFile.isRegionFile(regionFile)) {
+                RegionFile opened = RegionFile.open(regionFile);
+                if (opened.isPresent(RegionFile.PALETTE)) {
+                    try (DataInputStream in = opened.read(RegionFile.PALETTE)) {
+                        palette = RegionPalette.read(in);
+                    }
+                } else {
+                    palette = new RegionPalette();
+                }
+                for (int x = 0; x < 32; x++) {
+                    for (int z = 0; z < 32; z++) {
+                        if (opened.isPresent(x * 32 + z)) {
+                            // read when it's first needed, like it was read now
+                            setChunk(x, z, null);
+                            onDisk[x * 32 + z] = true;
+                            dirty[x * 32 + z] = false;
+                        }
+                    }
+                }
+                if (file != null) {
+                    file.close(); // from before it was reloaded
+                }
+                file = opened;
+                removeExpired();
+                hasUnsavedChanges = false;
+                long end = System.nanoTime() / 1000000L;
+                System.out.println("Loaded region table successfully in " + (end - start) + "ms");
+                return false;
+            }
+
+            palette = new RegionPalette();
+            if (file != null) {
+                file.close();
+            }
+            file = null; // whatever it was, it isn't anymore
             try (
                     FileInputStream fileIn = new FileInputStream(regionFile.toFile());
                     GZIPInputStream gzipIn = new GZIPInputStream(fileIn, 32768);
@@ -216,7 +592,7 @@ public final class CachedRegion implements ICachedRegion {
                     throw new IOException("Bad magic value " + magic);
                 }
                 boolean[][] present = new boolean[32][32];
-                BitSet[][] bitSets = new BitSet[32][32];
+                long[][][] bitSets = new long[32][32][];
                 Map<String, List<BlockPos>>[][] location = new Map[32][32];
                 BlockState[][][] overview = new BlockState[32][32][];
                 long[][] cacheTimestamp = new long[32][32];
@@ -227,7 +603,7 @@ public final class CachedRegion implements ICachedRegion {
                             case CHUNK_PRESENT:
                                 byte[] bytes = new byte[CachedChunk.sizeInBytes(CachedChunk.size(dimension.height()))];
                                 in.readFully(bytes);
-                                bitSets[x][z] = BitSet.valueOf(bytes);
+                                bitSets[x][z] = CachedChunk.fromByteArray(bytes);
                                 location[x][z] = new HashMap<>();
                                 //this is top block in columns
                                 overview[x][z] = new BlockState[256];
@@ -252,29 +628,7 @@ public final class CachedRegion implements ICachedRegion {
                 for (int x = 0; x < 32; x++) {
                     for (int z = 0; z < 32; z++) {
                         if (present[x][z]) {
-                            // 16 * 16 * 256 = 65536 so a short is enough
-                            // ^ haha jokes on leijurv, java doesn't have unsigned types so that isn't correct
-                            //   also why would you have more than 32767 special blocks in a chunk
-                            // haha double jokes on you now it works for 65535 not just 32767
-                            int numSpecialBlockTypes = in.readShort() & 0xffff;
-                            for (int i = 0; i < numSpecialBlockTypes; i++) {
-                                String blockName = in.readUTF();
-                                BlockUtils.stringToBlockRequired(blockName);
-                                List<BlockPos> locs = new ArrayList<>();
-                                location[x][z].put(blockName, locs);
-                                int numLocations = in.readShort() & 0xffff;
-                                if (numLocations == 0) {
-                                    // an entire chunk full of air can happen in the end
-                                    numLocations = 65536;
-                                }
-                                for (int j = 0; j < numLocations; j++) {
-                                    byte xz = in.readByte();
-                                    int X = xz & 0x0f;
-                                    int Z = (xz >>> 4) & 0x0f;
-                                    int Y = in.readInt();
-                                    locs.add(new BlockPos(X, Y+dimension.minY(), Z));
-                                }
-                            }
+                            readSpecialBlocks(in, location[x][z], false);
                         }
                     }
                 }
@@ -293,17 +647,23 @@ public final class CachedRegion implements ICachedRegion {
                             int regionZ = this.z;
                             int chunkX = x + 32 * regionX;
                             int chunkZ = z + 32 * regionZ;
-                            this.chunks[x][z] = new CachedChunk(chunkX, chunkZ, dimension.height(), bitSets[x][z], overview[x][z], location[x][z], cacheTimestamp[x][z]);
+                            setChunk(x, z, new CachedChunk(chunkX, chunkZ, dimension.height(), bitSets[x][z], overview[x][z], location[x][z], cacheTimestamp[x][z]));
+                            onDisk[x * 32 + z] = false;
+                            dirty[x * 32 + z] = false;
                         }
                     }
                 }
             }
             removeExpired();
-            hasUnsavedChanges = false;
             long end = System.nanoTime() / 1000000L;
             System.out.println("Loaded region successfully in " + (end - start) + "ms");
+            // rewrite it in the new format, so next time only the chunks that are needed get read
+            System.out.println("Converting region " + x + "," + z + " to the random access format");
+            hasUnsavedChanges = true;
+            return true;
         } catch (Exception ex) { // corrupted files can cause NullPointerExceptions as well as IOExceptions
             ex.printStackTrace();
+            return false;
         }
     }
 
@@ -318,25 +678,40 @@ public final class CachedRegion implements ICachedRegion {
             for (int z = 0; z < 32; z++) {
                 if (this.chunks[x][z] != null && this.chunks[x][z].cacheTimestamp < oldestAcceptableAge) {
                     System.out.println("Removing chunk " + (x + 32 * this.x) + "," + (z + 32 * this.z) + " because it was cached " + (now - this.chunks[x][z].cacheTimestamp) / 1000L + " seconds ago, and max age is " + expiry);
-                    this.chunks[x][z] = null;
+                    setChunk(x, z, null);
+                    dirty[x * 32 + z] = true;
+                    hasUnsavedChanges = true;
+                }
+                if (onDisk[x * 32 + z] && file.timestamp(x * 32 + z) < oldestAcceptableAge) {
+                    System.out.println("Removing chunk " + (x + 32 * this.x) + "," + (z + 32 * this.z) + " because it was cached " + (now - file.timestamp(x * 32 + z)) / 1000L + " seconds ago, and max age is " + expiry);
+                    onDisk[x * 32 + z] = false;
+                    dirty[x * 32 + z] = true;
+                    hasUnsavedChanges = true;
                 }
             }
         }
     }
 
     public synchronized final CachedChunk mostRecentlyModified() {
-        CachedChunk recent = null;
+        int recent = -1;
+        long recentTimestamp = 0;
         for (int x = 0; x < 32; x++) {
             for (int z = 0; z < 32; z++) {
-                if (this.chunks[x][z] == null) {
+                long timestamp;
+                if (this.chunks[x][z] != null) {
+                    timestamp = this.chunks[x][z].cacheTimestamp;
+                } else if (onDisk[x * 32 + z]) {
+                    timestamp = file.timestamp(x * 32 + z); // no need to read every chunk to find out
+                } else {
                     continue;
                 }
-                if (recent == null || this.chunks[x][z].cacheTimestamp > recent.cacheTimestamp) {
-                    recent = this.chunks[x][z];
+                if (recent == -1 || timestamp > recentTimestamp) {
+                    recent = x * 32 + z;
+                    recentTimestamp = timestamp;
                 }
             }
         }
-        return recent;
+        return recent == -1 ? null : getChunk(recent / 32, recent % 32);
     }
 
     /**
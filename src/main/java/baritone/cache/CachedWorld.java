@@ -23,21 +23,24 @@ import baritone.api.IBaritone;
 import baritone.api.cache.ICachedWorld;
 import baritone.api.cache.IWorldData;
 import baritone.api.utils.Helper;
-import com.google.common.cache.CacheBuilder;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.dimension.DimensionType;
 
 import java.io.IOException;
+import java.lang.ref.SoftReference;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * @author Brady
@@ -50,10 +53,62 @@ public final class CachedWorld implements ICachedWorld, Helper {
      */
     private static final int REGION_MAX = 30_000_000 / 512 + 1;
 
+    /**
+     * How many region loads can be waiting for the loader thread, past this prefetches are dropped
+     */
+    private static final int REGION_LOAD_QUEUE_SIZE = 64;
+
     /**
      * A map of all of the cached regions.
+     * <p>
+     * This is copy on write, it's never modified once it's been assigned here. Regions are only added or removed when
+     * they're loaded or pruned, which is rare compared to lookups, so lookups don't take any lock. Writers synchronize
+     * on this world and replace the whole map.
+     */
+    private volatile Long2ObjectMap<CachedRegion> cachedRegions = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * The regions that are being loaded from disk, or are waiting to be. They're only put in {@link #cachedRegions}
+     * once they've finished loading, and nothing holds the lock on this world while they load.
+     * <p>
+     * Only added to with the lock on this world held, but can be read without it.
+     */
+    private final Map<Long, CompletableFuture<CachedRegion>> loadingRegions = new ConcurrentHashMap<>();
+
+    /**
+     * Chunks that were packed while their region was being evicted, by region ID. The region takes them back if it
+     * isn't evicted after all, otherwise the one loaded in its place takes them. Guarded by this world.
      */
-    private Long2ObjectMap<CachedRegion> cachedRegions = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<List<CachedChunk>> lateChunks = new Long2ObjectOpenHashMap<>();
+
+    /**
+     * Loads regions in the background. One thread, since loading more than one region at once from a spinning disk
+     * is slower than one after the other
+     */
+    private final ThreadPoolExecutor regionLoader = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(REGION_LOAD_QUEUE_SIZE), runnable -> {
+        Thread thread = new Thread(runnable, "Baritone region loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * How many times a lookup found its region still loading and carried on without it, instead of waiting
+     */
+    private final LongAdder stallsAvoided = new LongAdder();
+
+    /**
+     * Lookups that needed a region, and found it in RAM or not
+     */
+    private final LongAdder regionHits = new LongAdder();
+
+    private final LongAdder regionMisses = new LongAdder();
+
+    private final LongAdder regionsEvicted = new LongAdder();
+
+    /**
+     * Whether there's an eviction waiting for the loader thread already, so only one is ever queued
+     */
+    private final AtomicBoolean evictionQueued = new AtomicBoolean();
 
     /**
      * The directory that the cached region files are saved to
@@ -61,19 +116,51 @@ public final class CachedWorld implements ICachedWorld, Helper {
     private final String directory;
 
     /**
-     * Queue of positions to pack. Refers to the toPackMap, in that every element of this queue will be a
-     * key in that map.
+     * All chunk positions pending packing, oldest first. This map will be updated in-place if a new update to the
+     * chunk occurs while waiting for a packer thread to get to it. The packer threads take whichever is nearest to the
+     * player or where they're pathing to, not the oldest.
+     * <p>
+     * The chunks are soft references so that a backlog can't run us out of memory. Guarded by itself.
+     */
+    private final Map<ChunkPos, PendingChunk> toPack = new LinkedHashMap<>();
+
+    /**
+     * Chunks that were queued while {@link #toPack} was full, oldest first. They're moved over as the packer threads
+     * make room, rather than being dropped, and updated in place like it is. Guarded by {@link #toPack}.
      */
-    private final LinkedBlockingQueue<ChunkPos> toPackQueue = new LinkedBlockingQueue<>();
+    private final Map<ChunkPos, PendingChunk> parked = new LinkedHashMap<>();
 
     /**
-     * All chunk positions pending packing. This map will be updated in-place if a new update to the chunk occurs
-     * while waiting in the queue for the packer thread to get to it.
+     * Chunks a packer thread is working on right now. The same chunk isn't packed by two threads at once, so a newer
+     * version of it can't be overwritten by an older one that finished later. Guarded by {@link #toPack}.
      */
-    private final Map<ChunkPos, LevelChunk> toPackMap = CacheBuilder.newBuilder().softValues().<ChunkPos, LevelChunk>build().asMap();
+    private final Set<ChunkPos> packing = new HashSet<>();
+
+    private final LongAdder chunksPacked = new LongAdder();
+
+    /**
+     * Chunks that were never packed, because they were garbage collected while they waited
+     */
+    private final LongAdder chunksDropped = new LongAdder();
+
+    /**
+     * Chunks that were queued while already waiting to be packed, so only the newest was packed
+     */
+    private final LongAdder chunksCoalesced = new LongAdder();
 
     private final DimensionType dimension;
 
+    /**
+     * Held while evicting regions, so only one thread does at a time
+     */
+    private final Object evictionLock = new Object();
+
+    /**
+     * The walkable summary of each cached chunk that's been asked for or packed while hierarchical pathing is on, see
+     * {@link ChunkPortals}
+     */
+    private final Long2ObjectMap<ChunkPortals> portals = Long2ObjectMaps.synchronize(new Long2ObjectOpenHashMap<>());
+
     CachedWorld(Path directory, DimensionType dimension) {
         if (!Files.exists(directory)) {
             try {
@@ -84,7 +171,9 @@ public final class CachedWorld implements ICachedWorld, Helper {
         this.directory = directory.toString();
         this.dimension = dimension;
         System.out.println("Cached world directory: " + directory);
-        Baritone.getExecutor().execute(new PackerThread());
+        for (int i = 0; i < Math.max(1, Baritone.settings().chunkPackerThreads.value); i++) {
+            Baritone.getExecutor().execute(new PackerThread());
+        }
         Baritone.getExecutor().execute(() -> {
             try {
                 Thread.sleep(30000);
@@ -103,11 +192,131 @@ public final class CachedWorld implements ICachedWorld, Helper {
 
     @Override
     public final void queueForPacking(LevelChunk chunk) {
-        if (toPackMap.put(chunk.getPos(), chunk) == null) {
-            toPackQueue.add(chunk.getPos());
+        queue(chunk, null);
+    }
+
+    /**
+     * Queues just the blocks that changed in a chunk to be packed again, on top of its cached copy. The packer thread
+     * that gets to it packs the whole chunk instead if it isn't cached yet.
+     *
+     * @param chunk   The chunk, with the changes already made
+     * @param changed The positions that changed, all in this chunk
+     */
+    public final void updateBlocks(LevelChunk chunk, List<BlockPos> changed) {
+        queue(chunk, changed);
+    }
+
+    /**
+     * @param changed The positions that changed, or null to pack the whole chunk
+     */
+    private void queue(LevelChunk chunk, List<BlockPos> changed) {
+        ChunkPos pos = chunk.getPos();
+        synchronized (toPack) {
+            PendingChunk pending = toPack.get(pos);
+            if (pending == null) {
+                pending = parked.get(pos);
+            }
+            if (pending != null) {
+                pending.update(chunk, changed);
+                chunksCoalesced.increment();
+            } else if (toPack.size() < packQueueSize()) {
+                toPack.put(pos, new PendingChunk(chunk, changed));
+            } else {
+                // the packer threads are behind, so it waits its turn instead of being dropped
+                parked.put(pos, new PendingChunk(chunk, changed));
+            }
+            toPack.notify();
         }
     }
 
+    /**
+     * @return The chunk nearest to the focus that no other packer thread is packing, removed from the queue
+     */
+    private PendingChunk takeNearest() throws InterruptedException {
+        while (true) {
+            synchronized (toPack) {
+                while (toPack.isEmpty()) {
+                    toPack.wait();
+                }
+            }
+            List<BlockPos> focus = packingFocus(); // not with the lock, the main thread queues chunks with it
+            synchronized (toPack) {
+                ChunkPos best = null;
+                long bestDist = Long.MAX_VALUE;
+                for (ChunkPos pos : toPack.keySet()) {
+                    if (packing.contains(pos)) {
+                        continue;
+                    }
+                    long dist = distanceSq(pos, focus);
+                    if (dist < bestDist) {
+                        best = pos;
+                        bestDist = dist;
+                    }
+                }
+                if (best == null) {
+                    toPack.wait(); // everything left is being packed by another thread already
+                    continue;
+                }
+                PendingChunk pending = toPack.remove(best);
+                unpark();
+                if (pending.chunk.get() == null) {
+                    chunksDropped.increment();
+                    continue;
+                }
+                packing.add(best);
+                return pending;
+            }
+        }
+    }
+
+    /**
+     * Moves the oldest {@link #parked} chunks into {@link #toPack} while there's room, only with the lock on it held
+     */
+    private void unpark() {
+        Iterator<Map.Entry<ChunkPos, PendingChunk>> it = parked.entrySet().iterator();
+        while (it.hasNext() && toPack.size() < packQueueSize()) {
+            Map.Entry<ChunkPos, PendingChunk> entry = it.next();
+            toPack.put(entry.getKey(), entry.getValue());
+            it.remove();
+        }
+    }
+
+    private static int packQueueSize() {
+        return Math.max(1, Baritone.settings().chunkPackerQueueMaxSize.value);
+    }
+
+    private void donePacking(ChunkPos pos) {
+        synchronized (toPack) {
+            packing.remove(pos);
+            toPack.notifyAll(); // a newer version of it could be waiting
+        }
+    }
+
+    /**
+     * @return Where the players in this world are, and where they're pathing to
+     */
+    private List<BlockPos> packingFocus() {
+        List<BlockPos> focus = new ArrayList<>();
+        for (IBaritone ibaritone : BaritoneAPI.getProvider().getAllBaritones()) {
+            IWorldData data = ibaritone.getWorldProvider().getCurrentWorld();
+            if (data != null && data.getCachedWorld() == this && ibaritone.getPlayerContext().player() != null) {
+                focus.add(ibaritone.getPlayerContext().playerFeet());
+                ibaritone.getPathingBehavior().getPath().ifPresent(path -> focus.add(path.getDest()));
+            }
+        }
+        return focus;
+    }
+
+    private static long distanceSq(ChunkPos pos, List<BlockPos> focus) {
+        long best = focus.isEmpty() ? 0 : Long.MAX_VALUE;
+        for (BlockPos target : focus) {
+            long dx = pos.x - (target.getX() >> 4);
+            long dz = pos.z - (target.getZ() >> 4);
+            best = Math.min(best, dx * dx + dz * dz);
+        }
+        return best;
+    }
+
     @Override
     public final boolean isCached(int blockX, int blockZ) {
         CachedRegion region = getRegion(blockX >> 9, blockZ >> 9);
@@ -121,6 +330,56 @@ public final class CachedWorld implements ICachedWorld, Helper {
         return getRegion(blockX >> 9, blockZ >> 9) != null;
     }
 
+    /**
+     * Gets the entrances of a cached chunk and the costs between them, calculating them if they haven't been yet or
+     * if that chunk or any next to it has been cached again since
+     *
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The chunk's portals, or null if it isn't cached
+     */
+    public final ChunkPortals getPortals(int chunkX, int chunkZ) {
+        CachedChunk chunk = getChunk(chunkX, chunkZ);
+        if (chunk == null) {
+            return null;
+        }
+        CachedChunk[] sources = {chunk, getChunk(chunkX, chunkZ - 1), getChunk(chunkX, chunkZ + 1), getChunk(chunkX + 1, chunkZ), getChunk(chunkX - 1, chunkZ)};
+        long key = ChunkPos.asLong(chunkX, chunkZ);
+        ChunkPortals existing = portals.get(key);
+        if (existing != null && sameChunks(existing.sources, sources)) {
+            return existing;
+        }
+        ChunkPortals calculated = ChunkPortals.calculate(sources, dimension.minY());
+        portals.put(key, calculated);
+        return calculated;
+    }
+
+    /**
+     * Works out the portals of a chunk that was just cached, and of the cached chunks next to it since theirs depend on
+     * it, so the planner doesn't have to on the pathing thread
+     */
+    private void precalculatePortals(int chunkX, int chunkZ) {
+        getPortals(chunkX, chunkZ);
+        getPortals(chunkX, chunkZ - 1);
+        getPortals(chunkX, chunkZ + 1);
+        getPortals(chunkX + 1, chunkZ);
+        getPortals(chunkX - 1, chunkZ);
+    }
+
+    private static boolean sameChunks(CachedChunk[] a, CachedChunk[] b) {
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b[i]) { // a chunk that's cached again is a new object
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private CachedChunk getChunk(int chunkX, int chunkZ) {
+        CachedRegion region = getRegion(chunkX >> 5, chunkZ >> 5);
+        return region == null ? null : region.getChunk(chunkX & 31, chunkZ & 31);
+    }
+
     @Override
     public final ArrayList<BlockPos> getLocationsOf(String block, int maximum, int centerX, int centerZ, int maxRegionDistanceSq) {
         ArrayList<BlockPos> res = new ArrayList<>();
@@ -153,8 +412,36 @@ public final class CachedWorld implements ICachedWorld, Helper {
     }
 
     private void updateCachedChunk(CachedChunk chunk) {
-        CachedRegion region = getOrCreateRegion(chunk.x >> 5, chunk.z >> 5);
-        region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk);
+        long id = getRegionID(chunk.x >> 5, chunk.z >> 5);
+        while (true) {
+            CachedRegion region = getOrCreateRegion(chunk.x >> 5, chunk.z >> 5);
+            if (region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk)) {
+                return;
+            }
+            synchronized (this) {
+                if (cachedRegions.get(id) != region) {
+                    continue; // evicted since, so try the one in its place
+                }
+                // regions are only reopened with this lock held, so either it's open again or it'll take it when it is
+                if (!region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk)) {
+                    lateChunks.computeIfAbsent(id, k -> new ArrayList<>()).add(chunk);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Caches the chunks that were packed while a region was being evicted into it, or the one loaded in its place,
+     * only with the lock on this world held
+     */
+    private void takeLateChunks(long id, CachedRegion region) {
+        List<CachedChunk> late = lateChunks.remove(id);
+        if (late != null) {
+            for (CachedChunk chunk : late) {
+                region.updateCachedChunk(chunk.x & 31, chunk.z & 31, chunk);
+            }
+        }
     }
 
     @Override
@@ -166,72 +453,158 @@ public final class CachedWorld implements ICachedWorld, Helper {
                     region.removeExpired();
                 }
             }); // even if we aren't saving to disk, still delete expired old chunks from RAM
-            prune();
+            evictOverBudget();
             return;
         }
         long start = System.nanoTime() / 1000000L;
-        allRegions().parallelStream().forEach(region -> {
-            if (region != null) {
-                region.save(this.directory);
-            }
-        });
+        long written = allRegions().parallelStream().mapToLong(region -> region == null ? 0 : region.save(this.directory)).sum();
         long now = System.nanoTime() / 1000000L;
-        System.out.println("World save took " + (now - start) + "ms");
-        prune();
+        System.out.println("World save took " + (now - start) + "ms and wrote " + written + " bytes, " + stallsAvoided.sum() + " lookups haven't waited for a region to load");
+        System.out.println("Chunks packed: " + chunksPacked.sum() + ", dropped: " + chunksDropped.sum() + ", coalesced: " + chunksCoalesced.sum());
+        evictOverBudget();
+        long hits = regionHits.sum();
+        long lookups = hits + regionMisses.sum();
+        System.out.println("Regions in RAM: " + cachedRegions.size() + ", " + residentBytes() + " bytes, hit rate " + (lookups == 0 ? 100 : hits * 100 / lookups) + "%, evicted: " + regionsEvicted.sum());
     }
 
     /**
-     * Delete regions that are too far from the player
+     * @return Roughly how many bytes of heap the regions in RAM take
      */
-    private synchronized void prune() {
-        if (!Baritone.settings().pruneRegionsFromRAM.value) {
+    private long residentBytes() {
+        long total = 0;
+        for (CachedRegion region : cachedRegions.values()) {
+            total += region.residentBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Evicts regions on the loader thread if they take more than the budget, without waiting for it
+     */
+    private void requestEviction() {
+        if (!Baritone.settings().pruneRegionsFromRAM.value || residentBytes() <= memoryBudget()) {
             return;
         }
-        BlockPos pruneCenter = guessPosition();
-        for (CachedRegion region : allRegions()) {
-            if (region == null) {
-                continue;
-            }
-            int distX = ((region.getX() << 9) + 256) - pruneCenter.getX();
-            int distZ = ((region.getZ() << 9) + 256) - pruneCenter.getZ();
-            double dist = Math.sqrt(distX * distX + distZ * distZ);
-            if (dist > 1024) {
-                logDebug("Deleting cached region from ram");
-                cachedRegions.remove(getRegionID(region.getX(), region.getZ()));
+        if (evictionQueued.compareAndSet(false, true)) {
+            try {
+                regionLoader.execute(() -> {
+                    try {
+                        evictOverBudget();
+                    } finally {
+                        evictionQueued.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                evictionQueued.set(false); // busy loading, it'll be asked for again
             }
         }
     }
 
+    private static long memoryBudget() {
+        return Baritone.settings().cachedRegionMemoryBudget.value * 1024L * 1024L;
+    }
+
     /**
-     * If we are still in this world and dimension, return player feet, otherwise return most recently modified chunk
+     * Delete the least recently used regions from RAM until the rest fit in the memory budget. Each one is saved first,
+     * and kept if that fails. The most recently used region is always kept, so a budget that's too small for even one
+     * doesn't mean reading it from disk over and over.
      */
-    private BlockPos guessPosition() {
-        for (IBaritone ibaritone : BaritoneAPI.getProvider().getAllBaritones()) {
-            IWorldData data = ibaritone.getWorldProvider().getCurrentWorld();
-            if (data != null && data.getCachedWorld() == this && ibaritone.getPlayerContext().player() != null) {
-                return ibaritone.getPlayerContext().playerFeet();
-            }
+    private void evictOverBudget() {
+        if (!Baritone.settings().pruneRegionsFromRAM.value) {
+            return;
         }
-        CachedChunk mostRecentlyModified = null;
-        for (CachedRegion region : allRegions()) {
-            if (region == null) {
-                continue;
+        synchronized (evictionLock) { // one at a time, or one could reopen a region that the other is evicting
+            long budget = memoryBudget();
+            List<CachedRegion> regions = allRegions();
+            long resident = 0;
+            for (CachedRegion region : regions) {
+                resident += region.residentBytes();
+            }
+            if (resident <= budget) {
+                return;
+            }
+            regions.sort(Comparator.comparingLong(CachedRegion::lastAccess));
+            boolean saving = Baritone.settings().chunkCaching.value;
+            List<CachedRegion> evicted = new ArrayList<>();
+            for (int i = 0; i < regions.size() - 1 && resident > budget; i++) {
+                CachedRegion region = regions.get(i);
+                if (saving) {
+                    region.save(this.directory); // outside the lock, this writes to disk
+                    if (region.hasUnsavedChanges()) {
+                        continue;
+                    }
+                }
+                evicted.add(region);
+                resident -= region.residentBytes();
+            }
+            // closed while they're still in the map, so anything cached into them after the last save waits in lateChunks
+            for (Iterator<CachedRegion> it = evicted.iterator(); it.hasNext(); ) {
+                CachedRegion region = it.next();
+                region.close();
+                if (saving) {
+                    region.save(this.directory); // anything cached into it since it was saved above
+                    if (region.hasUnsavedChanges()) {
+                        synchronized (this) {
+                            region.reopen();
+                            takeLateChunks(getRegionID(region.getX(), region.getZ()), region);
+                        }
+                        it.remove();
+                        resident += region.residentBytes();
+                    }
+                }
+            }
+            if (evicted.isEmpty()) {
+                return;
             }
-            CachedChunk ch = region.mostRecentlyModified();
-            if (ch == null) {
-                continue;
+            LongOpenHashSet evictedIDs = new LongOpenHashSet();
+            List<CachedRegion> withLateChunks = new ArrayList<>();
+            synchronized (this) {
+                Long2ObjectMap<CachedRegion> pruned = new Long2ObjectOpenHashMap<>(cachedRegions);
+                for (CachedRegion region : evicted) {
+                    long id = getRegionID(region.getX(), region.getZ());
+                    evictedIDs.add(id);
+                    if (pruned.get(id) == region) {
+                        pruned.remove(id);
+                    }
+                    region.evict(); // nothing new can get it from the map, and what still has it looks it up again
+                    if (lateChunks.containsKey(id)) {
+                        withLateChunks.add(region);
+                    }
+                }
+                cachedRegions = pruned;
             }
-            if (mostRecentlyModified == null || mostRecentlyModified.cacheTimestamp < ch.cacheTimestamp) {
-                mostRecentlyModified = ch;
+            for (CachedRegion region : withLateChunks) {
+                // load it again so they're saved, if the loader is too busy they wait for the next time it's needed
+                requestRegion(region.getX(), region.getZ(), true);
             }
+            forgetPortals(evictedIDs);
+            regionsEvicted.add(evicted.size());
+            logDebug("Deleted " + evicted.size() + " cached regions from RAM, " + resident + " bytes left");
         }
-        if (mostRecentlyModified == null) {
-            return new BlockPos(0, 0, 0);
+    }
+
+    /**
+     * Forgets the portals of every chunk in these regions or next to one, since they'd keep the regions' chunks around
+     * otherwise
+     */
+    private void forgetPortals(LongOpenHashSet regionIDs) {
+        synchronized (portals) {
+            for (LongIterator it = portals.keySet().iterator(); it.hasNext(); ) {
+                long key = it.nextLong();
+                int chunkX = ChunkPos.getX(key);
+                int chunkZ = ChunkPos.getZ(key);
+                if (regionIDs.contains(getRegionID(chunkX >> 5, chunkZ >> 5))
+                        || regionIDs.contains(getRegionID(chunkX >> 5, (chunkZ - 1) >> 5))
+                        || regionIDs.contains(getRegionID(chunkX >> 5, (chunkZ + 1) >> 5))
+                        || regionIDs.contains(getRegionID((chunkX + 1) >> 5, chunkZ >> 5))
+                        || regionIDs.contains(getRegionID((chunkX - 1) >> 5, chunkZ >> 5))) {
+                    it.remove();
+                }
+            }
         }
-        return new BlockPos((mostRecentlyModified.x << 4) + 8, 0, (mostRecentlyModified.z << 4) + 8);
     }
 
-    private synchronized List<CachedRegion> allRegions() {
+    private List<CachedRegion> allRegions() {
         return new ArrayList<>(this.cachedRegions.values());
     }
 
@@ -248,28 +621,148 @@ public final class CachedWorld implements ICachedWorld, Helper {
     }
 
     @Override
-    public final synchronized CachedRegion getRegion(int regionX, int regionZ) {
-        return cachedRegions.get(getRegionID(regionX, regionZ));
+    public final CachedRegion getRegion(int regionX, int regionZ) {
+        CachedRegion region = cachedRegions.get(getRegionID(regionX, regionZ));
+        if (region != null) {
+            region.touch();
+        }
+        return region;
+    }
+
+    /**
+     * Like {@link #getRegion}, except that if the region isn't in RAM, it's loaded from disk in the background. This
+     * never waits for the disk, the region is just unknown until it's loaded.
+     *
+     * @param regionX The region X coordinate
+     * @param regionZ The region Z coordinate
+     * @return The region, or null if it isn't loaded yet
+     */
+    public final CachedRegion getRegionNonBlocking(int regionX, int regionZ) {
+        CachedRegion loaded = cachedRegions.get(getRegionID(regionX, regionZ));
+        if (loaded != null) {
+            loaded.touch();
+            regionHits.increment();
+            return loaded;
+        }
+        regionMisses.increment();
+        CompletableFuture<CachedRegion> future = requestRegion(regionX, regionZ, true);
+        CachedRegion region = future == null ? null : future.getNow(null);
+        if (region == null) {
+            stallsAvoided.increment();
+        }
+        return region;
+    }
+
+    /**
+     * Starts loading the regions from the given block position onwards in the given direction, so that they're
+     * already in RAM by the time a path gets there
+     *
+     * @param blockX The block x coordinate to start from
+     * @param blockZ The block z coordinate to start from
+     * @param dirX   The x component of the direction of travel, doesn't need to be normalized
+     * @param dirZ   The z component of the direction of travel, doesn't need to be normalized
+     */
+    public final void prefetch(int blockX, int blockZ, double dirX, double dirZ) {
+        requestRegion(blockX >> 9, blockZ >> 9, true);
+        double length = Math.sqrt(dirX * dirX + dirZ * dirZ);
+        if (length < 1e-6) {
+            return;
+        }
+        int distance = Baritone.settings().regionPrefetchDistance.value;
+        for (int i = 1; i <= distance; i++) {
+            // half a region at a time, so that a diagonal doesn't skip the regions it clips the corner of
+            double along = i * 256 / length;
+            requestRegion((int) Math.floor((blockX + dirX * along) / 512), (int) Math.floor((blockZ + dirZ * along) / 512), true);
+        }
     }
 
     /**
      * Returns the region at the specified region coordinates. If a
      * region is not found, then a new one is created.
+     * <p>
+     * This waits for the region to load from disk, so it shouldn't be used from the path thread.
      *
      * @param regionX The region X coordinate
      * @param regionZ The region Z coordinate
      * @return The region located at the specified coordinates
      */
-    private synchronized CachedRegion getOrCreateRegion(int regionX, int regionZ) {
-        return cachedRegions.computeIfAbsent(getRegionID(regionX, regionZ), id -> {
-            CachedRegion newRegion = new CachedRegion(regionX, regionZ, dimension);
-            newRegion.load(this.directory);
-            return newRegion;
-        });
+    private CachedRegion getOrCreateRegion(int regionX, int regionZ) {
+        CachedRegion loaded = getRegion(regionX, regionZ);
+        if (loaded != null) {
+            regionHits.increment();
+            return loaded;
+        }
+        regionMisses.increment();
+        while (true) {
+            CachedRegion region = requestRegion(regionX, regionZ, false).join();
+            if (region != null) { // null if we waited on a background load that got dropped, so try again
+                return region;
+            }
+        }
     }
 
     public void tryLoadFromDisk(int regionX, int regionZ) {
-        getOrCreateRegion(regionX, regionZ);
+        requestRegion(regionX, regionZ, true);
+    }
+
+    /**
+     * @param async Whether to load the region on the loader thread, otherwise it's loaded on this one
+     * @return The region, once it's loaded, or null if it had to be loaded in the background but the loader is full
+     */
+    private CompletableFuture<CachedRegion> requestRegion(int regionX, int regionZ, boolean async) {
+        long id = getRegionID(regionX, regionZ);
+        CachedRegion loaded = cachedRegions.get(id);
+        if (loaded != null) {
+            return CompletableFuture.completedFuture(loaded);
+        }
+        CompletableFuture<CachedRegion> future = loadingRegions.get(id);
+        if (future != null) {
+            return future;
+        }
+        synchronized (this) {
+            CachedRegion region = cachedRegions.get(id);
+            if (region != null) {
+                return CompletableFuture.completedFuture(region);
+            }
+            future = loadingRegions.get(id);
+            if (future != null) {
+                return future;
+            }
+            future = new CompletableFuture<>();
+            loadingRegions.put(id, future);
+        }
+        CompletableFuture<CachedRegion> loading = future;
+        Runnable load = () -> {
+            CachedRegion newRegion = new CachedRegion(regionX, regionZ, dimension);
+            try {
+                newRegion.load(this.directory);
+            } finally {
+                synchronized (this) {
+                    takeLateChunks(id, newRegion);
+                    Long2ObjectMap<CachedRegion> added = new Long2ObjectOpenHashMap<>(cachedRegions);
+                    added.put(id, newRegion);
+                    cachedRegions = added; // before it stops being in loadingRegions, so it's always in one or the other
+                    loadingRegions.remove(id);
+                }
+                loading.complete(newRegion);
+            }
+            requestEviction();
+        };
+        if (!async) {
+            load.run();
+            return loading;
+        }
+        try {
+            regionLoader.execute(load);
+        } catch (RejectedExecutionException ex) {
+            // too far behind, someone will ask for it again later if it's still needed
+            synchronized (this) {
+                loadingRegions.remove(id);
+            }
+            loading.complete(null);
+            return null;
+        }
+        return loading;
     }
 
     /**
@@ -299,18 +792,66 @@ public final class CachedWorld implements ICachedWorld, Helper {
         return regionX <= REGION_MAX && regionX >= -REGION_MAX && regionZ <= REGION_MAX && regionZ >= -REGION_MAX;
     }
 
+    /**
+     * A chunk waiting to be packed, either all of it or just the blocks that changed in it. Guarded by {@link #toPack}
+     * while it's queued.
+     */
+    private static final class PendingChunk {
+
+        private final ChunkPos pos;
+
+        private SoftReference<LevelChunk> chunk;
+
+        /**
+         * The blocks that changed since it was last packed, or null if the whole chunk needs packing
+         */
+        private List<BlockPos> changed;
+
+        private PendingChunk(LevelChunk chunk, List<BlockPos> changed) {
+            this.pos = chunk.getPos();
+            this.chunk = new SoftReference<>(chunk);
+            this.changed = changed == null ? null : new ArrayList<>(changed);
+        }
+
+        /**
+         * Merges in a newer version of the chunk. A whole pack that's waiting covers any changes, so they're only
+         * added up while both are just changes.
+         */
+        private void update(LevelChunk chunk, List<BlockPos> changed) {
+            this.chunk = new SoftReference<>(chunk);
+            if (changed == null) {
+                this.changed = null;
+            } else if (this.changed != null) {
+                this.changed.addAll(changed);
+            }
+        }
+    }
+
     private class PackerThread implements Runnable {
 
         public void run() {
             while (true) {
+                ChunkPos pos = null;
                 try {
-                    ChunkPos pos = toPackQueue.take();
-                    LevelChunk chunk = toPackMap.remove(pos);
-                    if (toPackQueue.size() > Baritone.settings().chunkPackerQueueMaxSize.value) {
+                    PendingChunk next = takeNearest();
+                    pos = next.pos;
+                    LevelChunk chunk = next.chunk.get();
+                    if (chunk == null) {
+                        chunksDropped.increment();
                         continue;
                     }
-                    CachedChunk cached = ChunkPacker.pack(chunk);
+                    CachedChunk cached = next.changed == null ? null : getChunk(pos.x, pos.z);
+                    if (cached != null && cached.height == chunk.getHeight()) {
+                        cached = ChunkPacker.repack(cached, chunk, next.changed);
+                    } else {
+                        cached = ChunkPacker.pack(chunk);
+                    }
                     CachedWorld.this.updateCachedChunk(cached);
+                    if (Baritone.settings().pathingHierarchical.value) {
+                        precalculatePortals(cached.x, cached.z);
+                    }
+                    chunksPacked.increment();
+                    requestEviction();
                     //System.out.println("Processed chunk at " + chunk.x + "," + chunk.z);
                 } catch (InterruptedException e) {
                     e.printStackTrace();
@@ -318,6 +859,10 @@ public final class CachedWorld implements ICachedWorld, Helper {
                 } catch (Throwable th) {
                     // in the case of an exception, keep consuming from the queue so as not to leak memory
                     th.printStackTrace();
+                } finally {
+                    if (pos != null) {
+                        donePacking(pos);
+                    }
                 }
             }
         }
@@ -19,8 +19,10 @@ package baritone.cache;
 
 import baritone.api.utils.BlockUtils;
 import baritone.pathing.movement.MovementHelper;
+import baritone.utils.accessor.IPalettedContainer;
 import baritone.utils.pathing.PathingBlockType;
 import net.minecraft.core.BlockPos;
+import net.minecraft.util.BitStorage;
 import net.minecraft.world.level.block.AirBlock;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
@@ -28,8 +30,10 @@ import net.minecraft.world.level.block.DoublePlantBlock;
 import net.minecraft.world.level.block.FlowerBlock;
 import net.minecraft.world.level.block.TallGrassBlock;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.GlobalPalette;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.Palette;
 import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.dimension.BuiltinDimensionTypes;
 import net.minecraft.world.level.dimension.DimensionType;
@@ -45,6 +49,22 @@ import static baritone.utils.BlockStateInterface.getFromChunk;
  */
 public final class ChunkPacker {
 
+    /**
+     * A {@link #stateInfo} type for blocks whose type depends on the blocks around them, only still water
+     */
+    private static final int POSITION_DEPENDENT = 4;
+
+    /**
+     * Set in a {@link #stateInfo} for blocks in {@link CachedChunk#BLOCKS_TO_KEEP_TRACK_OF}
+     */
+    private static final int SPECIAL = 8;
+
+    /**
+     * Each block state's {@link #stateInfo}, by registry id, plus one so that 0 means it hasn't been worked out yet.
+     * Filled in as they're come across by any packer thread, racing is fine since they all work out the same thing.
+     */
+    private static volatile byte[] stateInfoCache = new byte[0];
+
     private ChunkPacker() {}
 
     public static CachedChunk pack(LevelChunk chunk) {
@@ -52,12 +72,12 @@ public final class ChunkPacker {
 
         Map<String, List<BlockPos>> specialBlocks = new HashMap<>();
         final int height = chunk.getLevel().dimensionType().height();
-        BitSet bitSet = new BitSet(CachedChunk.size(height));
+        long[] data = new long[CachedChunk.sizeInLongs(CachedChunk.size(height))];
         try {
             LevelChunkSection[] chunkInternalStorageArray = chunk.getSections();
             for (int y0 = 0; y0 < height / 16; y0++) {
                 LevelChunkSection extendedblockstorage = chunkInternalStorageArray[y0];
-                if (extendedblockstorage == null) {
+                if (extendedblockstorage == null || extendedblockstorage.hasOnlyAir()) {
                     // any 16x16x16 area that's all air will have null storage
                     // for example, in an ocean biome, with air from y=64 to y=256
                     // the first 4 extended blocks storages will be full
@@ -65,29 +85,13 @@ public final class ChunkPacker {
 
                     // since the index into the bitset is calculated from the x y and z
                     // and doesn't function as an append, we can entirely skip the scanning
-                    // since a bitset is initialized to all zero, and air is saved as zeros
+                    // since the array is initialized to all zero, and air is saved as zeros
                     continue;
                 }
                 PalettedContainer<BlockState> bsc = extendedblockstorage.getStates();
                 int yReal = y0 << 4;
-                // the mapping of BlockStateContainer.getIndex from xyz to index is y << 8 | z << 4 | x;
-                // for better cache locality, iterate in that order
-                for (int y1 = 0; y1 < 16; y1++) {
-                    int y = y1 | yReal;
-                    for (int z = 0; z < 16; z++) {
-                        for (int x = 0; x < 16; x++) {
-                            int index = CachedChunk.getPositionIndex(x, y, z);
-                            BlockState state = bsc.get(x, y1, z);
-                            boolean[] bits = getPathingBlockType(state, chunk, x, y, z).getBits();
-                            bitSet.set(index, bits[0]);
-                            bitSet.set(index + 1, bits[1]);
-                            Block block = state.getBlock();
-                            if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
-                                String name = BlockUtils.blockToString(block);
-                                specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y+chunk.getMinBuildHeight(), z));
-                            }
-                        }
-                    }
+                if (!packSection(bsc, chunk, yReal, data, specialBlocks)) {
+                    packSectionByBlock(bsc, chunk, yReal, data, specialBlocks);
                 }
             }
         } catch (Exception e) {
@@ -103,8 +107,7 @@ public final class ChunkPacker {
             https://www.ibm.com/developerworks/library/j-perry-writing-good-java-code/index.html
             for (int x = 0; x < 16; x++) {
                 for (int y = height - 1; y >= 0; y--) {
-                    int index = CachedChunk.getPositionIndex(x, y, z);
-                    if (bitSet.get(index) || bitSet.get(index + 1)) {
+                    if (CachedChunk.getPacked(data, CachedChunk.getPositionIndex(x, y, z)) != 0) {
                         blocks[z << 4 | x] = getFromChunk(chunk, x, y, z);
                         continue https;
                     }
@@ -113,11 +116,191 @@ public final class ChunkPacker {
             }
         }
         // @formatter:on
-        return new CachedChunk(chunk.getPos().x, chunk.getPos().z, height, bitSet, blocks, specialBlocks, System.currentTimeMillis());
+        return new CachedChunk(chunk.getPos().x, chunk.getPos().z, height, data, blocks, specialBlocks, System.currentTimeMillis());
+    }
+
+    /**
+     * Makes an updated copy of an already packed chunk with just some blocks changed, instead of packing the whole
+     * chunk again. The rest of the chunk is assumed not to have changed since it was packed.
+     *
+     * @param cached  The chunk as it was packed before
+     * @param chunk   The chunk, with the changes already made
+     * @param changed The positions that changed, all in this chunk
+     * @return The updated chunk
+     */
+    public static CachedChunk repack(CachedChunk cached, LevelChunk chunk, List<BlockPos> changed) {
+        long[] data = cached.copyData();
+        BlockState[] overview = cached.getOverview().clone();
+        Map<String, List<BlockPos>> specialBlocks = new HashMap<>();
+        cached.getRelativeBlocks().forEach((name, positions) -> specialBlocks.put(name, new ArrayList<>(positions)));
+        int minY = chunk.getMinBuildHeight();
+        boolean[] columns = new boolean[256];
+        for (BlockPos pos : changed) {
+            int x = pos.getX() & 15;
+            int y = pos.getY() - minY;
+            int z = pos.getZ() & 15;
+            if (y < 0 || y >= cached.height) {
+                continue;
+            }
+            // still water is classified by whether the water next to it is flowing, so they can change too
+            repackBlock(data, chunk, x, y, z, columns);
+            if (x != 0) {
+                repackBlock(data, chunk, x - 1, y, z, columns);
+            }
+            if (x != 15) {
+                repackBlock(data, chunk, x + 1, y, z, columns);
+            }
+            if (z != 0) {
+                repackBlock(data, chunk, x, y, z - 1, columns);
+            }
+            if (z != 15) {
+                repackBlock(data, chunk, x, y, z + 1, columns);
+            }
+            BlockPos relative = new BlockPos(x, pos.getY(), z);
+            specialBlocks.values().forEach(positions -> positions.remove(relative));
+            Block block = getFromChunk(chunk, x, y, z).getBlock();
+            if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
+                specialBlocks.computeIfAbsent(BlockUtils.blockToString(block), b -> new ArrayList<>()).add(relative);
+            }
+        }
+        specialBlocks.values().removeIf(List::isEmpty);
+        for (int column = 0; column < 256; column++) {
+            if (columns[column]) {
+                overview[column] = topBlock(data, chunk, cached.height, column & 15, column >> 4);
+            }
+        }
+        return new CachedChunk(cached.x, cached.z, cached.height, data, overview, specialBlocks, System.currentTimeMillis());
+    }
+
+    private static void repackBlock(long[] data, LevelChunk chunk, int x, int y, int z, boolean[] columns) {
+        BlockState state = getFromChunk(chunk, x, y, z);
+        CachedChunk.setPacked(data, CachedChunk.getPositionIndex(x, y, z), getPathingBlockType(state, chunk, x, y, z).getPacked());
+        columns[z << 4 | x] = true;
+    }
+
+    private static BlockState topBlock(long[] data, LevelChunk chunk, int height, int x, int z) {
+        for (int y = height - 1; y >= 0; y--) {
+            if (CachedChunk.getPacked(data, CachedChunk.getPositionIndex(x, y, z)) != 0) {
+                return getFromChunk(chunk, x, y, z);
+            }
+        }
+        return Blocks.AIR.defaultBlockState();
+    }
+
+    /**
+     * Packs a section straight from its palette and storage, working out what each palette entry is once rather than
+     * for every block, and writing a whole long for every 32 blocks
+     *
+     * @return false if the section's storage can't be read this way, and it needs to be packed block by block instead
+     */
+    private static boolean packSection(PalettedContainer<BlockState> bsc, LevelChunk chunk, int yReal, long[] data, Map<String, List<BlockPos>> specialBlocks) {
+        Palette<BlockState> palette = ((IPalettedContainer<BlockState>) bsc).getPalette();
+        BitStorage storage = ((IPalettedContainer<BlockState>) bsc).getStorage();
+        if (palette == null || storage == null || storage.getSize() != 4096) {
+            return false;
+        }
+        int[] paletteInfo = null; // stays null for the global palette, where values are already registry ids
+        if (!(palette instanceof GlobalPalette)) {
+            paletteInfo = new int[palette.getSize()];
+            for (int i = 0; i < paletteInfo.length; i++) {
+                paletteInfo[i] = stateInfo(palette.valueFor(i));
+            }
+        }
+        // with this section's y, CachedChunk.getPositionIndex is the section index times two, so each 32 blocks in
+        // the order the section stores them make up the next long
+        int firstWord = yReal << 3;
+        int bits = storage.getBits();
+        if (bits == 0 && paletteInfo != null && paletteInfo[0] < POSITION_DEPENDENT) {
+            // single value palette, every block is the same, and it doesn't matter where it is
+            Arrays.fill(data, firstWord, firstWord + 128, paletteInfo[0] * 0x5555555555555555L);
+            return true;
+        }
+        long[] raw = storage.getRaw();
+        long mask = (1L << bits) - 1L;
+        int perLong = bits == 0 ? 4096 : 64 / bits; // entries don't span more than one long
+        long word = 0;
+        int idx = 0;
+        for (int i = 0; idx < 4096; i++) {
+            long l = bits == 0 ? 0 : raw[i];
+            for (int n = 0, offset = 0; n < perLong && idx < 4096; n++, offset += bits, idx++) {
+                int value = (int) ((l >>> offset) & mask);
+                int info = paletteInfo != null ? paletteInfo[value] : stateInfo(value);
+                int type = info & 7;
+                if (info >= POSITION_DEPENDENT) {
+                    BlockState state = palette.valueFor(value);
+                    int x = idx & 15;
+                    int y = yReal | idx >> 8;
+                    int z = (idx >> 4) & 15;
+                    if (type == POSITION_DEPENDENT) {
+                        type = getPathingBlockType(state, chunk, x, y, z).getPacked();
+                    }
+                    if ((info & SPECIAL) != 0) {
+                        String name = BlockUtils.blockToString(state.getBlock());
+                        specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y + chunk.getMinBuildHeight(), z));
+                    }
+                }
+                word |= (long) type << ((idx & 31) << 1);
+                if ((idx & 31) == 31) {
+                    data[firstWord + (idx >> 5)] = word;
+                    word = 0;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static void packSectionByBlock(PalettedContainer<BlockState> bsc, LevelChunk chunk, int yReal, long[] data, Map<String, List<BlockPos>> specialBlocks) {
+        // the mapping of BlockStateContainer.getIndex from xyz to index is y << 8 | z << 4 | x;
+        // for better cache locality, iterate in that order
+        // that's also the order of CachedChunk.getPositionIndex, where every two rows of x make up one long
+        for (int y1 = 0; y1 < 16; y1++) {
+            int y = y1 | yReal;
+            for (int z = 0; z < 16; z++) {
+                long word = (z & 1) == 0 ? 0 : data[CachedChunk.getPositionIndex(0, y, z) >> 6];
+                for (int x = 0; x < 16; x++) {
+                    BlockState state = bsc.get(x, y1, z);
+                    word |= (long) getPathingBlockType(state, chunk, x, y, z).getPacked() << CachedChunk.getPositionIndex(x, y, z);
+                    Block block = state.getBlock();
+                    if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(block)) {
+                        String name = BlockUtils.blockToString(block);
+                        specialBlocks.computeIfAbsent(name, b -> new ArrayList<>()).add(new BlockPos(x, y+chunk.getMinBuildHeight(), z));
+                    }
+                }
+                data[CachedChunk.getPositionIndex(0, y, z) >> 6] = word;
+            }
+        }
+    }
+
+    /**
+     * @return What {@link #getPathingBlockType} would say for this state wherever it is, as {@link PathingBlockType#getPacked()},
+     * or {@link #POSITION_DEPENDENT}, plus {@link #SPECIAL} if it's a block to keep track of
+     */
+    private static int stateInfo(BlockState state) {
+        return stateInfo(Block.BLOCK_STATE_REGISTRY.getId(state));
+    }
+
+    private static int stateInfo(int id) {
+        byte[] cache = stateInfoCache;
+        if (id >= cache.length) {
+            cache = stateInfoCache = new byte[Math.max(id + 1, Block.BLOCK_STATE_REGISTRY.size())];
+        }
+        int info = cache[id] - 1;
+        if (info < 0) {
+            BlockState state = Block.BLOCK_STATE_REGISTRY.byId(id);
+            if (MovementHelper.isWater(state)) {
+                info = MovementHelper.possiblyFlowing(state) ? PathingBlockType.AVOID.getPacked() : POSITION_DEPENDENT;
+            } else {
+                info = getPathingBlockType(state).getPacked();
+            }
+            if (CachedChunk.BLOCKS_TO_KEEP_TRACK_OF.contains(state.getBlock())) {
+                info |= SPECIAL;
+            }
+            cache[id] = (byte) (info + 1);
+        }
+        return info;
     }
 
     private static PathingBlockType getPathingBlockType(BlockState state, LevelChunk chunk, int x, int y, int z) {
-        Block block = state.getBlock();
         if (MovementHelper.isWater(state)) {
             // only water source blocks are plausibly usable, flowing water should be avoid
             // FLOWING_WATER is a waterfall, it doesn't really matter and caching it as AVOID just makes it look wrong
@@ -142,7 +325,14 @@ public final class ChunkPacker {
             }
             return PathingBlockType.WATER;
         }
+        return getPathingBlockType(state);
+    }
 
+    /**
+     * The type of anything but water, which doesn't depend on where it is
+     */
+    private static PathingBlockType getPathingBlockType(BlockState state) {
+        Block block = state.getBlock();
         if (MovementHelper.avoidWalkingInto(state) || MovementHelper.isBottomSlab(state)) {
             return PathingBlockType.AVOID;
         }
@@ -0,0 +1,436 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.utils.pathing.PathingBlockType;
+
+import java.util.Arrays;
+
+/**
+ * A rough summary of how you can walk through one cached chunk, for planning long trips a chunk at a time
+ * <p>
+ * An entrance is a spot on the edge of the chunk that you can stand on and step from into the next chunk over (on the
+ * same level, or one up or down). Next to each other entrances on the same level are merged into one, in the
+ * middle, and both chunks merge them the same way so that their entrances line up. Then the cost of walking from
+ * every entrance to every other one inside this chunk is worked out ahead of time with Dijkstra over the cached
+ * blocks, only walking, jumping up one, or falling up to three.
+ * <p>
+ * None of this is exact. It only knows what {@link CachedChunk} knows, it doesn't break or place anything, and it
+ * doesn't parkour. It's only used to pick which way to go, the actual path is still found by A*.
+ */
+public final class ChunkPortals {
+
+    private static final int MAX_FALL = 3;
+
+    private static final int[] STEP_X = {0, 0, 1, -1};
+    private static final int[] STEP_Z = {-1, 1, 0, 0};
+
+    private static final ThreadLocal<double[]> SCRATCH = new ThreadLocal<>();
+
+    /**
+     * The chunk coordinates
+     */
+    public final int x;
+    public final int z;
+
+    private final int minY;
+
+    /**
+     * The chunks this was calculated from, so it can tell when it's out of date. This one, then north, south, east,
+     * west (any of which can be null)
+     */
+    final CachedChunk[] sources;
+
+    /**
+     * Each entrance, as {@code x | z << 4 | y << 8} within the chunk (y relative to the bottom of the world)
+     */
+    private final int[] cells;
+
+    /**
+     * The cost from each entrance to each other one, {@code cells.length} squared
+     */
+    private final double[] costs;
+
+    /**
+     * For each way out of the chunk, which entrance it's from, where it goes (in the same packing, but in the next
+     * chunk over) and which way
+     */
+    private final int[] exitCell;
+    private final int[] exitTarget;
+    private final int[] exitSide;
+    private final double[] exitCost;
+
+    private ChunkPortals(CachedChunk[] sources, int minY, int[] cells, int[] exitCell, int[] exitTarget, int[] exitSide, double[] exitCost) {
+        this.sources = sources;
+        this.x = sources[0].x;
+        this.z = sources[0].z;
+        this.minY = minY;
+        this.cells = cells;
+        this.exitCell = exitCell;
+        this.exitTarget = exitTarget;
+        this.exitSide = exitSide;
+        this.exitCost = exitCost;
+        this.costs = new double[cells.length * cells.length];
+        double[] dist = scratch(sources[0].height);
+        for (int i = 0; i < cells.length; i++) {
+            System.arraycopy(dijkstra(cells[i], dist), 0, costs, i * cells.length, cells.length);
+        }
+    }
+
+    /**
+     * @param sources This chunk, then the ones to the north, south, east and west of it
+     * @param minY    The bottom of the world
+     */
+    static ChunkPortals calculate(CachedChunk[] sources, int minY) {
+        CachedChunk chunk = sources[0];
+        int[] cells = new int[16];
+        int numCells = 0;
+        int[] exitCell = new int[16];
+        int[] exitTarget = new int[16];
+        int[] exitSide = new int[16];
+        double[] exitCost = new double[16];
+        int numExits = 0;
+        for (int side = 0; side < 4; side++) {
+            CachedChunk neighbor = sources[side + 1];
+            if (neighbor == null) {
+                continue;
+            }
+            for (int y = 1; y < chunk.height - 1; y++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    int runStart = -1;
+                    for (int t = 0; t <= 16; t++) {
+                        boolean open = t < 16 && canCross(chunk, neighbor, side, t, y, dy);
+                        if (open && runStart == -1) {
+                            runStart = t;
+                        }
+                        if (!open && runStart != -1) {
+                            int middle = runStart + (t - 1 - runStart) / 2;
+                            int cell = borderCell(side, middle, y);
+                            int index = indexOf(cells, numCells, cell);
+                            if (index == -1) {
+                                if (numCells == cells.length) {
+                                    cells = Arrays.copyOf(cells, numCells * 2);
+                                }
+                                index = numCells;
+                                cells[numCells++] = cell;
+                            }
+                            if (numExits == exitCell.length) {
+                                exitCell = Arrays.copyOf(exitCell, numExits * 2);
+                                exitTarget = Arrays.copyOf(exitTarget, numExits * 2);
+                                exitSide = Arrays.copyOf(exitSide, numExits * 2);
+                                exitCost = Arrays.copyOf(exitCost, numExits * 2);
+                            }
+                            exitCell[numExits] = index;
+                            exitTarget[numExits] = borderCell(side ^ 1, middle, y + dy);
+                            exitSide[numExits] = side;
+                            exitCost[numExits] = stepCost(dy, isWater(chunk, cell));
+                            numExits++;
+                            runStart = -1;
+                        }
+                    }
+                }
+            }
+        }
+        return new ChunkPortals(sources, minY, Arrays.copyOf(cells, numCells), Arrays.copyOf(exitCell, numExits), Arrays.copyOf(exitTarget, numExits), Arrays.copyOf(exitSide, numExits), Arrays.copyOf(exitCost, numExits));
+    }
+
+    public int numEntrances() {
+        return cells.length;
+    }
+
+    public int entranceX(int entrance) {
+        return (x << 4) | (cells[entrance] & 15);
+    }
+
+    public int entranceY(int entrance) {
+        return (cells[entrance] >> 8) + minY;
+    }
+
+    public int entranceZ(int entrance) {
+        return (z << 4) | (cells[entrance] >> 4 & 15);
+    }
+
+    /**
+     * @return The entrance at this position, or -1 if there isn't one
+     */
+    public int entranceAt(int x, int y, int z) {
+        if (x >> 4 != this.x || z >> 4 != this.z || y < minY) {
+            return -1;
+        }
+        return indexOf(cells, cells.length, pack(x & 15, y - minY, z & 15));
+    }
+
+    /**
+     * @return The cost of walking from one entrance to another inside this chunk, or {@link ActionCosts#COST_INF} if
+     * you can't
+     */
+    public double cost(int from, int to) {
+        return costs[from * cells.length + to];
+    }
+
+    public int numExits() {
+        return exitCell.length;
+    }
+
+    /**
+     * @return The entrance that this exit leaves from
+     */
+    public int exitFrom(int exit) {
+        return exitCell[exit];
+    }
+
+    public int exitX(int exit) {
+        return ((x + STEP_X[exitSide[exit]]) << 4) | (exitTarget[exit] & 15);
+    }
+
+    public int exitY(int exit) {
+        return (exitTarget[exit] >> 8) + minY;
+    }
+
+    public int exitZ(int exit) {
+        return ((z + STEP_Z[exitSide[exit]]) << 4) | (exitTarget[exit] >> 4 & 15);
+    }
+
+    /**
+     * @return The cost of the one step out of the chunk
+     */
+    public double exitCost(int exit) {
+        return exitCost[exit];
+    }
+
+    /**
+     * The cost from somewhere in this chunk that isn't an entrance (like where the player is) to every entrance
+     *
+     * @return The costs, by entrance, or null if you can't stand there
+     */
+    public double[] costsFrom(int x, int y, int z) {
+        if (x >> 4 != this.x || z >> 4 != this.z || y - minY < 1 || y - minY >= sources[0].height - 1) {
+            return null;
+        }
+        int cell = pack(x & 15, y - minY, z & 15);
+        if (!canStand(sources[0], x & 15, y - minY, z & 15)) {
+            return null;
+        }
+        return dijkstra(cell, scratch(sources[0].height));
+    }
+
+    /**
+     * @return This thread's scratch space for {@link #dijkstra}, which is the best part of a megabyte in a tall world
+     * so it isn't allocated again for every chunk
+     */
+    private static double[] scratch(int height) {
+        double[] dist = SCRATCH.get();
+        if (dist == null || dist.length != 16 * 16 * height) {
+            dist = new double[16 * 16 * height];
+            Arrays.fill(dist, ActionCosts.COST_INF);
+            SCRATCH.set(dist);
+        }
+        return dist;
+    }
+
+    /**
+     * Dijkstra from one spot over everywhere you can stand in this chunk
+     *
+     * @param dist Scratch space for the cost to every cell, all {@link ActionCosts#COST_INF} going in and coming out
+     * @return The cost to each entrance
+     */
+    private double[] dijkstra(int from, double[] dist) {
+        CachedChunk chunk = sources[0];
+        int height = chunk.height;
+        // only the cells that were actually reached get reset at the end, instead of filling the whole thing every time
+        int[] touched = new int[64];
+        int numTouched = 0;
+        // a binary heap of cells with lazy deletion, it's small enough that stale entries don't matter
+        int[] heapCells = new int[64];
+        double[] heapCosts = new double[64];
+        int heapSize = 0;
+        dist[from] = 0;
+        touched[numTouched++] = from;
+        heapCells[0] = from;
+        heapSize++;
+        while (heapSize > 0) {
+            int cell = heapCells[0];
+            double cost = heapCosts[0];
+            heapSize--;
+            int lastCell = heapCells[heapSize];
+            double lastCost = heapCosts[heapSize];
+            int index = 0;
+            while (true) {
+                int child = index * 2 + 1;
+                if (child >= heapSize) {
+                    break;
+                }
+                if (child + 1 < heapSize && heapCosts[child + 1] < heapCosts[child]) {
+                    child++;
+                }
+                if (lastCost <= heapCosts[child]) {
+                    break;
+                }
+                heapCells[index] = heapCells[child];
+                heapCosts[index] = heapCosts[child];
+                index = child;
+            }
+            heapCells[index] = lastCell;
+            heapCosts[index] = lastCost;
+            if (cost > dist[cell]) {
+                continue;
+            }
+            int cx = cell & 15;
+            int cz = cell >> 4 & 15;
+            int cy = cell >> 8;
+            boolean water = isWater(chunk, cell);
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = cx + STEP_X[dir];
+                int nz = cz + STEP_Z[dir];
+                if (nx < 0 || nx > 15 || nz < 0 || nz > 15) {
+                    continue;
+                }
+                for (int dy = 1; dy >= -MAX_FALL; dy--) {
+                    int ny = cy + dy;
+                    if (ny < 1 || ny >= height - 1) {
+                        continue;
+                    }
+                    if (dy == 1 && !passable(chunk, cx, cy + 2, cz)) {
+                        continue; // no room to jump
+                    }
+                    if (dy < 0 && (!passable(chunk, nx, cy + 1, nz) || !passable(chunk, nx, ny + 1, nz))) {
+                        break; // can't walk off towards there, or something's in the way of falling any further
+                    }
+                    if (!canStand(chunk, nx, ny, nz)) {
+                        continue;
+                    }
+                    int next = pack(nx, ny, nz);
+                    double newCost = cost + stepCost(dy, water);
+                    if (newCost < dist[next]) {
+                        if (dist[next] >= ActionCosts.COST_INF) {
+                            if (numTouched == touched.length) {
+                                touched = Arrays.copyOf(touched, numTouched * 2);
+                            }
+                            touched[numTouched++] = next;
+                        }
+                        dist[next] = newCost;
+                        if (heapSize == heapCells.length) {
+                            heapCells = Arrays.copyOf(heapCells, heapSize * 2);
+                            heapCosts = Arrays.copyOf(heapCosts, heapSize * 2);
+                        }
+                        int i = heapSize++;
+                        while (i > 0 && heapCosts[(i - 1) >> 1] > newCost) {
+                            heapCells[i] = heapCells[(i - 1) >> 1];
+                            heapCosts[i] = heapCosts[(i - 1) >> 1];
+                            i = (i - 1) >> 1;
+                        }
+                        heapCells[i] = next;
+                        heapCosts[i] = newCost;
+                    }
+                    if (dy <= 0) {
+                        break; // landed (or walked) on something, so it doesn't fall any further
+                    }
+                }
+            }
+        }
+        double[] result = new double[cells.length];
+        for (int i = 0; i < cells.length; i++) {
+            result[i] = dist[cells[i]];
+        }
+        for (int i = 0; i < numTouched; i++) {
+            dist[touched[i]] = ActionCosts.COST_INF;
+        }
+        return result;
+    }
+
+    /**
+     * Whether you can step from this chunk's edge at {@code t} along it and height {@code y}, to the next chunk
+     * over at height {@code y + dy}
+     */
+    private static boolean canCross(CachedChunk chunk, CachedChunk neighbor, int side, int t, int y, int dy) {
+        int ny = y + dy;
+        if (ny < 1 || ny >= neighbor.height - 1) {
+            return false;
+        }
+        int from = borderCell(side, t, y);
+        int to = borderCell(side ^ 1, t, ny);
+        if (!canStand(chunk, from & 15, y, from >> 4 & 15) || !canStand(neighbor, to & 15, ny, to >> 4 & 15)) {
+            return false;
+        }
+        if (dy == 1) {
+            return passable(chunk, from & 15, y + 2, from >> 4 & 15);
+        }
+        if (dy == -1) {
+            return passable(neighbor, to & 15, y + 1, to >> 4 & 15);
+        }
+        return true;
+    }
+
+    /**
+     * The cell at {@code t} along a side of a chunk. Sides are north, south, east, west, so {@code side ^ 1} is the
+     * opposite side, and the same {@code t} on it is right across the border.
+     */
+    private static int borderCell(int side, int t, int y) {
+        switch (side) {
+            case 0:
+                return pack(t, y, 0);
+            case 1:
+                return pack(t, y, 15);
+            case 2:
+                return pack(15, y, t);
+            default:
+                return pack(0, y, t);
+        }
+    }
+
+    private static double stepCost(int dy, boolean water) {
+        double walk = water ? ActionCosts.WALK_ONE_IN_WATER_COST : ActionCosts.WALK_ONE_BLOCK_COST;
+        if (dy > 0) {
+            return walk + ActionCosts.JUMP_ONE_BLOCK_COST;
+        }
+        if (dy < 0) {
+            return ActionCosts.WALK_OFF_BLOCK_COST + ActionCosts.FALL_N_BLOCKS_COST[-dy] + ActionCosts.CENTER_AFTER_FALL_COST;
+        }
+        return walk;
+    }
+
+    private static boolean canStand(CachedChunk chunk, int x, int y, int z) {
+        return chunk.getType(x, y - 1, z) == PathingBlockType.SOLID && passable(chunk, x, y, z) && passable(chunk, x, y + 1, z);
+    }
+
+    private static boolean passable(CachedChunk chunk, int x, int y, int z) {
+        if (y >= chunk.height) {
+            return true;
+        }
+        PathingBlockType type = chunk.getType(x, y, z);
+        return type == PathingBlockType.AIR || type == PathingBlockType.WATER;
+    }
+
+    private static boolean isWater(CachedChunk chunk, int cell) {
+        return chunk.getType(cell & 15, cell >> 8, cell >> 4 & 15) == PathingBlockType.WATER;
+    }
+
+    private static int pack(int x, int y, int z) {
+        return x | z << 4 | y << 8;
+    }
+
+    private static int indexOf(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (array[i] == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
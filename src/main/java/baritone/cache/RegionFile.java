@@ -0,0 +1,358 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A region file where each chunk can be read on its own, so that reading one only reads that chunk's bytes. The old
+ * format was one GZIP stream for the whole region, so getting any chunk meant reading all of them.
+ * <p>
+ * The layout is the magic value, then a table with the offset, length and cache timestamp of each of the 32x32
+ * chunks (indexed x * 32 + z, a length of 0 means the chunk isn't there) and of the region's block palette, then each
+ * one's data, deflated on its own. What's in the data is up to {@link CachedRegion}.
+ * <p>
+ * Chunks can be changed without writing the whole file again, see {@link #patch}. Their new data goes on the end, and
+ * the space the old data took is wasted until the whole file is written again with {@link #write}. The file is only
+ * open while it's being read or patched, so nothing has it open when it's replaced, which Windows wouldn't allow. Once
+ * it's replaced, any RegionFile that was opened before would be reading the new file with the old table, so they have to
+ * be {@link #close closed} first.
+ */
+final class RegionFile {
+
+    /**
+     * Magic value for this format, the old format is {@link CachedRegion}'s CACHED_REGION_MAGIC inside a GZIP stream
+     */
+    static final int MAGIC = 456022913;
+
+    static final int CHUNKS = 32 * 32;
+
+    /**
+     * The entry that the block palette is in, after all the chunks
+     */
+    static final int PALETTE = CHUNKS;
+
+    static final int ENTRIES = CHUNKS + 1;
+
+    private static final int ENTRY_SIZE = 4 + 4 + 8;
+
+    static final int HEADER_SIZE = 4 + ENTRIES * ENTRY_SIZE;
+
+    /**
+     * The file, or null if this is only in memory
+     */
+    private final Path path;
+
+    /**
+     * The whole file, if this is only in memory, otherwise null
+     */
+    private final ByteBuffer contents;
+
+    /**
+     * Set once nothing should be read from this anymore, see {@link #close}
+     */
+    private volatile boolean closed;
+
+    /**
+     * How long the file is now, including anything {@link #patch} appended after it was opened
+     */
+    private long size;
+
+    private final int[] offsets = new int[ENTRIES];
+
+    private final int[] lengths = new int[ENTRIES];
+
+    private final long[] timestamps = new long[ENTRIES];
+
+    /**
+     * @param header The start of the file, up to the end of the table if it's that long
+     * @param size   How long the whole file is
+     */
+    private RegionFile(Path path, ByteBuffer contents, ByteBuffer header, long size) throws IOException {
+        this.path = path;
+        this.contents = contents;
+        this.size = size;
+        int magic = header.limit() < 4 ? 0 : header.getInt(0);
+        if (magic != MAGIC) {
+            throw new IOException("Not a random access region file");
+        }
+        if (header.limit() < HEADER_SIZE) {
+            throw new IOException("Malformed region file, the table is cut off");
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            int entry = 4 + i * ENTRY_SIZE;
+            offsets[i] = header.getInt(entry);
+            lengths[i] = header.getInt(entry + 4);
+            timestamps[i] = header.getLong(entry + 8);
+            if (lengths[i] < 0 || (lengths[i] != 0 && (offsets[i] < HEADER_SIZE || (long) offsets[i] + lengths[i] > size))) {
+                throw new IOException("Malformed region file, chunk " + i + " is out of bounds");
+            }
+        }
+    }
+
+    /**
+     * @return Whether the file is in this format, as opposed to the old one
+     */
+    static boolean isRegionFile(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            byte[] magic = new byte[4];
+            if (in.readNBytes(magic, 0, 4) != 4) {
+                return false;
+            }
+            int value = ByteBuffer.wrap(magic).getInt();
+            return value == MAGIC;
+        }
+    }
+
+    /**
+     * Reads the file's table, none of the chunks are read until they're asked for
+     */
+    static RegionFile open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate((int) Math.min(size, HEADER_SIZE));
+            readFully(channel, header, 0);
+            return new RegionFile(file, null, header, size);
+        }
+    }
+
+    /**
+     * The same thing from bytes in memory instead of a file, for while the file is being written, and for tests
+     */
+    static RegionFile wrap(byte[] contents) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(contents);
+        return new RegionFile(null, buffer, buffer, contents.length);
+    }
+
+    /**
+     * Stops anything more being read from this, once the file might be replaced or it's no longer needed. Reading
+     * after this throws an IOException, rather than reading a new file with this one's table.
+     */
+    void close() {
+        closed = true;
+    }
+
+    /**
+     * @return Whether this is a file on disk that {@link #patch} can change, rather than something only in memory
+     */
+    boolean isOnDisk() {
+        return path != null;
+    }
+
+    long fileBytes() {
+        return size;
+    }
+
+    boolean isPresent(int index) {
+        return lengths[index] != 0;
+    }
+
+    int length(int index) {
+        return lengths[index];
+    }
+
+    long timestamp(int index) {
+        return timestamps[index];
+    }
+
+    /**
+     * @return The chunk's data, still compressed, for writing it back out without having to read it
+     */
+    byte[] readCompressed(int index) throws IOException {
+        if (closed) {
+            throw new IOException("Region file is closed");
+        }
+        byte[] compressed = new byte[lengths[index]];
+        if (contents != null) {
+            contents.get(offsets[index], compressed); // absolute, so it's fine to do from more than one thread at once
+            return compressed;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            readFully(channel, ByteBuffer.wrap(compressed), offsets[index]);
+        }
+        return compressed;
+    }
+
+    /**
+     * @return A stream of the chunk's data
+     */
+    DataInputStream read(int index) throws IOException {
+        return inflate(readCompressed(index));
+    }
+
+    /**
+     * @return A stream of what {@link #readCompressed} read
+     */
+    static DataInputStream inflate(byte[] compressed) {
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(data.length / 4);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(bytes)) {
+            out.write(data);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Lays out a whole region file in memory, to {@link #write} and to {@link #wrap} in the meantime
+     *
+     * @param chunks     Each chunk's compressed data, or null if it isn't there, indexed x * 32 + z, then the palette
+     * @param timestamps Each chunk's cache timestamp
+     */
+    static byte[] build(byte[][] chunks, long[] timestamps) throws IOException {
+        long total = HEADER_SIZE;
+        for (byte[] chunk : chunks) {
+            total += chunk == null ? 0 : chunk.length;
+        }
+        if (total > Integer.MAX_VALUE) {
+            throw new IOException("Region file too large");
+        }
+        ByteBuffer contents = ByteBuffer.allocate((int) total);
+        contents.putInt(MAGIC);
+        int offset = HEADER_SIZE;
+        for (int i = 0; i < ENTRIES; i++) {
+            int length = chunks[i] == null ? 0 : chunks[i].length;
+            contents.putInt(length == 0 ? 0 : offset);
+            contents.putInt(length);
+            contents.putLong(length == 0 ? 0 : timestamps[i]);
+            offset += length;
+        }
+        for (byte[] chunk : chunks) {
+            if (chunk != null) {
+                contents.put(chunk);
+            }
+        }
+        return contents.array();
+    }
+
+    /**
+     * Writes a whole region file. It's written next to the file first and moved into place after, so a crash halfway
+     * through doesn't lose the region. Anything that was opened from the old file has to be {@link #close closed} first.
+     *
+     * @param file     Where to write it
+     * @param contents The file, from {@link #build}
+     */
+    static void write(Path file, byte[] contents) throws IOException {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, ByteBuffer.wrap(contents));
+        }
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Changes some chunks in this file on disk, without touching the others or reading the table again. The new data
+     * is appended and made durable before the table entries are pointed at it, so a crash partway through leaves each
+     * chunk either as it was or as it's meant to be. Nothing that's already in the file is overwritten except those
+     * table entries, so anything else that opened it keeps working, going by the table it read when it opened it.
+     * <p>
+     * Only the changed chunks' entries in this object's table change, so it's fine for other threads to be reading
+     * the other chunks at the same time.
+     *
+     * @param chunks     Each chunk's new compressed data, or null to remove it, indexed x * 32 + z, then the palette
+     * @param timestamps Each chunk's new cache timestamp
+     * @param changed    Which chunks to change, the rest of chunks and timestamps is ignored
+     * @return How many bytes were written
+     */
+    long patch(byte[][] chunks, long[] timestamps, boolean[] changed) throws IOException {
+        if (path == null) {
+            throw new IllegalStateException();
+        }
+        long written = 0;
+        int[] newOffsets = new int[ENTRIES];
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = channel.size();
+            ByteBuffer entries = ByteBuffer.allocate(ENTRIES * ENTRY_SIZE);
+            channel.position(end);
+            for (int i = 0; i < ENTRIES; i++) {
+                if (!changed[i]) {
+                    continue;
+                }
+                int length = chunks[i] == null ? 0 : chunks[i].length;
+                if (length != 0 && end + length > Integer.MAX_VALUE) {
+                    throw new IOException("Region file too large to patch");
+                }
+                newOffsets[i] = length == 0 ? 0 : (int) end;
+                entries.putInt(newOffsets[i]);
+                entries.putInt(length);
+                entries.putLong(length == 0 ? 0 : timestamps[i]);
+                if (length != 0) {
+                    writeFully(channel, ByteBuffer.wrap(chunks[i]));
+                    end += length;
+                    written += length;
+                }
+            }
+            channel.force(false);
+            entries.flip();
+            for (int i = 0; i < ENTRIES; i++) {
+                if (changed[i]) {
+                    ByteBuffer entry = entries.slice(entries.position(), ENTRY_SIZE);
+                    entries.position(entries.position() + ENTRY_SIZE);
+                    long position = 4 + (long) i * ENTRY_SIZE;
+                    while (entry.hasRemaining()) {
+                        position += channel.write(entry, position);
+                    }
+                    written += ENTRY_SIZE;
+                }
+            }
+            channel.force(false);
+            size = end;
+        }
+        for (int i = 0; i < ENTRIES; i++) {
+            if (changed[i]) {
+                offsets[i] = newOffsets[i];
+                lengths[i] = chunks[i] == null ? 0 : chunks[i].length;
+                this.timestamps[i] = lengths[i] == 0 ? 0 : timestamps[i];
+            }
+        }
+        return written;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Region file was cut short");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+}
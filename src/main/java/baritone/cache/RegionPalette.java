@@ -0,0 +1,130 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import baritone.api.utils.BlockUtils;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The block names used by the chunks in one region file, so that each chunk can refer to blocks by a short id instead
+ * of writing out their names, and loading them doesn't have to look a name up for every block
+ * <p>
+ * Ids are never reused or removed, so chunks that were saved before more blocks were added still read the same.
+ */
+final class RegionPalette {
+
+    private final List<String> names = new ArrayList<>();
+
+    /**
+     * The default state of each block, or null if there's no block by that name anymore
+     */
+    private final List<BlockState> states = new ArrayList<>();
+
+    private final Object2IntOpenHashMap<String> ids = new Object2IntOpenHashMap<>();
+
+    /**
+     * How many of the entries are in the region file
+     */
+    private int saved;
+
+    RegionPalette() {
+        ids.defaultReturnValue(-1);
+    }
+
+    int idFor(Block block) {
+        return idFor(BlockUtils.blockToString(block));
+    }
+
+    int idFor(String name) {
+        int id = ids.getInt(name);
+        if (id == -1) {
+            if (names.size() > 0xffff) {
+                throw new IllegalStateException("Too many different blocks in one region");
+            }
+            id = names.size();
+            Block block = BlockUtils.stringToBlockNullable(name);
+            names.add(name);
+            states.add(block == null ? null : block.defaultBlockState());
+            ids.put(name, id);
+        }
+        return id;
+    }
+
+    String name(int id) throws IOException {
+        if (id >= names.size()) {
+            throw new IOException("Block id " + id + " isn't in the palette");
+        }
+        return names.get(id);
+    }
+
+    BlockState state(int id) throws IOException {
+        BlockState state = id < states.size() ? states.get(id) : null;
+        if (state == null) {
+            throw new IOException("Block id " + id + " isn't in the palette, or its block doesn't exist");
+        }
+        return state;
+    }
+
+    /**
+     * @return Whether there are entries that aren't in the region file yet
+     */
+    boolean changedSinceSave() {
+        return saved < names.size();
+    }
+
+    int size() {
+        return names.size();
+    }
+
+    byte[] toByteArray() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(names.size());
+            for (String name : names) {
+                out.writeUTF(name);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @param size How many of the entries were saved, since more might have been added while saving
+     */
+    void markSaved(int size) {
+        saved = Math.max(saved, size);
+    }
+
+    static RegionPalette read(DataInputStream in) throws IOException {
+        RegionPalette palette = new RegionPalette();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            palette.idFor(in.readUTF());
+        }
+        palette.markSaved(size);
+        return palette;
+    }
+}
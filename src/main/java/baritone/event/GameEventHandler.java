@@ -25,8 +25,10 @@ import baritone.api.event.listener.IGameEventListener;
 import baritone.api.utils.Helper;
 import baritone.api.utils.Pair;
 import baritone.cache.CachedChunk;
+import baritone.cache.WorldData;
 import baritone.cache.WorldProvider;
 import baritone.utils.BlockStateInterface;
+import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.state.BlockState;
@@ -34,6 +36,7 @@ import net.minecraft.world.level.chunk.LevelChunk;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
 
 /**
  * @author Brady
@@ -116,12 +119,13 @@ public final class GameEventHandler implements IEventBus, Helper {
                     .map(Pair::second).map(BlockState::getBlock)
                     .anyMatch(CachedChunk.BLOCKS_TO_KEEP_TRACK_OF::contains);
 
-            if (keepingTrackOf) {
-                baritone.getWorldProvider().ifWorldLoaded(worldData -> {
-                    final Level world = baritone.getPlayerContext().world();
-                    ChunkPos pos = event.getChunkPos();
-                    worldData.getCachedWorld().queueForPacking(world.getChunk(pos.x, pos.z));
-                });
+            WorldData worldData = baritone.getWorldProvider().getCurrentWorld();
+            if (keepingTrackOf && worldData != null) {
+                final Level world = baritone.getPlayerContext().world();
+                ChunkPos pos = event.getChunkPos();
+                List<BlockPos> changed = event.getBlocks().stream().map(Pair::first).collect(Collectors.toList());
+                // the packer threads apply it, so nothing's copied here
+                worldData.cache.updateBlocks(world.getChunk(pos.x, pos.z), changed);
             }
         }
 
@@ -18,165 +18,130 @@
 package baritone.pathing.calc;
 
 import baritone.Baritone;
-import baritone.api.pathing.calc.IPath;
 import baritone.api.pathing.goals.Goal;
-import baritone.api.pathing.movement.ActionCosts;
 import baritone.api.utils.BetterBlockPos;
 import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.calc.openset.BucketOpenSet;
+import baritone.pathing.calc.openset.FourAryHeapOpenSet;
+import baritone.pathing.calc.openset.IOpenSet;
+import baritone.pathing.calc.openset.PairingHeapOpenSet;
 import baritone.pathing.movement.CalculationContext;
-import baritone.pathing.movement.Moves;
-import baritone.utils.pathing.BetterWorldBorder;
 import baritone.utils.pathing.Favoring;
-import baritone.utils.pathing.MutableMoveResult;
 
-import java.util.Optional;
+import java.util.Arrays;
 
 /**
  * The actual A* pathfinding
  *
  * @author leijurv
  */
-public final class AStarPathFinder extends AbstractNodeCostSearch {
+public class AStarPathFinder extends AbstractAStarPathFinder {
 
-    private final Favoring favoring;
-    private final CalculationContext calcContext;
+    IOpenSet openSet;
+
+    /**
+     * The nodes being expanded, by batch slot
+     */
+    private PathNode[] batch;
 
     public AStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
-        super(startX, startY, startZ, goal, context);
-        this.favoring = favoring;
-        this.calcContext = context;
+        super(startX, startY, startZ, goal, favoring, context);
     }
 
     @Override
-    protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
-        int minY = calcContext.world.dimensionType().minY();
-        int height = calcContext.world.dimensionType().height();
+    double start(int batchLength) {
         startNode = getNodeAtPosition(startX, startY, startZ, BetterBlockPos.longHash(startX, startY, startZ));
         startNode.cost = 0;
         startNode.combinedCost = startNode.estimatedCostToGoal;
-        BinaryHeapOpenSet openSet = new BinaryHeapOpenSet();
+        openSet = createOpenSet(Baritone.settings().pathingOpenSet.value);
         openSet.insert(startNode);
-        double[] bestHeuristicSoFar = new double[COEFFICIENTS.length];//keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
-        for (int i = 0; i < bestHeuristicSoFar.length; i++) {
-            bestHeuristicSoFar[i] = startNode.estimatedCostToGoal;
-            bestSoFar[i] = startNode;
-        }
-        MutableMoveResult mutableMoveResult = new MutableMoveResult();
-        BetterWorldBorder worldBorder = new BetterWorldBorder(calcContext.world.getWorldBorder());
-        long startTime = System.currentTimeMillis();
-        boolean slowPath = Baritone.settings().slowPath.value;
-        if (slowPath) {
-            logDebug("slowPath is on, path timeout will be " + Baritone.settings().slowPathTimeoutMS.value + "ms instead of " + primaryTimeout + "ms");
-        }
-        long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
-        long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
-        boolean failing = true;
-        int numNodes = 0;
-        int numMovementsConsidered = 0;
-        int numEmptyChunk = 0;
-        boolean isFavoring = !favoring.isEmpty();
-        int timeCheckInterval = 1 << 6;
-        int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value; // grab all settings beforehand so that changing settings during pathing doesn't cause a crash or unpredictable behavior
-        double minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
-        Moves[] allMoves = Moves.values();
-        while (!openSet.isEmpty() && numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested) {
-            if ((numNodes & (timeCheckInterval - 1)) == 0) { // only call this once every 64 nodes (about half a millisecond)
-                long now = System.currentTimeMillis(); // since nanoTime is slow on windows (takes many microseconds)
-                if (now - failureTimeoutTime >= 0 || (!failing && now - primaryTimeoutTime >= 0)) {
-                    break;
-                }
-            }
-            if (slowPath) {
-                try {
-                    Thread.sleep(Baritone.settings().slowPathTimeDelayMS.value);
-                } catch (InterruptedException ignored) {}
-            }
-            PathNode currentNode = openSet.removeLowest();
-            mostRecentConsidered = currentNode;
-            numNodes++;
-            if (goal.isInGoal(currentNode.x, currentNode.y, currentNode.z)) {
-                logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
-                return Optional.of(new Path(startNode, currentNode, numNodes, goal, calcContext));
+        batch = new PathNode[batchLength];
+        Arrays.fill(bestSoFar, startNode);
+        return startNode.estimatedCostToGoal;
+    }
+
+    @Override
+    final boolean openSetIsEmpty() {
+        return openSet.isEmpty();
+    }
+
+    @Override
+    void takeLowest(int slot) {
+        PathNode node = openSet.removeLowest();
+        batch[slot] = node;
+        batchX[slot] = node.x;
+        batchY[slot] = node.y;
+        batchZ[slot] = node.z;
+    }
+
+    @Override
+    final void reinsert(int slot) {
+        openSet.insert(batch[slot]);
+    }
+
+    @Override
+    final void considered(int slot) {
+        mostRecentConsidered = batch[slot];
+    }
+
+    @Override
+    final Path pathTo(int slot, int numNodes) {
+        return new Path(startNode, batch[slot], numNodes, goal, calcContext);
+    }
+
+    /**
+     * Exposed for {@link BidirectionalPathFinder}
+     */
+    final PathNode node(int slot) {
+        return batch[slot];
+    }
+
+    @Override
+    final void relax(int slot, int x, int y, int z, long hashCode, double actionCost, byte move) {
+        PathNode currentNode = batch[slot];
+        PathNode neighbor = getNodeAtPosition(x, y, z, hashCode);
+        double tentativeCost = currentNode.cost + actionCost;
+        if (neighbor.cost - tentativeCost > minimumImprovement) {
+            neighbor.previous = currentNode;
+            neighbor.previousMove = move;
+            neighbor.cost = tentativeCost;
+            neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
+            if (neighbor.isOpen()) {
+                openSet.update(neighbor);
+            } else {
+                openSet.insert(neighbor);//dont double count, dont insert into open set if it's already there
             }
-            for (Moves moves : allMoves) {
-                int newX = currentNode.x + moves.xOffset;
-                int newZ = currentNode.z + moves.zOffset;
-                if ((newX >> 4 != currentNode.x >> 4 || newZ >> 4 != currentNode.z >> 4) && !calcContext.isLoaded(newX, newZ)) {
-                    // only need to check if the destination is a loaded chunk if it's in a different chunk than the start of the movement
-                    if (!moves.dynamicXZ) { // only increment the counter if the movement would have gone out of bounds guaranteed
-                        numEmptyChunk++;
-                    }
-                    continue;
-                }
-                if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
-                    continue;
-                }
-                if (currentNode.y + moves.yOffset > height || currentNode.y + moves.yOffset < minY) {
-                    continue;
-                }
-		mutableMoveResult.reset();
-                moves.apply(calcContext, currentNode.x, currentNode.y, currentNode.z, mutableMoveResult);
-                MutableMoveResult res = mutableMoveResult;
-                while (res != null) {
-                    numMovementsConsidered++;
-                    double actionCost = res.cost;
-                    if (actionCost >= ActionCosts.COST_INF) {
-                        res = res.getNext();
-                        continue;
-                    }
-                    if (actionCost <= 0 || Double.isNaN(actionCost)) {
-                        throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
-                    }
-                    // check destination after verifying it's not COST_INF -- some movements return a static IMPOSSIBLE object with COST_INF and destination being 0,0,0 to avoid allocating a new result for every failed calculation
-                    if (moves.dynamicXZ && !worldBorder.entirelyContains(res.x, res.z)) { // see issue #218
-                        res = res.getNext();
-                        continue;
-                    }
-                    if (!moves.dynamicXZ && (res.x != newX || res.z != newZ)) {
-                        throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
-                    }
-                    long hashCode = BetterBlockPos.longHash(res.x, res.y, res.z);
-                    if (isFavoring) {
-                        // see issue #18
-                        actionCost *= favoring.calculate(hashCode);
-                    }
-                    PathNode neighbor = getNodeAtPosition(res.x, res.y, res.z, hashCode);
-                    double tentativeCost = currentNode.cost + actionCost;
-                    if (neighbor.cost - tentativeCost > minimumImprovement) {
-                        neighbor.previous = currentNode;
-                        neighbor.cost = tentativeCost;
-                        neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
-                        if (neighbor.isOpen()) {
-                            openSet.update(neighbor);
-                        } else {
-                            openSet.insert(neighbor);//dont double count, dont insert into open set if it's already there
-                        }
-                        for (int i = 0; i < COEFFICIENTS.length; i++) {
-                            double heuristic = neighbor.estimatedCostToGoal + neighbor.cost / COEFFICIENTS[i];
-                            if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
-                                bestHeuristicSoFar[i] = heuristic;
-                                bestSoFar[i] = neighbor;
-                                if (failing && getDistFromStartSq(neighbor) > MIN_DIST_PATH * MIN_DIST_PATH) {
-                                    failing = false;
-                                }
-			    }
-			}
-                    }
-		    res = res.getNext();
+            costImproved(neighbor, hashCode);
+            int improved = improveBestSoFar(x, y, z, neighbor.estimatedCostToGoal, tentativeCost);
+            for (int i = 0; improved != 0; i++, improved >>>= 1) {
+                if ((improved & 1) != 0) {
+                    bestSoFar[i] = neighbor;
                 }
             }
         }
-        if (cancelRequested) {
-            return Optional.empty();
-        }
-        System.out.println(numMovementsConsidered + " movements considered");
+    }
+
+    /**
+     * Called after the neighbor's cost goes down
+     */
+    void costImproved(PathNode neighbor, long hashCode) {}
+
+    @Override
+    void logSizes() {
         System.out.println("Open set size: " + openSet.size());
         System.out.println("PathNode map size: " + mapSize());
-        System.out.println((int) (numNodes * 1.0 / ((System.currentTimeMillis() - startTime) / 1000F)) + " nodes per second");
-        Optional<IPath> result = bestSoFar(true, numNodes);
-        if (result.isPresent()) {
-            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
+    }
+
+    static IOpenSet createOpenSet(String type) {
+        switch (type.toLowerCase()) {
+            case "4ary":
+                return new FourAryHeapOpenSet();
+            case "pairing":
+                return new PairingHeapOpenSet();
+            case "bucket":
+                return new BucketOpenSet();
+            default:
+                return new BinaryHeapOpenSet();
         }
-        return result;
     }
 }
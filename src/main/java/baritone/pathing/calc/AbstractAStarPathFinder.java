@@ -0,0 +1,283 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The A* loop that {@link AStarPathFinder}, {@link CompactAStarPathFinder} and {@link BidirectionalPathFinder} share:
+ * timeouts, slowPath, cancelling, the goal check, the best path so far, and expanding nodes either on the pathing
+ * thread or a batch at a time with a {@link ParallelExpander}
+ * <p>
+ * Subclasses only decide how nodes are stored. The nodes being expanded are referred to by their slot in the batch,
+ * which is always slot 0 on one thread.
+ */
+abstract class AbstractAStarPathFinder extends AbstractNodeCostSearch {
+
+    protected final Favoring favoring;
+    protected final CalculationContext calcContext;
+
+    /**
+     * Where the nodes being expanded are, by batch slot, filled in by {@link #takeLowest}
+     */
+    int[] batchX;
+    int[] batchY;
+    int[] batchZ;
+
+    /**
+     * Improvements in cost smaller than this aren't worth updating a node for
+     */
+    double minimumImprovement;
+
+    private final double[] bestHeuristicSoFar = new double[COEFFICIENTS.length]; // keep track of the best node by the metric of (estimatedCostToGoal + cost / COEFFICIENTS[i])
+
+    private boolean failing;
+
+    private boolean isFavoring;
+
+    private boolean stopped;
+
+    AbstractAStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
+        super(startX, startY, startZ, goal, context);
+        this.favoring = favoring;
+        this.calcContext = context;
+    }
+
+    @Override
+    protected final Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+        ParallelExpander expander = null;
+        int expansionThreads = Baritone.settings().pathingExpansionThreads.value;
+        if (expansionThreads > 1 && calcContext.safeForThreadedUse && calcContext.getClass() == CalculationContext.class) {
+            // subclasses override costs in ways that a copy of the context wouldn't carry over, so they stay on one thread
+            expander = new ParallelExpander(calcContext, expansionThreads);
+        }
+        try {
+            return search(expander, primaryTimeout, failureTimeout);
+        } finally {
+            if (expander != null) {
+                expander.close();
+            }
+        }
+    }
+
+    private Optional<IPath> search(ParallelExpander expander, long primaryTimeout, long failureTimeout) {
+        NodeExpander nodeExpander = expander == null ? new NodeExpander(calcContext) : null;
+        batchX = expander == null ? new int[1] : expander.batchX;
+        batchY = expander == null ? new int[1] : expander.batchY;
+        batchZ = expander == null ? new int[1] : expander.batchZ;
+        Arrays.fill(bestHeuristicSoFar, start(batchX.length));
+        long startTime = System.currentTimeMillis();
+        boolean slowPath = Baritone.settings().slowPath.value;
+        if (slowPath) {
+            logDebug("slowPath is on, path timeout will be " + Baritone.settings().slowPathTimeoutMS.value + "ms instead of " + primaryTimeout + "ms");
+        }
+        long primaryTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : primaryTimeout);
+        long failureTimeoutTime = startTime + (slowPath ? Baritone.settings().slowPathTimeoutMS.value : failureTimeout);
+        failing = true;
+        isFavoring = !favoring.isEmpty();
+        int numNodes = 0;
+        int numOtherNodes = 0;
+        int numMovementsConsidered = 0;
+        int numEmptyChunk = 0;
+        int timeCheckInterval = 1 << 6;
+        int pathingMaxChunkBorderFetch = Baritone.settings().pathingMaxChunkBorderFetch.value; // grab all settings beforehand so that changing settings during pathing doesn't cause a crash or unpredictable behavior
+        minimumImprovement = Baritone.settings().minimumImprovementRepropagation.value ? MIN_IMPROVEMENT : 0;
+        NodeExpander.Sink sink = (x, y, z, actionCost, move) -> favorAndRelax(0, x, y, z, actionCost, move);
+        while (!openSetIsEmpty() && numEmptyChunk < pathingMaxChunkBorderFetch && !cancelRequested && !stopped) {
+            if (expander != null || ((numNodes + numOtherNodes) & (timeCheckInterval - 1)) == 0) { // only call this once every 64 nodes (about half a millisecond), or once a batch
+                long now = System.currentTimeMillis(); // since nanoTime is slow on windows (takes many microseconds)
+                if (now - failureTimeoutTime >= 0 || (!failing && now - primaryTimeoutTime >= 0)) {
+                    break;
+                }
+            }
+            if (slowPath) {
+                try {
+                    Thread.sleep(Baritone.settings().slowPathTimeDelayMS.value);
+                } catch (InterruptedException ignored) {}
+            }
+            if (expandOther()) {
+                numOtherNodes++;
+                continue;
+            }
+            int batchSize = 0;
+            while (batchSize < batchX.length && !openSetIsEmpty()) {
+                takeLowest(batchSize);
+                if (stopped) {
+                    break;
+                }
+                considered(batchSize);
+                if (goal.isInGoal(batchX[batchSize], batchY[batchSize], batchZ[batchSize])) {
+                    if (batchSize == 0) {
+                        numNodes++;
+                        logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
+                        return Optional.of(pathTo(0, numNodes));
+                    }
+                    // the rest of the batch might still find a cheaper way here, so expand it first and come back to this
+                    reinsert(batchSize);
+                    break;
+                }
+                batchSize++;
+            }
+            if (batchSize == 0) {
+                break;
+            }
+            numNodes += batchSize;
+            if (expander == null) {
+                nodeExpander.expand(batchX[0], batchY[0], batchZ[0], sink);
+                numMovementsConsidered = nodeExpander.numMovementsConsidered;
+                numEmptyChunk = nodeExpander.numEmptyChunk;
+                continue;
+            }
+            expander.batchSize = batchSize;
+            expander.expand();
+            numMovementsConsidered = expander.numMovementsConsidered();
+            numEmptyChunk = expander.numEmptyChunk();
+            for (int slot = 0; slot < batchSize; slot++) {
+                ParallelExpander.Worker worker = expander.worker(slot);
+                for (int i = worker.start[slot]; i < worker.end[slot]; i++) {
+                    favorAndRelax(slot, worker.x[i], worker.y[i], worker.z[i], worker.cost[i], worker.move[i]);
+                }
+            }
+        }
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        System.out.println(numMovementsConsidered + " movements considered");
+        logSizes();
+        System.out.println((int) ((numNodes + numOtherNodes) * 1.0 / ((System.currentTimeMillis() - startTime) / 1000F)) + " nodes per second");
+        // with more than one thread, the lookups were all done by the workers' own copies of the context
+        long windowHits = expander == null ? calcContext.bsi.getWindowHits() : expander.windowHits();
+        long windowLookups = windowHits + (expander == null ? calcContext.bsi.getWindowMisses() : expander.windowMisses());
+        System.out.println("Chunk lookup window hit rate: " + (windowLookups == 0 ? 100 : windowHits * 100 / windowLookups) + "% of " + windowLookups);
+        Optional<IPath> result = finish(numNodes + numOtherNodes);
+        if (result.isPresent()) {
+            logDebug("Took " + (System.currentTimeMillis() - startTime) + "ms, " + numMovementsConsidered + " movements considered");
+        }
+        return result;
+    }
+
+    private void favorAndRelax(int slot, int x, int y, int z, double actionCost, byte move) {
+        long hashCode = BetterBlockPos.longHash(x, y, z);
+        if (isFavoring) {
+            // see issue #18
+            actionCost *= favoring.calculate(hashCode);
+        }
+        relax(slot, x, y, z, hashCode, actionCost, move);
+    }
+
+    /**
+     * Creates the open set with the start node in it, and makes the start the best node so far for every coefficient
+     *
+     * @param batchLength How many nodes can be expanded at once
+     * @return The start's estimated cost to the goal
+     */
+    abstract double start(int batchLength);
+
+    abstract boolean openSetIsEmpty();
+
+    /**
+     * Takes the lowest node off the open set, and puts it and its position in the slot. Calling {@link #stop()} from
+     * here ends the search without expanding it.
+     */
+    abstract void takeLowest(int slot);
+
+    /**
+     * Puts the node in the slot back on the open set, without expanding it
+     */
+    abstract void reinsert(int slot);
+
+    /**
+     * The node in the slot is the most recent node considered
+     */
+    abstract void considered(int slot);
+
+    abstract Path pathTo(int slot, int numNodes);
+
+    /**
+     * Updates the node at x, y, z if going there from the node in the slot is cheaper than what it has so far, and if
+     * it is, reports its new cost to {@link #improveBestSoFar}
+     *
+     * @param actionCost The cost of the movement, already favored
+     */
+    abstract void relax(int slot, int x, int y, int z, long hashCode, double actionCost, byte move);
+
+    /**
+     * Lets a subclass use this iteration of the loop for something other than expanding the lowest node, like
+     * {@link BidirectionalPathFinder}'s backward search
+     *
+     * @return Whether it did, in which case nothing is expanded this iteration
+     */
+    boolean expandOther() {
+        return false;
+    }
+
+    /**
+     * Prints how big the open set and the node map got
+     */
+    abstract void logSizes();
+
+    /**
+     * @param numNodes How many nodes were expanded
+     * @return The path to return when the search stops without reaching the goal
+     */
+    Optional<IPath> finish(int numNodes) {
+        return bestSoFar(true, numNodes);
+    }
+
+    /**
+     * Ends the search after this iteration, with whatever {@link #finish} returns
+     */
+    final void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Called with every node whose cost just went down
+     *
+     * @return Which coefficients this node is now the best so far for, as a bit mask
+     */
+    final int improveBestSoFar(int x, int y, int z, double estimatedCostToGoal, double cost) {
+        int improved = 0;
+        for (int i = 0; i < COEFFICIENTS.length; i++) {
+            double heuristic = estimatedCostToGoal + cost / COEFFICIENTS[i];
+            if (bestHeuristicSoFar[i] - heuristic > minimumImprovement) {
+                bestHeuristicSoFar[i] = heuristic;
+                improved |= 1 << i;
+                if (failing && getDistFromStartSq(x, y, z) > MIN_DIST_PATH * MIN_DIST_PATH) {
+                    failing = false;
+                }
+            }
+        }
+        return improved;
+    }
+
+    final double getDistFromStartSq(int x, int y, int z) {
+        int xDiff = x - startX;
+        int yDiff = y - startY;
+        int zDiff = z - startZ;
+        return xDiff * xDiff + yDiff * yDiff + zDiff * zDiff;
+    }
+}
@@ -45,9 +45,11 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
     private final CalculationContext context;
 
     /**
+     * Only created once the first node is requested, searches that keep their nodes in a {@link NodeStore} never use it
+     *
      * @see <a href="https://github.com/cabaletta/baritone/issues/107">Issue #107</a>
      */
-    private final Long2ObjectOpenHashMap<PathNode> map;
+    private Long2ObjectOpenHashMap<PathNode> map;
 
     protected PathNode startNode;
 
@@ -87,7 +89,6 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
         this.startZ = startZ;
         this.goal = goal;
         this.context = context;
-        this.map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
     }
 
     public void cancel() {
@@ -167,6 +168,9 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
      */
 
     protected PathNode getNodeAtPosition(int x, int y, int z, long hashCode) {
+        if (map == null) {
+            map = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+        }
         PathNode node = map.get(hashCode);
         if (node == null) {
             node = new PathNode(x, y, z, goal);
@@ -175,6 +179,16 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
         return node;
     }
 
+    /**
+     * Like {@link #getNodeAtPosition(int, int, int, long)}, but doesn't create the node if it isn't there
+     *
+     * @param hashCode The hash code of the node, provided by {@link BetterBlockPos#longHash(int, int, int)}
+     * @return The associated node, or null if the search hasn't reached that position yet
+     */
+    protected PathNode getExistingNodeAtPosition(long hashCode) {
+        return map == null ? null : map.get(hashCode);
+    }
+
     @Override
     public Optional<IPath> pathToMostRecentNodeConsidered() {
         return Optional.ofNullable(mostRecentConsidered).map(node -> new Path(startNode, node, 0, goal, context));
@@ -200,13 +214,7 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
             }
             if (dist > MIN_DIST_PATH * MIN_DIST_PATH) { // square the comparison since distFromStartSq is squared
                 if (logInfo) {
-                    if (COEFFICIENTS[i] >= 3) {
-                        System.out.println("Warning: cost coefficient is greater than three! Probably means that");
-                        System.out.println("the path I found is pretty terrible (like sneak-bridging for dozens of blocks)");
-                        System.out.println("But I'm going to do it anyway, because yolo");
-                    }
-                    System.out.println("Path goes for " + Math.sqrt(dist) + " blocks");
-                    logDebug("A* cost coefficient " + COEFFICIENTS[i]);
+                    logBestSoFar(i, dist);
                 }
                 return Optional.of(new Path(startNode, bestSoFar[i], numNodes, goal, context));
             }
@@ -214,13 +222,27 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
         // instead of returning bestSoFar[0], be less misleading
         // if it actually won't find any path, don't make them think it will by rendering a dark blue that will never actually happen
         if (logInfo) {
-            logDebug("Even with a cost coefficient of " + COEFFICIENTS[COEFFICIENTS.length - 1] + ", I couldn't get more than " + Math.sqrt(bestDist) + " blocks");
-            logDebug("No path found =(");
-            logNotification("No path found =(", true);
+            logNoPathFound(bestDist);
         }
         return Optional.empty();
     }
 
+    protected void logBestSoFar(int coefficient, double distSq) {
+        if (COEFFICIENTS[coefficient] >= 3) {
+            System.out.println("Warning: cost coefficient is greater than three! Probably means that");
+            System.out.println("the path I found is pretty terrible (like sneak-bridging for dozens of blocks)");
+            System.out.println("But I'm going to do it anyway, because yolo");
+        }
+        System.out.println("Path goes for " + Math.sqrt(distSq) + " blocks");
+        logDebug("A* cost coefficient " + COEFFICIENTS[coefficient]);
+    }
+
+    protected void logNoPathFound(double bestDistSq) {
+        logDebug("Even with a cost coefficient of " + COEFFICIENTS[COEFFICIENTS.length - 1] + ", I couldn't get more than " + Math.sqrt(bestDistSq) + " blocks");
+        logDebug("No path found =(");
+        logNotification("No path found =(", true);
+    }
+
     @Override
     public final boolean isFinished() {
         return isFinished;
@@ -236,6 +258,6 @@ public abstract class AbstractNodeCostSearch implements IPathFinder, Helper {
     }
 
     protected int mapSize() {
-        return map.size();
+        return map == null ? 0 : map.size();
     }
 }
@@ -0,0 +1,281 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalGetToBlock;
+import baritone.api.pathing.goals.GoalTwoBlocks;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.interfaces.IGoalRenderPos;
+import baritone.pathing.calc.openset.IOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.Favoring;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A* from both ends at once, for goals that are a handful of known positions
+ * <p>
+ * The forward search is exactly {@link AStarPathFinder}, using the node map from {@link AbstractNodeCostSearch}, so
+ * the best path so far, the most recent node considered and pathingExpansionThreads still work the same way. The
+ * backward search starts at every position in the goal and goes towards the start, always on the pathing thread. A
+ * position's predecessors are found by trying each movement with a fixed offset from where it would have to start, and
+ * keeping the ones that actually end up here, so the costs are the same forward costs the forward search would have
+ * calculated. Parkour and falls don't have a fixed offset and are left to the forward search.
+ * <p>
+ * Whichever side has the smaller open set is expanded next. Whenever a position is reached by both, that's a path
+ * from start to goal, and once either side's lowest combined cost is no better than the cheapest such path, it's
+ * returned. If the backward side runs dry (e.g. the goal is in a pit you can only fall into) this is just A*.
+ *
+ * @see baritone.api.Settings#pathingBidirectional
+ */
+public final class BidirectionalPathFinder extends AStarPathFinder {
+
+    private final Moves[] allMoves = Moves.values();
+
+    private final MutableMoveResult mutableMoveResult = new MutableMoveResult();
+
+    /**
+     * The positions the backward search starts from, all of which are in the goal
+     */
+    private final List<BetterBlockPos> goalPositions;
+
+    /**
+     * The backward search's heuristic is the distance to the start
+     */
+    private final Goal startGoal;
+
+    /**
+     * The backward search's nodes. Their cost is the cost to the goal, previous is the next node towards the goal,
+     * and previousMove is the move that goes there.
+     */
+    private final Long2ObjectOpenHashMap<PathNode> backwardMap;
+
+    private IOpenSet backwardOpenSet;
+
+    private int numBackwardNodes;
+
+    private int numBackwardMovements;
+
+    /**
+     * Where the cheapest path found so far crosses over from the forward search to the backward search
+     */
+    private long meetingPoint;
+
+    private double meetingCost = ActionCosts.COST_INF;
+
+    public BidirectionalPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
+        super(startX, startY, startZ, goal, favoring, context);
+        this.goalPositions = goalPositions(goal);
+        this.startGoal = new GoalBlock(startX, startY, startZ);
+        this.backwardMap = new Long2ObjectOpenHashMap<>(Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+    }
+
+    /**
+     * @param goal The goal
+     * @return Whether this can path to that goal, which has to be a small fixed set of positions
+     */
+    public static boolean supports(Goal goal) {
+        Class<?> type = goal.getClass(); // not instanceof, a subclass could have a different isInGoal
+        return type == GoalBlock.class || type == GoalTwoBlocks.class || type == GoalGetToBlock.class;
+    }
+
+    static List<BetterBlockPos> goalPositions(Goal goal) {
+        if (!supports(goal)) {
+            throw new IllegalArgumentException(goal.toString());
+        }
+        BlockPos pos = ((IGoalRenderPos) goal).getGoalPos();
+        List<BetterBlockPos> positions = new ArrayList<>();
+        // all three goals are within one block horizontally and two below to one above of their position
+        for (int y = pos.getY() - 2; y <= pos.getY() + 1; y++) {
+            for (int x = pos.getX() - 1; x <= pos.getX() + 1; x++) {
+                for (int z = pos.getZ() - 1; z <= pos.getZ() + 1; z++) {
+                    if (goal.isInGoal(x, y, z)) {
+                        positions.add(new BetterBlockPos(x, y, z));
+                    }
+                }
+            }
+        }
+        return positions;
+    }
+
+    @Override
+    double start(int batchLength) {
+        double estimatedCostToGoal = super.start(batchLength);
+        backwardOpenSet = createOpenSet(Baritone.settings().pathingOpenSet.value);
+        for (BetterBlockPos pos : goalPositions) {
+            if (!calcContext.isLoaded(pos.x, pos.z)) {
+                continue;
+            }
+            PathNode node = getBackwardNode(pos.x, pos.y, pos.z, BetterBlockPos.longHash(pos.x, pos.y, pos.z));
+            node.cost = 0;
+            node.combinedCost = node.estimatedCostToGoal;
+            backwardOpenSet.insert(node);
+        }
+        return estimatedCostToGoal;
+    }
+
+    @Override
+    void takeLowest(int slot) {
+        super.takeLowest(slot);
+        if (node(slot).combinedCost >= meetingCost) {
+            stop(); // nothing left on this side can beat the path we already have
+        }
+    }
+
+    @Override
+    void costImproved(PathNode neighbor, long hashCode) {
+        PathNode backward = backwardMap.get(hashCode);
+        if (backward != null) {
+            meet(hashCode, neighbor, backward);
+        }
+    }
+
+    /**
+     * Expands the backward side instead of the forward side whenever it has the smaller open set
+     */
+    @Override
+    boolean expandOther() {
+        if (backwardOpenSet.isEmpty() || backwardOpenSet.size() >= openSet.size()) {
+            return false;
+        }
+        PathNode currentNode = backwardOpenSet.removeLowest();
+        numBackwardNodes++;
+        if (currentNode.combinedCost >= meetingCost) {
+            stop(); // nothing left on this side can beat the path we already have
+            return true;
+        }
+        boolean isFavoring = !favoring.isEmpty();
+        for (Moves moves : allMoves) {
+            if (moves.dynamicXZ) {
+                continue;
+            }
+            // where this movement would have to start to end up here (if it doesn't go up or down more than usual)
+            int srcX = currentNode.x - moves.xOffset;
+            int srcY = currentNode.y - moves.yOffset;
+            int srcZ = currentNode.z - moves.zOffset;
+            if ((srcX >> 4 != currentNode.x >> 4 || srcZ >> 4 != currentNode.z >> 4) && !calcContext.isLoaded(srcX, srcZ)) {
+                continue;
+            }
+            if (!calcContext.worldBorder.entirelyContains(srcX, srcZ)) {
+                continue;
+            }
+            if (srcY > calcContext.bsi.height || srcY < calcContext.bsi.minY) {
+                continue;
+            }
+            mutableMoveResult.reset();
+            moves.apply(calcContext, srcX, srcY, srcZ, mutableMoveResult);
+            for (MutableMoveResult res = mutableMoveResult; res != null; res = res.getNext()) {
+                numBackwardMovements++;
+                double actionCost = res.cost;
+                if (actionCost >= ActionCosts.COST_INF || res.x != currentNode.x || res.y != currentNode.y || res.z != currentNode.z) {
+                    continue;
+                }
+                if (actionCost <= 0 || Double.isNaN(actionCost)) {
+                    throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+                }
+                if (isFavoring) {
+                    // the forward search would have favored it by where it ends up, so do the same
+                    actionCost *= favoring.calculate(BetterBlockPos.longHash(currentNode.x, currentNode.y, currentNode.z));
+                }
+                long hashCode = BetterBlockPos.longHash(srcX, srcY, srcZ);
+                PathNode neighbor = getBackwardNode(srcX, srcY, srcZ, hashCode);
+                double tentativeCost = currentNode.cost + actionCost;
+                if (neighbor.cost - tentativeCost > minimumImprovement) {
+                    neighbor.previous = currentNode;
+                    neighbor.previousMove = (byte) moves.ordinal();
+                    neighbor.cost = tentativeCost;
+                    neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
+                    if (neighbor.isOpen()) {
+                        backwardOpenSet.update(neighbor);
+                    } else {
+                        backwardOpenSet.insert(neighbor);
+                    }
+                    PathNode forward = getExistingNodeAtPosition(hashCode);
+                    if (forward != null) {
+                        meet(hashCode, forward, neighbor);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    @Override
+    void logSizes() {
+        System.out.println(numBackwardNodes + " nodes expanded backwards, considering " + numBackwardMovements + " movements");
+        System.out.println("Open set size: " + openSet.size() + " forward, " + backwardOpenSet.size() + " backward");
+        System.out.println("PathNode map size: " + mapSize() + " forward, " + backwardMap.size() + " backward");
+    }
+
+    @Override
+    Optional<IPath> finish(int numNodes) {
+        if (meetingCost < ActionCosts.COST_INF) {
+            return Optional.of(meetingPath(numNodes));
+        }
+        return super.finish(numNodes);
+    }
+
+    private void meet(long hashCode, PathNode forward, PathNode backward) {
+        if (forward.cost >= ActionCosts.COST_INF || backward.cost >= ActionCosts.COST_INF) {
+            return;
+        }
+        double cost = forward.cost + backward.cost;
+        if (cost < meetingCost) {
+            meetingCost = cost;
+            meetingPoint = hashCode;
+        }
+    }
+
+    /**
+     * The forward search's nodes up to the meeting point, then copies of the backward search's nodes from there to
+     * the goal, with their costs turned around to be from the start
+     */
+    private Path meetingPath(int numNodes) {
+        PathNode forward = getExistingNodeAtPosition(meetingPoint);
+        PathNode backward = backwardMap.get(meetingPoint);
+        PathNode end = forward;
+        for (PathNode from = backward, node = backward.previous; node != null; from = node, node = node.previous) {
+            PathNode copy = new PathNode(node.x, node.y, node.z, goal);
+            copy.cost = forward.cost + backward.cost - node.cost;
+            copy.previous = end;
+            copy.previousMove = from.previousMove;
+            end = copy;
+        }
+        return new Path(startNode, end, numNodes, goal, calcContext);
+    }
+
+    private PathNode getBackwardNode(int x, int y, int z, long hashCode) {
+        PathNode node = backwardMap.get(hashCode);
+        if (node == null) {
+            node = new PathNode(x, y, z, startGoal);
+            backwardMap.put(hashCode, node);
+        }
+        return node;
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.Baritone;
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The same A* as {@link AStarPathFinder}, but with the nodes kept in a {@link NodeStore} instead of one
+ * {@link PathNode} object each. {@link PathNode}s are only created for the nodes on a returned path.
+ * <p>
+ * The open set is always a binary heap over the node ids, so this is only used when pathingOpenSet is too, see
+ * {@link #supports(String)}.
+ *
+ * @see baritone.api.Settings#pathingCompactNodeStore
+ */
+public final class CompactAStarPathFinder extends AbstractAStarPathFinder {
+
+    private volatile NodeStore store;
+
+    private NodeHeap openSet;
+
+    private volatile int mostRecentConsideredNode = -1;
+
+    private final int[] bestSoFarNodes = new int[COEFFICIENTS.length];
+
+    /**
+     * The nodes being expanded, by batch slot
+     */
+    private int[] batch;
+
+    public CompactAStarPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context) {
+        super(startX, startY, startZ, goal, favoring, context);
+        Arrays.fill(bestSoFarNodes, -1);
+    }
+
+    /**
+     * @return Whether this can be used with that pathingOpenSet, since its own open set is always a binary heap
+     */
+    public static boolean supports(String openSetType) {
+        return AStarPathFinder.createOpenSet(openSetType) instanceof BinaryHeapOpenSet;
+    }
+
+    @Override
+    double start(int batchLength) {
+        NodeStore store = new NodeStore(goal, Baritone.settings().pathingMapDefaultSize.value, Baritone.settings().pathingMapLoadFactor.value);
+        int startId = store.getNodeAtPosition(startX, startY, startZ, BetterBlockPos.longHash(startX, startY, startZ));
+        store.setCost(startId, 0, -1, (byte) -1);
+        startNode = store.toPathNode(startId);
+        this.store = store;
+        openSet = new NodeHeap(store);
+        openSet.insert(startId);
+        batch = new int[batchLength];
+        Arrays.fill(bestSoFarNodes, startId);
+        return store.estimatedCostToGoal(startId);
+    }
+
+    @Override
+    boolean openSetIsEmpty() {
+        return openSet.isEmpty();
+    }
+
+    @Override
+    void takeLowest(int slot) {
+        int node = openSet.removeLowest();
+        batch[slot] = node;
+        batchX[slot] = store.x(node);
+        batchY[slot] = store.y(node);
+        batchZ[slot] = store.z(node);
+    }
+
+    @Override
+    void reinsert(int slot) {
+        openSet.insert(batch[slot]);
+    }
+
+    @Override
+    void considered(int slot) {
+        mostRecentConsideredNode = batch[slot];
+    }
+
+    @Override
+    Path pathTo(int slot, int numNodes) {
+        return new Path(startNode, store.toPathNode(batch[slot]), numNodes, goal, calcContext);
+    }
+
+    @Override
+    void relax(int slot, int x, int y, int z, long hashCode, double actionCost, byte move) {
+        NodeStore store = this.store;
+        int currentNode = batch[slot];
+        int neighbor = store.getNodeAtPosition(x, y, z, hashCode);
+        double tentativeCost = store.cost(currentNode) + actionCost;
+        if (store.cost(neighbor) - tentativeCost > minimumImprovement) {
+            store.setCost(neighbor, tentativeCost, currentNode, move);
+            if (store.isOpen(neighbor)) {
+                openSet.update(neighbor);
+            } else {
+                openSet.insert(neighbor);//dont double count, dont insert into open set if it's already there
+            }
+            int improved = improveBestSoFar(x, y, z, store.estimatedCostToGoal(neighbor), tentativeCost);
+            for (int i = 0; improved != 0; i++, improved >>>= 1) {
+                if ((improved & 1) != 0) {
+                    bestSoFarNodes[i] = neighbor;
+                }
+            }
+        }
+    }
+
+    @Override
+    void logSizes() {
+        System.out.println("Open set size: " + openSet.size());
+        System.out.println("Node store size: " + store.size());
+    }
+
+    @Override
+    public Optional<IPath> pathToMostRecentNodeConsidered() {
+        NodeStore store = this.store;
+        int node = mostRecentConsideredNode;
+        if (store == null || node == -1) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(store.toPathNode(node)).map(end -> new Path(startNode, end, 0, goal, calcContext));
+    }
+
+    @Override
+    protected Optional<IPath> bestSoFar(boolean logInfo, int numNodes) {
+        NodeStore store = this.store;
+        if (store == null) {
+            return Optional.empty();
+        }
+        double bestDist = 0;
+        for (int i = 0; i < COEFFICIENTS.length; i++) {
+            int node = bestSoFarNodes[i];
+            if (node == -1) {
+                continue;
+            }
+            PathNode end = store.toPathNode(node);
+            if (end == null) {
+                continue;
+            }
+            double dist = getDistFromStartSq(end);
+            if (dist > bestDist) {
+                bestDist = dist;
+            }
+            if (dist > MIN_DIST_PATH * MIN_DIST_PATH) { // square the comparison since distFromStartSq is squared
+                if (logInfo) {
+                    logBestSoFar(i, dist);
+                }
+                return Optional.of(new Path(startNode, end, numNodes, goal, calcContext));
+            }
+        }
+        if (logInfo) {
+            logNoPathFound(bestDist);
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.utils.BetterBlockPos;
+import baritone.cache.CachedWorld;
+import baritone.pathing.movement.CalculationContext;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * One segment of a long trip to a {@link GoalXZ}, planned with a {@link HierarchicalPlanner} first and then pathed to
+ * the waypoint it picks with an ordinary search
+ * <p>
+ * The planning happens here on the pathing thread, and only gets a share of the primary timeout, so a plan over
+ * chunks whose portals haven't been worked out yet can't hold anything up. The segment search gets whatever is left.
+ */
+public final class HierarchicalPathFinder extends AbstractNodeCostSearch {
+
+    /**
+     * The most of the primary timeout that planning can use, as a fraction
+     */
+    private static final double PLANNING_SHARE = 0.25;
+
+    private final CachedWorld world;
+
+    private final Function<Goal, AbstractNodeCostSearch> segmentFinder;
+
+    private volatile AbstractNodeCostSearch segment;
+
+    /**
+     * @param segmentFinder Makes the search for the segment, to the waypoint or to the goal itself if there's no plan
+     */
+    public HierarchicalPathFinder(int startX, int startY, int startZ, GoalXZ goal, CalculationContext context, CachedWorld world, Function<Goal, AbstractNodeCostSearch> segmentFinder) {
+        super(startX, startY, startZ, goal, context);
+        this.world = world;
+        this.segmentFinder = segmentFinder;
+    }
+
+    @Override
+    protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+        long startTime = System.currentTimeMillis();
+        BetterBlockPos start = new BetterBlockPos(startX, startY, startZ);
+        Optional<BetterBlockPos> waypoint = HierarchicalPlanner.waypoint(world, start, (GoalXZ) goal, startTime + (long) (primaryTimeout * PLANNING_SHARE), () -> cancelRequested);
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        AbstractNodeCostSearch segment = segmentFinder.apply(waypoint.<Goal>map(GoalBlock::new).orElse(goal));
+        this.segment = segment;
+        if (cancelRequested) {
+            return Optional.empty(); // cancel() might have missed the segment
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+        return segment.calculate0(Math.max(0, primaryTimeout - elapsed), Math.max(0, failureTimeout - elapsed));
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        AbstractNodeCostSearch segment = this.segment;
+        if (segment != null) {
+            segment.cancel();
+        }
+    }
+
+    @Override
+    public Optional<IPath> pathToMostRecentNodeConsidered() {
+        AbstractNodeCostSearch segment = this.segment;
+        return segment == null ? Optional.empty() : segment.pathToMostRecentNodeConsidered();
+    }
+
+    @Override
+    public Optional<IPath> bestPathSoFar() {
+        AbstractNodeCostSearch segment = this.segment;
+        return segment == null ? Optional.empty() : segment.bestPathSoFar();
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.GoalXZ;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.api.utils.Helper;
+import baritone.cache.CachedWorld;
+import baritone.cache.ChunkPortals;
+import baritone.pathing.calc.openset.BinaryHeapOpenSet;
+import baritone.pathing.calc.openset.IOpenSet;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Plans a long trip across cached chunks a chunk at a time, to pick where the next path segment should go
+ * <p>
+ * This is A* over {@link ChunkPortals}: the nodes are chunk entrances, and the edges are the precalculated costs
+ * between entrances of the same chunk plus the single step from an entrance into the next chunk over. That's a few
+ * dozen nodes per chunk instead of tens of thousands of blocks, so it can go thousands of blocks in a few
+ * milliseconds. Each segment is then an ordinary A* search to an entrance a little way along this route, instead
+ * of towards the goal in a straight line with nothing to go on but the heuristic. It runs on the pathing thread as
+ * part of a {@link HierarchicalPathFinder}.
+ *
+ * @see baritone.api.Settings#pathingHierarchical
+ */
+public final class HierarchicalPlanner implements Helper {
+
+    /**
+     * How far along the route (in a straight line from the start) the waypoint for the next segment can be
+     */
+    public static final int SEGMENT_LENGTH = 160;
+
+    /**
+     * Give up on planning after this many entrances, and go with the one that got closest to the goal
+     */
+    private static final int MAX_NODES = 200_000;
+
+    private final CachedWorld world;
+
+    private final BetterBlockPos start;
+
+    private final GoalXZ goal;
+
+    private final long deadline;
+
+    private final BooleanSupplier cancelled;
+
+    private final Long2ObjectOpenHashMap<PathNode> map = new Long2ObjectOpenHashMap<>();
+
+    private HierarchicalPlanner(CachedWorld world, BetterBlockPos start, GoalXZ goal, long deadline, BooleanSupplier cancelled) {
+        this.world = world;
+        this.start = start;
+        this.goal = goal;
+        this.deadline = deadline;
+        this.cancelled = cancelled;
+    }
+
+    /**
+     * Picks where the next path segment towards a far away goal should end up
+     *
+     * @param world The cached world to plan over
+     * @param start Where the segment starts
+     * @param goal      The goal
+     * @param deadline  When to stop planning and go with the entrance that got closest to the goal so far
+     * @param cancelled Whether the path calculation this is for was cancelled
+     * @return Somewhere along the planned route, up to {@link #SEGMENT_LENGTH} blocks from the start, or empty if
+     * the goal is close, or there's no plan because the cache doesn't go anywhere useful
+     */
+    public static Optional<BetterBlockPos> waypoint(CachedWorld world, BetterBlockPos start, GoalXZ goal, long deadline, BooleanSupplier cancelled) {
+        int xDiff = goal.getX() - start.x;
+        int zDiff = goal.getZ() - start.z;
+        if (xDiff * (double) xDiff + zDiff * (double) zDiff < 4.0 * SEGMENT_LENGTH * SEGMENT_LENGTH) {
+            return Optional.empty(); // close enough for ordinary segments to handle fine
+        }
+        return new HierarchicalPlanner(world, start, goal, deadline, cancelled).plan();
+    }
+
+    private Optional<BetterBlockPos> plan() {
+        long startTime = System.currentTimeMillis();
+        PathNode startNode = getNode(start.x, start.y, start.z);
+        startNode.cost = 0;
+        startNode.combinedCost = startNode.estimatedCostToGoal;
+        IOpenSet openSet = new BinaryHeapOpenSet();
+        openSet.insert(startNode);
+        PathNode best = startNode;
+        int goalChunkX = goal.getX() >> 4;
+        int goalChunkZ = goal.getZ() >> 4;
+        int numNodes = 0;
+        while (!openSet.isEmpty() && numNodes < MAX_NODES) {
+            if ((numNodes & 63) == 0 && (System.currentTimeMillis() - deadline >= 0 || cancelled.getAsBoolean())) {
+                break; // out of time, a chunk whose portals weren't worked out yet can take a while
+            }
+            PathNode currentNode = openSet.removeLowest();
+            numNodes++;
+            if (currentNode.estimatedCostToGoal < best.estimatedCostToGoal) {
+                best = currentNode;
+            }
+            if (currentNode.x >> 4 == goalChunkX && currentNode.z >> 4 == goalChunkZ) {
+                best = currentNode;
+                break;
+            }
+            ChunkPortals portals = world.getPortals(currentNode.x >> 4, currentNode.z >> 4);
+            if (portals == null) {
+                continue;
+            }
+            int entrance = portals.entranceAt(currentNode.x, currentNode.y, currentNode.z);
+            double[] fromStart = null;
+            if (currentNode == startNode) {
+                fromStart = portals.costsFrom(currentNode.x, currentNode.y, currentNode.z);
+                if (fromStart == null) {
+                    continue; // the cache doesn't think you can stand here, so it can't help
+                }
+            } else if (entrance == -1) {
+                continue; // the chunk was cached again, and this isn't an entrance anymore
+            }
+            for (int i = 0; i < portals.numEntrances(); i++) {
+                double cost = fromStart != null ? fromStart[i] : portals.cost(entrance, i);
+                if (i != entrance && cost < ActionCosts.COST_INF) {
+                    relax(openSet, currentNode, portals.entranceX(i), portals.entranceY(i), portals.entranceZ(i), cost);
+                }
+            }
+            if (entrance != -1) {
+                for (int exit = 0; exit < portals.numExits(); exit++) {
+                    if (portals.exitFrom(exit) == entrance) {
+                        relax(openSet, currentNode, portals.exitX(exit), portals.exitY(exit), portals.exitZ(exit), portals.exitCost(exit));
+                    }
+                }
+            }
+        }
+        logDebug("Planned over " + numNodes + " chunk entrances in " + (System.currentTimeMillis() - startTime) + "ms");
+        // walk back from the end of the route to the last entrance that's still within reach of one segment
+        PathNode waypoint = null;
+        for (PathNode node = best; node != null && node != startNode; node = node.previous) {
+            int dx = node.x - start.x;
+            int dz = node.z - start.z;
+            if (dx * dx + dz * dz <= SEGMENT_LENGTH * SEGMENT_LENGTH) {
+                waypoint = node;
+                break;
+            }
+        }
+        if (waypoint == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new BetterBlockPos(waypoint.x, waypoint.y, waypoint.z));
+    }
+
+    private void relax(IOpenSet openSet, PathNode currentNode, int x, int y, int z, double cost) {
+        PathNode neighbor = getNode(x, y, z);
+        double tentativeCost = currentNode.cost + cost;
+        if (tentativeCost < neighbor.cost) {
+            neighbor.previous = currentNode;
+            neighbor.cost = tentativeCost;
+            neighbor.combinedCost = tentativeCost + neighbor.estimatedCostToGoal;
+            if (neighbor.isOpen()) {
+                openSet.update(neighbor);
+            } else {
+                openSet.insert(neighbor);
+            }
+        }
+    }
+
+    private PathNode getNode(int x, int y, int z) {
+        long hashCode = BetterBlockPos.longHash(x, y, z);
+        PathNode node = map.get(hashCode);
+        if (node == null) {
+            node = new PathNode(x, y, z, goal);
+            map.put(hashCode, node);
+        }
+        return node;
+    }
+}
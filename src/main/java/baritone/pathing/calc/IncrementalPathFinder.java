@@ -0,0 +1,96 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.calc.IPath;
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.pathing.Favoring;
+
+import java.util.Optional;
+
+/**
+ * One path calculation using an {@link IncrementalSearch}, which outlives it
+ * <p>
+ * If the incremental search can't get to the start in its share of the time (or at all, since it doesn't do parkour
+ * or long falls), this falls back to an ordinary {@link AStarPathFinder} for whatever time is left.
+ */
+public final class IncrementalPathFinder extends AbstractNodeCostSearch {
+
+    /**
+     * The most of the primary timeout that the incremental search can use, as a fraction
+     */
+    private static final double INCREMENTAL_SHARE = 0.5;
+
+    private final IncrementalSearch search;
+    private final Favoring favoring;
+    private final CalculationContext calcContext;
+
+    private volatile AStarPathFinder fallback;
+
+    public IncrementalPathFinder(int startX, int startY, int startZ, Goal goal, Favoring favoring, CalculationContext context, IncrementalSearch search) {
+        super(startX, startY, startZ, goal, context);
+        this.search = search;
+        this.favoring = favoring;
+        this.calcContext = context;
+    }
+
+    @Override
+    protected Optional<IPath> calculate0(long primaryTimeout, long failureTimeout) {
+        long startTime = System.currentTimeMillis();
+        BetterBlockPos start = new BetterBlockPos(startX, startY, startZ);
+        int previousSize = search.size();
+        if (search.computeShortestPath(calcContext, start, startTime + (long) (primaryTimeout * INCREMENTAL_SHARE), () -> cancelRequested)) {
+            PathNode end = search.extractPath(calcContext, start);
+            if (end != null) {
+                logDebug("Incremental replan took " + (System.currentTimeMillis() - startTime) + "ms, " + search.numExpanded + " nodes expanded, " + (search.size() - previousSize) + " new");
+                startNode = new PathNode(startX, startY, startZ, goal);
+                return Optional.of(new Path(startNode, end, search.numExpanded, goal, calcContext));
+            }
+        }
+        if (cancelRequested) {
+            return Optional.empty();
+        }
+        long elapsed = System.currentTimeMillis() - startTime;
+        logDebug("Incremental replan didn't find a path in " + elapsed + "ms, falling back to A*");
+        fallback = new AStarPathFinder(startX, startY, startZ, goal, favoring, calcContext);
+        return fallback.calculate0(Math.max(0, primaryTimeout - elapsed), Math.max(0, failureTimeout - elapsed));
+    }
+
+    @Override
+    public void cancel() {
+        super.cancel();
+        AStarPathFinder fallback = this.fallback;
+        if (fallback != null) {
+            fallback.cancel();
+        }
+    }
+
+    @Override
+    public Optional<IPath> pathToMostRecentNodeConsidered() {
+        AStarPathFinder fallback = this.fallback;
+        return fallback == null ? Optional.empty() : fallback.pathToMostRecentNodeConsidered();
+    }
+
+    @Override
+    public Optional<IPath> bestPathSoFar() {
+        AStarPathFinder fallback = this.fallback;
+        return fallback == null ? Optional.empty() : fallback.bestPathSoFar();
+    }
+}
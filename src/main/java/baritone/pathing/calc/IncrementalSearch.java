@@ -0,0 +1,602 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.MutableMoveResult;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BooleanSupplier;
+
+/**
+ * D* Lite towards one goal, kept around between path calculations so that a replan only has to repair the part of
+ * the search that changed
+ * <p>
+ * The search goes backwards, from the goal to wherever the player is, so the player moving along the path doesn't
+ * invalidate anything. When blocks change, every position whose movements could touch those blocks has its cost to
+ * the goal worked out again from its successors, and only the positions whose cost actually changed (and the ones
+ * that depended on them) get expanded again.
+ * <p>
+ * Edges are the same as the backward half of {@link BidirectionalPathFinder}: every movement with a fixed offset,
+ * that lands where that offset says. Parkour, falls further than a descend, and favoring aren't included, and costs
+ * are always what the movement costs right now, so anything other than block changes that changes costs (like
+ * running out of throwaway blocks) isn't picked up until the goal changes. Chunks loading or unloading count as all
+ * of their blocks changing, as far as the movements next to their edges go.
+ * <p>
+ * Once the search has seen more than {@link #MAX_NODES} positions, it starts over from scratch on the next replan.
+ *
+ * @see baritone.api.Settings#pathingIncremental
+ */
+public final class IncrementalSearch {
+
+    /**
+     * How far a movement looks from where it starts: up to two blocks away horizontally, from two below the feet
+     * (what a descend lands on) to three above (head room for jumping up a block, and anything that could fall in)
+     */
+    private static final int CHANGE_RADIUS = 2;
+    private static final int CHANGE_BELOW = 2;
+    private static final int CHANGE_ABOVE = 3;
+
+    /**
+     * The most positions to remember, past this the memory is worth more than what a repair saves over a new search
+     */
+    static final int MAX_NODES = 500_000;
+
+    private final Goal goal;
+
+    private final Level world;
+
+    private final List<BetterBlockPos> goalPositions;
+
+    private final Long2ObjectOpenHashMap<Node> map = new Long2ObjectOpenHashMap<>();
+
+    private final ConcurrentLinkedQueue<BlockPos> changedBlocks = new ConcurrentLinkedQueue<>();
+
+    private final ConcurrentLinkedQueue<Long> changedChunks = new ConcurrentLinkedQueue<>();
+
+    private final MutableMoveResult mutableMoveResult = new MutableMoveResult();
+
+    private Node[] heap = new Node[1024];
+
+    private int heapSize;
+
+    private double km;
+
+    private BetterBlockPos lastStart;
+
+    private volatile boolean initialized;
+
+    /**
+     * How many nodes the most recent {@link #computeShortestPath} expanded
+     */
+    int numExpanded;
+
+    public IncrementalSearch(Goal goal, Level world) {
+        this.goal = goal;
+        this.world = world;
+        this.goalPositions = BidirectionalPathFinder.goalPositions(goal);
+    }
+
+    /**
+     * @return Whether this search can be reused to path to this goal with this context
+     */
+    public boolean matches(Goal goal, CalculationContext context) {
+        return this.goal.equals(goal) && this.world == context.world;
+    }
+
+    public Goal getGoal() {
+        return goal;
+    }
+
+    /**
+     * Called from the game thread whenever blocks change, these are processed at the start of the next replan
+     *
+     * @param positions The blocks that changed
+     */
+    public void blocksChanged(List<BlockPos> positions) {
+        if (initialized) {
+            changedBlocks.addAll(positions);
+        }
+    }
+
+    /**
+     * Called from the game thread whenever a chunk loads or unloads, this is processed at the start of the next replan
+     * <p>
+     * Movements into a chunk that wasn't loaded cost {@link ActionCosts#COST_INF}, and nothing else would ever look
+     * at them again.
+     */
+    public void chunkChanged(int chunkX, int chunkZ) {
+        if (initialized) {
+            changedChunks.add(ChunkPos.asLong(chunkX, chunkZ));
+        }
+    }
+
+    /**
+     * Brings the search up to date with the blocks that changed and the new start, then expands until the start's
+     * cost to the goal is known
+     *
+     * @param deadline  When to give up, in {@link System#currentTimeMillis()}
+     * @param cancelled Whether the calculation was cancelled
+     * @return Whether there's now a path from the start to the goal
+     */
+    synchronized boolean computeShortestPath(CalculationContext context, BetterBlockPos start, long deadline, BooleanSupplier cancelled) {
+        numExpanded = 0;
+        if (map.size() > MAX_NODES) {
+            reset();
+        }
+        if (!initialized) {
+            for (BetterBlockPos pos : goalPositions) {
+                Node node = getNode(pos.x, pos.y, pos.z);
+                node.isGoal = true;
+                node.rhs = 0;
+                updateVertex(node, start);
+            }
+            initialized = true;
+        } else if (!start.equals(lastStart)) {
+            km += heuristic(lastStart, start.x, start.y, start.z);
+        }
+        lastStart = start;
+        repairChangedBlocks(context, start);
+        repairChangedChunks(context, start);
+        Node startNode = getNode(start.x, start.y, start.z);
+        BetterWorldBorder worldBorder = context.worldBorder;
+        int minY = context.bsi.minY;
+        int height = context.bsi.height;
+        Moves[] allMoves = Moves.values();
+        while (heapSize > 0 && (compare(heap[1], key1(startNode, start), key2(startNode)) < 0 || startNode.rhs > startNode.g)) {
+            if ((numExpanded & 63) == 0 && (System.currentTimeMillis() - deadline >= 0 || cancelled.getAsBoolean() || map.size() > MAX_NODES)) {
+                return false;
+            }
+            numExpanded++;
+            Node u = heap[1];
+            double newKey1 = key1(u, start);
+            double newKey2 = key2(u);
+            if (u.key1 < newKey1 || (u.key1 == newKey1 && u.key2 < newKey2)) {
+                u.key1 = newKey1;
+                u.key2 = newKey2;
+                siftDown(u.heapPosition);
+                continue;
+            }
+            boolean lowered = u.g > u.rhs;
+            double oldG = u.g;
+            if (lowered) {
+                u.g = u.rhs;
+                remove(u);
+            } else {
+                u.g = ActionCosts.COST_INF;
+                if (!u.isGoal) {
+                    u.rhs = bestSuccessor(context, u, worldBorder, minY, height);
+                }
+                updateVertex(u, start);
+            }
+            // go through everything that can get to u
+            for (Moves moves : allMoves) {
+                if (moves.dynamicXZ) {
+                    continue;
+                }
+                int srcX = u.x - moves.xOffset;
+                int srcY = u.y - moves.yOffset;
+                int srcZ = u.z - moves.zOffset;
+                double cost = edgeCost(context, moves, srcX, srcY, srcZ, u.x, u.y, u.z, worldBorder, minY, height);
+                if (cost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                Node s = getNode(srcX, srcY, srcZ);
+                if (s.isGoal) {
+                    continue;
+                }
+                if (lowered) {
+                    if (cost + u.g < s.rhs) {
+                        s.rhs = cost + u.g;
+                        updateVertex(s, start);
+                    }
+                } else if (s.rhs == cost + oldG) {
+                    // s might have been going through u, which just got more expensive
+                    s.rhs = bestSuccessor(context, s, worldBorder, minY, height);
+                    updateVertex(s, start);
+                }
+            }
+        }
+        return startNode.g < ActionCosts.COST_INF && startNode.rhs == startNode.g;
+    }
+
+    /**
+     * Follows the cheapest successor from the start to the goal. Only valid right after {@link #computeShortestPath}
+     * returned true.
+     *
+     * @return The end of the path, as a chain of nodes back to the start with costs from the start, or null if it got
+     * lost
+     */
+    synchronized PathNode extractPath(CalculationContext context, BetterBlockPos start) {
+        BetterWorldBorder worldBorder = context.worldBorder;
+        int minY = context.bsi.minY;
+        int height = context.bsi.height;
+        PathNode current = new PathNode(start.x, start.y, start.z, goal);
+        current.cost = 0;
+        Node node = map.get(BetterBlockPos.longHash(start.x, start.y, start.z));
+        for (int steps = 0; node != null && !node.isGoal; steps++) {
+            if (steps > map.size()) {
+                return null; // going around in circles
+            }
+            Node best = null;
+            Moves bestMove = null;
+            double bestCost = ActionCosts.COST_INF;
+            double bestTotal = ActionCosts.COST_INF;
+            for (Moves moves : Moves.values()) {
+                if (moves.dynamicXZ) {
+                    continue;
+                }
+                int destX = node.x + moves.xOffset;
+                int destY = node.y + moves.yOffset;
+                int destZ = node.z + moves.zOffset;
+                double cost = edgeCost(context, moves, node.x, node.y, node.z, destX, destY, destZ, worldBorder, minY, height);
+                if (cost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                Node next = map.get(BetterBlockPos.longHash(destX, destY, destZ));
+                if (next != null && cost + next.g < bestTotal) {
+                    best = next;
+                    bestMove = moves;
+                    bestCost = cost;
+                    bestTotal = cost + next.g;
+                }
+            }
+            if (best == null) {
+                return null;
+            }
+            PathNode step = new PathNode(best.x, best.y, best.z, goal);
+            step.cost = current.cost + bestCost;
+            step.previous = current;
+            step.previousMove = (byte) bestMove.ordinal();
+            current = step;
+            node = best;
+        }
+        return node == null ? null : current;
+    }
+
+    synchronized int size() {
+        return map.size();
+    }
+
+    /**
+     * Forgets everything, so the next {@link #computeShortestPath} starts over from the goal
+     */
+    private void reset() {
+        map.clear();
+        map.trim();
+        heap = new Node[1024];
+        heapSize = 0;
+        km = 0;
+        lastStart = null;
+        initialized = false;
+        changedBlocks.clear();
+        changedChunks.clear();
+    }
+
+    /**
+     * Every position whose movements could have looked at a changed block gets its cost to the goal recalculated
+     */
+    private void repairChangedBlocks(CalculationContext context, BetterBlockPos start) {
+        if (changedBlocks.isEmpty()) {
+            return;
+        }
+        BetterWorldBorder worldBorder = context.worldBorder;
+        int minY = context.bsi.minY;
+        int height = context.bsi.height;
+        LongOpenHashSet seen = new LongOpenHashSet();
+        BlockPos changed;
+        while ((changed = changedBlocks.poll()) != null) {
+            for (int x = changed.getX() - CHANGE_RADIUS; x <= changed.getX() + CHANGE_RADIUS; x++) {
+                for (int z = changed.getZ() - CHANGE_RADIUS; z <= changed.getZ() + CHANGE_RADIUS; z++) {
+                    for (int y = changed.getY() - CHANGE_ABOVE; y <= changed.getY() + CHANGE_BELOW; y++) {
+                        long hashCode = BetterBlockPos.longHash(x, y, z);
+                        if (!seen.add(hashCode)) {
+                            continue;
+                        }
+                        Node node = map.get(hashCode);
+                        if (node != null && node.isGoal) {
+                            continue;
+                        }
+                        double rhs = bestSuccessor(context, x, y, z, worldBorder, minY, height);
+                        if (node == null) {
+                            if (rhs >= ActionCosts.COST_INF) {
+                                continue; // nowhere we've been, and still can't get anywhere from here
+                            }
+                            node = getNode(x, y, z); // a movement from here just became possible
+                        }
+                        node.rhs = rhs;
+                        updateVertex(node, start);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Every position next to or in a chunk that loaded or unloaded gets its cost to the goal recalculated, and every
+     * position that can now get to one we know the cost from is added
+     */
+    private void repairChangedChunks(CalculationContext context, BetterBlockPos start) {
+        if (changedChunks.isEmpty()) {
+            return;
+        }
+        LongOpenHashSet chunks = new LongOpenHashSet();
+        Long chunk;
+        while ((chunk = changedChunks.poll()) != null) {
+            chunks.add((long) chunk);
+        }
+        List<Node> affected = new ArrayList<>();
+        for (Node node : map.values()) {
+            if (!node.isGoal && nearChunk(chunks, node.x, node.z)) {
+                affected.add(node);
+            }
+        }
+        BetterWorldBorder worldBorder = context.worldBorder;
+        int minY = context.bsi.minY;
+        int height = context.bsi.height;
+        for (Node node : affected) {
+            if (node.g >= ActionCosts.COST_INF) {
+                continue;
+            }
+            // these weren't looked at when this was expanded, if they were in a chunk that wasn't loaded
+            for (Moves moves : Moves.values()) {
+                if (moves.dynamicXZ) {
+                    continue;
+                }
+                int srcX = node.x - moves.xOffset;
+                int srcY = node.y - moves.yOffset;
+                int srcZ = node.z - moves.zOffset;
+                if (map.containsKey(BetterBlockPos.longHash(srcX, srcY, srcZ))) {
+                    continue; // either nearby too, and recalculated below, or too far for the chunk to matter
+                }
+                double cost = edgeCost(context, moves, srcX, srcY, srcZ, node.x, node.y, node.z, worldBorder, minY, height);
+                if (cost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                Node src = getNode(srcX, srcY, srcZ);
+                src.rhs = Math.min(src.rhs, cost + node.g);
+                updateVertex(src, start);
+            }
+        }
+        for (Node node : affected) {
+            node.rhs = bestSuccessor(context, node, worldBorder, minY, height);
+            updateVertex(node, start);
+        }
+    }
+
+    /**
+     * @return Whether a movement from x, z could look at anything in one of these chunks
+     */
+    private static boolean nearChunk(LongOpenHashSet chunks, int x, int z) {
+        for (int dx = -CHANGE_RADIUS; dx <= CHANGE_RADIUS; dx += CHANGE_RADIUS) {
+            for (int dz = -CHANGE_RADIUS; dz <= CHANGE_RADIUS; dz += CHANGE_RADIUS) {
+                if (chunks.contains(ChunkPos.asLong((x + dx) >> 4, (z + dz) >> 4))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private double bestSuccessor(CalculationContext context, Node node, BetterWorldBorder worldBorder, int minY, int height) {
+        return bestSuccessor(context, node.x, node.y, node.z, worldBorder, minY, height);
+    }
+
+    /**
+     * @return The cheapest way to the goal from here, through anything we already know the cost to the goal from
+     */
+    private double bestSuccessor(CalculationContext context, int x, int y, int z, BetterWorldBorder worldBorder, int minY, int height) {
+        double best = ActionCosts.COST_INF;
+        for (Moves moves : Moves.values()) {
+            if (moves.dynamicXZ) {
+                continue;
+            }
+            int destX = x + moves.xOffset;
+            int destY = y + moves.yOffset;
+            int destZ = z + moves.zOffset;
+            Node next = map.get(BetterBlockPos.longHash(destX, destY, destZ));
+            if (next == null || next.g >= ActionCosts.COST_INF) {
+                continue;
+            }
+            double cost = edgeCost(context, moves, x, y, z, destX, destY, destZ, worldBorder, minY, height);
+            if (cost + next.g < best) {
+                best = cost + next.g;
+            }
+        }
+        return Math.min(best, ActionCosts.COST_INF);
+    }
+
+    /**
+     * @return What it costs to do this movement from src, if it ends up at dest, otherwise {@link ActionCosts#COST_INF}
+     */
+    private double edgeCost(CalculationContext context, Moves moves, int srcX, int srcY, int srcZ, int destX, int destY, int destZ, BetterWorldBorder worldBorder, int minY, int height) {
+        if (srcY > height || srcY < minY || destY > height || destY < minY) {
+            return ActionCosts.COST_INF;
+        }
+        if (!context.isLoaded(srcX, srcZ) || !context.isLoaded(destX, destZ)) {
+            return ActionCosts.COST_INF;
+        }
+        if (!worldBorder.entirelyContains(srcX, srcZ) || !worldBorder.entirelyContains(destX, destZ)) {
+            return ActionCosts.COST_INF;
+        }
+        mutableMoveResult.reset();
+        moves.apply(context, srcX, srcY, srcZ, mutableMoveResult);
+        for (MutableMoveResult res = mutableMoveResult; res != null; res = res.getNext()) {
+            if (res.cost < ActionCosts.COST_INF && res.x == destX && res.y == destY && res.z == destZ) {
+                if (res.cost <= 0 || Double.isNaN(res.cost)) {
+                    throw new IllegalStateException(moves + " calculated implausible cost " + res.cost);
+                }
+                return res.cost;
+            }
+        }
+        return ActionCosts.COST_INF;
+    }
+
+    private Node getNode(int x, int y, int z) {
+        long hashCode = BetterBlockPos.longHash(x, y, z);
+        Node node = map.get(hashCode);
+        if (node == null) {
+            node = new Node(x, y, z);
+            map.put(hashCode, node);
+        }
+        return node;
+    }
+
+    /**
+     * The usual D* Lite priority: cost to the goal plus the estimated cost from the start, plus how far the start
+     * has moved since the search began
+     */
+    private double key1(Node node, BetterBlockPos start) {
+        return Math.min(node.g, node.rhs) + heuristic(start, node.x, node.y, node.z) + km;
+    }
+
+    private static double key2(Node node) {
+        return Math.min(node.g, node.rhs);
+    }
+
+    private static double heuristic(BetterBlockPos from, int x, int y, int z) {
+        return GoalBlock.calculate(from.x - x, from.y - y, from.z - z);
+    }
+
+    private void updateVertex(Node node, BetterBlockPos start) {
+        boolean inconsistent = node.g != node.rhs;
+        if (inconsistent) {
+            node.key1 = key1(node, start);
+            node.key2 = key2(node);
+            if (node.heapPosition == -1) {
+                insert(node);
+            } else {
+                siftUp(node.heapPosition);
+                siftDown(node.heapPosition);
+            }
+        } else if (node.heapPosition != -1) {
+            remove(node);
+        }
+    }
+
+    private static int compare(Node node, double key1, double key2) {
+        if (node.key1 != key1) {
+            return node.key1 < key1 ? -1 : 1;
+        }
+        return Double.compare(node.key2, key2);
+    }
+
+    private static boolean less(Node a, Node b) {
+        return compare(a, b.key1, b.key2) < 0;
+    }
+
+    private void insert(Node node) {
+        if (heapSize >= heap.length - 1) {
+            heap = Arrays.copyOf(heap, heap.length << 1);
+        }
+        heapSize++;
+        heap[heapSize] = node;
+        node.heapPosition = heapSize;
+        siftUp(heapSize);
+    }
+
+    private void remove(Node node) {
+        int index = node.heapPosition;
+        Node last = heap[heapSize];
+        heap[heapSize] = null;
+        heapSize--;
+        node.heapPosition = -1;
+        if (index <= heapSize) {
+            heap[index] = last;
+            last.heapPosition = index;
+            siftUp(index);
+            siftDown(last.heapPosition);
+        }
+    }
+
+    private void siftUp(int index) {
+        Node node = heap[index];
+        while (index > 1 && less(node, heap[index >>> 1])) {
+            heap[index] = heap[index >>> 1];
+            heap[index].heapPosition = index;
+            index >>>= 1;
+        }
+        heap[index] = node;
+        node.heapPosition = index;
+    }
+
+    private void siftDown(int index) {
+        Node node = heap[index];
+        while (true) {
+            int child = index << 1;
+            if (child > heapSize) {
+                break;
+            }
+            if (child < heapSize && less(heap[child + 1], heap[child])) {
+                child++;
+            }
+            if (!less(heap[child], node)) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].heapPosition = index;
+            index = child;
+        }
+        heap[index] = node;
+        node.heapPosition = index;
+    }
+
+    private static final class Node {
+
+        final int x;
+        final int y;
+        final int z;
+
+        /**
+         * The cost to the goal as of the last time this was expanded
+         */
+        double g = ActionCosts.COST_INF;
+
+        /**
+         * The cost to the goal through the best successor, as far as we know now
+         */
+        double rhs = ActionCosts.COST_INF;
+
+        double key1;
+        double key2;
+
+        int heapPosition = -1;
+
+        boolean isGoal;
+
+        Node(int x, int y, int z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+}
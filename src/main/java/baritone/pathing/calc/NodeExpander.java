@@ -0,0 +1,106 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.movement.ActionCosts;
+import baritone.pathing.movement.CalculationContext;
+import baritone.pathing.movement.Moves;
+import baritone.utils.pathing.BetterWorldBorder;
+import baritone.utils.pathing.MutableMoveResult;
+
+/**
+ * Calculates every movement out of one node, either on the pathing thread or on one of the workers of a
+ * {@link ParallelExpander}
+ */
+final class NodeExpander {
+
+    private final CalculationContext context;
+
+    private final BetterWorldBorder worldBorder;
+
+    private final int minY;
+
+    private final int height;
+
+    private final Moves[] allMoves = Moves.values();
+
+    private final MutableMoveResult mutableMoveResult = new MutableMoveResult();
+
+    int numMovementsConsidered;
+
+    int numEmptyChunk;
+
+    NodeExpander(CalculationContext context) {
+        this.context = context;
+        this.worldBorder = context.worldBorder;
+        this.minY = context.bsi.minY;
+        this.height = context.bsi.height;
+    }
+
+    /**
+     * Passes every movement out of x, y, z that isn't impossible to the sink, in the order of {@link Moves}
+     */
+    void expand(int x, int y, int z, Sink sink) {
+        for (Moves moves : allMoves) {
+            int newX = x + moves.xOffset;
+            int newZ = z + moves.zOffset;
+            if ((newX >> 4 != x >> 4 || newZ >> 4 != z >> 4) && !context.isLoaded(newX, newZ)) {
+                // only need to check if the destination is a loaded chunk if it's in a different chunk than the start of the movement
+                if (!moves.dynamicXZ) { // only increment the counter if the movement would have gone out of bounds guaranteed
+                    numEmptyChunk++;
+                }
+                continue;
+            }
+            if (!moves.dynamicXZ && !worldBorder.entirelyContains(newX, newZ)) {
+                continue;
+            }
+            if (y + moves.yOffset > height || y + moves.yOffset < minY) {
+                continue;
+            }
+            mutableMoveResult.reset();
+            moves.apply(context, x, y, z, mutableMoveResult);
+            for (MutableMoveResult res = mutableMoveResult; res != null; res = res.getNext()) {
+                numMovementsConsidered++;
+                double actionCost = res.cost;
+                if (actionCost >= ActionCosts.COST_INF) {
+                    continue;
+                }
+                if (actionCost <= 0 || Double.isNaN(actionCost)) {
+                    throw new IllegalStateException(moves + " calculated implausible cost " + actionCost);
+                }
+                // check destination after verifying it's not COST_INF -- some movements return a static IMPOSSIBLE object with COST_INF and destination being 0,0,0 to avoid allocating a new result for every failed calculation
+                if (moves.dynamicXZ && !worldBorder.entirelyContains(res.x, res.z)) { // see issue #218
+                    continue;
+                }
+                if (!moves.dynamicXZ && (res.x != newX || res.z != newZ)) {
+                    throw new IllegalStateException(moves + " " + res.x + " " + newX + " " + res.z + " " + newZ);
+                }
+                sink.accept(res.x, res.y, res.z, actionCost, (byte) moves.ordinal());
+            }
+        }
+    }
+
+    /**
+     * Where the movements out of a node go
+     */
+    @FunctionalInterface
+    interface Sink {
+
+        void accept(int x, int y, int z, double actionCost, byte move);
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import java.util.Arrays;
+
+/**
+ * {@link baritone.pathing.calc.openset.BinaryHeapOpenSet}, but over the node ids of a {@link NodeStore}
+ * <p>
+ * The combined cost of each entry is kept next to it in the heap, so sifting only touches the store to
+ * update heap positions.
+ */
+final class NodeHeap {
+
+    /**
+     * The initial capacity of the heap (2^10)
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final NodeStore store;
+
+    /**
+     * The node ids in the heap, 1 indexed
+     */
+    private int[] nodes;
+
+    /**
+     * The combined cost of the node at the same index in {@link #nodes}
+     */
+    private double[] costs;
+
+    /**
+     * The size of the heap
+     */
+    private int size;
+
+    NodeHeap(NodeStore store) {
+        this.store = store;
+        this.nodes = new int[INITIAL_CAPACITY];
+        this.costs = new double[INITIAL_CAPACITY];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void insert(int node) {
+        if (size >= nodes.length - 1) {
+            nodes = Arrays.copyOf(nodes, nodes.length << 1);
+            costs = Arrays.copyOf(costs, costs.length << 1);
+        }
+        size++;
+        siftUp(node, size);
+    }
+
+    /**
+     * The combined cost of this node went down, move it up the heap to match
+     */
+    void update(int node) {
+        siftUp(node, store.heapPosition(node));
+    }
+
+    private void siftUp(int node, int index) {
+        double cost = store.combinedCost(node);
+        int parentInd = index >>> 1;
+        while (index > 1 && costs[parentInd] > cost) {
+            int parentNode = nodes[parentInd];
+            nodes[index] = parentNode;
+            costs[index] = costs[parentInd];
+            store.setHeapPosition(parentNode, index);
+            index = parentInd;
+            parentInd = index >>> 1;
+        }
+        nodes[index] = node;
+        costs[index] = cost;
+        store.setHeapPosition(node, index);
+    }
+
+    int removeLowest() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        int result = nodes[1];
+        int val = nodes[size];
+        double cost = costs[size];
+        size--;
+        store.setHeapPosition(result, -1);
+        if (size == 0) {
+            return result;
+        }
+        int index = 1;
+        int smallerChild = 2;
+        while (smallerChild <= size) {
+            double smallerChildCost = costs[smallerChild];
+            if (smallerChild < size && smallerChildCost > costs[smallerChild + 1]) {
+                smallerChild++;
+                smallerChildCost = costs[smallerChild];
+            }
+            if (cost <= smallerChildCost) {
+                break;
+            }
+            int smallerChildNode = nodes[smallerChild];
+            nodes[index] = smallerChildNode;
+            costs[index] = smallerChildCost;
+            store.setHeapPosition(smallerChildNode, index);
+            index = smallerChild;
+            smallerChild <<= 1;
+        }
+        nodes[index] = val;
+        costs[index] = cost;
+        store.setHeapPosition(val, index);
+        return result;
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.movement.ActionCosts;
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.util.Arrays;
+
+/**
+ * All the nodes of one search, as parallel primitive arrays addressed by an int node id instead of one
+ * {@link PathNode} object each. The fields have the same meaning as the ones in {@link PathNode}, with
+ * {@code previous} being the id of the previous node or -1.
+ * <p>
+ * The arrays are split into fixed size pages so that growing never copies (or throws away) what's already there,
+ * and positions are looked up through an open addressed {@code long -> int} table keyed on
+ * {@link baritone.api.utils.BetterBlockPos#longHash(int, int, int)}. A search allocates nothing per node.
+ */
+final class NodeStore {
+
+    private static final int PAGE_SHIFT = 12;
+    private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+    private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+    private final Goal goal;
+
+    /**
+     * Number of nodes in the store, node ids are {@code 0 .. size-1}
+     */
+    private volatile int size;
+
+    private int[][] x;
+    private int[][] y;
+    private int[][] z;
+    private double[][] estimatedCostToGoal;
+    private double[][] cost;
+    private double[][] combinedCost;
+    private int[][] previous;
+    private byte[][] previousMove;
+    private int[][] heapPosition;
+
+    /**
+     * The hash table, {@code keys[i]} is only meaningful if {@code ids[i] != 0}, which stores the node id plus one
+     */
+    private long[] keys;
+    private int[] ids;
+    private int mask;
+    private int maxFill;
+    private final float loadFactor;
+
+    NodeStore(Goal goal, int expected, float loadFactor) {
+        this.goal = goal;
+        this.loadFactor = loadFactor;
+        int pages = Math.max(1, (expected + PAGE_MASK) >>> PAGE_SHIFT);
+        this.x = new int[pages][];
+        this.y = new int[pages][];
+        this.z = new int[pages][];
+        this.estimatedCostToGoal = new double[pages][];
+        this.cost = new double[pages][];
+        this.combinedCost = new double[pages][];
+        this.previous = new int[pages][];
+        this.previousMove = new byte[pages][];
+        this.heapPosition = new int[pages][];
+        int tableSize = HashCommon.arraySize(Math.max(16, expected), loadFactor);
+        this.keys = new long[tableSize];
+        this.ids = new int[tableSize];
+        this.mask = tableSize - 1;
+        this.maxFill = HashCommon.maxFill(tableSize, loadFactor);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The equivalent of {@link AbstractNodeCostSearch#getNodeAtPosition}, returns the id of the node at this
+     * position, creating it if it's not in the store yet
+     *
+     * @param x        The x position of the node
+     * @param y        The y position of the node
+     * @param z        The z position of the node
+     * @param hashCode The hash code of the node, provided by {@link baritone.api.utils.BetterBlockPos#longHash(int, int, int)}
+     * @return The id of the node
+     */
+    int getNodeAtPosition(int x, int y, int z, long hashCode) {
+        int pos = (int) HashCommon.mix(hashCode) & mask;
+        int id;
+        while ((id = ids[pos]) != 0) {
+            if (keys[pos] == hashCode) {
+                return id - 1;
+            }
+            pos = (pos + 1) & mask;
+        }
+        double heuristic = goal.heuristic(x, y, z);
+        if (Double.isNaN(heuristic)) {
+            throw new IllegalStateException(goal + " calculated implausible heuristic");
+        }
+        id = size;
+        int page = id >>> PAGE_SHIFT;
+        int offset = id & PAGE_MASK;
+        if (offset == 0) {
+            addPage(page);
+        }
+        this.x[page][offset] = x;
+        this.y[page][offset] = y;
+        this.z[page][offset] = z;
+        this.estimatedCostToGoal[page][offset] = heuristic;
+        this.cost[page][offset] = ActionCosts.COST_INF;
+        this.previous[page][offset] = -1;
+        this.previousMove[page][offset] = -1;
+        this.heapPosition[page][offset] = -1;
+        keys[pos] = hashCode;
+        ids[pos] = id + 1;
+        size = id + 1; // only once the node is all filled in, for bestPathSoFar on other threads
+        if (size >= maxFill) {
+            rehash(HashCommon.arraySize(size + 1, loadFactor));
+        }
+        return id;
+    }
+
+    int x(int node) {
+        return x[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    int y(int node) {
+        return y[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    int z(int node) {
+        return z[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    double estimatedCostToGoal(int node) {
+        return estimatedCostToGoal[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    double cost(int node) {
+        return cost[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    double combinedCost(int node) {
+        return combinedCost[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    int previous(int node) {
+        return previous[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    byte previousMove(int node) {
+        return previousMove[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    int heapPosition(int node) {
+        return heapPosition[node >>> PAGE_SHIFT][node & PAGE_MASK];
+    }
+
+    boolean isOpen(int node) {
+        return heapPosition(node) != -1;
+    }
+
+    /**
+     * Sets the cost of getting to this node and where it came from, same as the assignments to
+     * {@link PathNode#previous}, {@link PathNode#previousMove}, {@link PathNode#cost} and
+     * {@link PathNode#combinedCost} in A*
+     */
+    void setCost(int node, double cost, int previous, byte previousMove) {
+        int page = node >>> PAGE_SHIFT;
+        int offset = node & PAGE_MASK;
+        this.previous[page][offset] = previous;
+        this.previousMove[page][offset] = previousMove;
+        this.cost[page][offset] = cost;
+        this.combinedCost[page][offset] = cost + estimatedCostToGoal[page][offset];
+    }
+
+    void setHeapPosition(int node, int heapPosition) {
+        this.heapPosition[node >>> PAGE_SHIFT][node & PAGE_MASK] = heapPosition;
+    }
+
+    /**
+     * Builds the {@link PathNode} chain ending at this node, for handing to {@link Path}. Only the nodes that are
+     * actually on the path get allocated.
+     * <p>
+     * This can be called from another thread while the search is still running (for bestPathSoFar), so the walk is
+     * bounded by the number of nodes instead of trusting the previous links to end.
+     *
+     * @param node The id of the last node of the path
+     * @return The last node of the path, with {@link PathNode#previous} links back to the start
+     */
+    PathNode toPathNode(int node) {
+        int limit = size;
+        PathNode end = null;
+        PathNode current = null;
+        for (int i = 0; node >= 0 && node < limit && i < limit; i++) {
+            PathNode created = new PathNode(x(node), y(node), z(node), goal);
+            created.cost = cost(node);
+            created.previousMove = previousMove(node);
+            if (current == null) {
+                end = created;
+            } else {
+                current.previous = created;
+            }
+            current = created;
+            node = previous(node);
+        }
+        return end;
+    }
+
+    private void addPage(int page) {
+        if (page == x.length) {
+            int pages = page << 1;
+            x = Arrays.copyOf(x, pages);
+            y = Arrays.copyOf(y, pages);
+            z = Arrays.copyOf(z, pages);
+            estimatedCostToGoal = Arrays.copyOf(estimatedCostToGoal, pages);
+            cost = Arrays.copyOf(cost, pages);
+            combinedCost = Arrays.copyOf(combinedCost, pages);
+            previous = Arrays.copyOf(previous, pages);
+            previousMove = Arrays.copyOf(previousMove, pages);
+            heapPosition = Arrays.copyOf(heapPosition, pages);
+        }
+        x[page] = new int[PAGE_SIZE];
+        y[page] = new int[PAGE_SIZE];
+        z[page] = new int[PAGE_SIZE];
+        estimatedCostToGoal[page] = new double[PAGE_SIZE];
+        cost[page] = new double[PAGE_SIZE];
+        combinedCost[page] = new double[PAGE_SIZE];
+        previous[page] = new int[PAGE_SIZE];
+        previousMove[page] = new byte[PAGE_SIZE];
+        heapPosition[page] = new int[PAGE_SIZE];
+    }
+
+    private void rehash(int tableSize) {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        long[] newKeys = new long[tableSize];
+        int[] newIds = new int[tableSize];
+        int newMask = tableSize - 1;
+        for (int i = 0; i < oldIds.length; i++) {
+            int id = oldIds[i];
+            if (id == 0) {
+                continue;
+            }
+            int pos = (int) HashCommon.mix(oldKeys[i]) & newMask;
+            while (newIds[pos] != 0) {
+                pos = (pos + 1) & newMask;
+            }
+            newKeys[pos] = oldKeys[i];
+            newIds[pos] = id;
+        }
+        keys = newKeys;
+        ids = newIds;
+        mask = newMask;
+        maxFill = HashCommon.maxFill(tableSize, loadFactor);
+    }
+}
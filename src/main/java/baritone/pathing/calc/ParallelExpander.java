@@ -0,0 +1,242 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.pathing.movement.CalculationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Calculates the movements out of a batch of nodes on a fork join pool
+ * <p>
+ * Each worker has its own copy of the {@link CalculationContext} (so its own {@link baritone.utils.BlockStateInterface}
+ * and {@link baritone.utils.ToolSet} caches) and its own {@link NodeExpander}. Workers never touch the node map or
+ * the open set, they just write the destinations and costs they found into their own arrays, which the pathing thread
+ * then reads back in the same order the nodes were taken off the open set.
+ */
+final class ParallelExpander {
+
+    /**
+     * The pool that new searches get
+     */
+    private static ForkJoinPool pool;
+
+    /**
+     * How many searches are using each pool, only pools that are in use are in here
+     */
+    private static final Map<ForkJoinPool, Integer> users = new IdentityHashMap<>();
+
+    private final ForkJoinPool executor;
+
+    private final Worker[] workers;
+
+    private final List<Callable<Void>> tasks;
+
+    /**
+     * Where the nodes of the current batch are, in the order they came off the open set
+     */
+    final int[] batchX;
+    final int[] batchY;
+    final int[] batchZ;
+
+    int batchSize;
+
+    ParallelExpander(CalculationContext context, int threads) {
+        this.executor = acquire(threads);
+        this.batchX = new int[threads * 4];
+        this.batchY = new int[batchX.length];
+        this.batchZ = new int[batchX.length];
+        this.workers = new Worker[threads];
+        this.tasks = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Worker(new CalculationContext(context), i);
+            tasks.add(workers[i]);
+        }
+    }
+
+    /**
+     * The pool is shared between every search, and only remade if pathingExpansionThreads changes. The old one is only
+     * shut down once no search is using it anymore.
+     */
+    private static synchronized ForkJoinPool acquire(int threads) {
+        if (pool == null || pool.getParallelism() != threads) {
+            if (pool != null && !users.containsKey(pool)) {
+                pool.shutdown();
+            }
+            pool = new ForkJoinPool(threads);
+        }
+        users.merge(pool, 1, Integer::sum);
+        return pool;
+    }
+
+    private static synchronized void release(ForkJoinPool released) {
+        int remaining = users.get(released) - 1;
+        if (remaining > 0) {
+            users.put(released, remaining);
+            return;
+        }
+        users.remove(released);
+        if (released != pool) {
+            released.shutdown(); // pathingExpansionThreads changed while this search was running
+        }
+    }
+
+    /**
+     * Stops using the pool, this can't expand anything after
+     */
+    void close() {
+        release(executor);
+    }
+
+    /**
+     * Calculates the movements out of every node in the batch. Any exception thrown by a movement is rethrown
+     * here, on the pathing thread.
+     */
+    void expand() {
+        for (Worker worker : workers) {
+            worker.size = 0;
+        }
+        List<Future<Void>> futures = executor.invokeAll(tasks);
+        for (Future<Void> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * @param slot Where in the batch the node is
+     * @return The worker that calculated the movements out of that node
+     */
+    Worker worker(int slot) {
+        return workers[slot % workers.length];
+    }
+
+    int numMovementsConsidered() {
+        int total = 0;
+        for (Worker worker : workers) {
+            total += worker.expander.numMovementsConsidered;
+        }
+        return total;
+    }
+
+    int numEmptyChunk() {
+        int total = 0;
+        for (Worker worker : workers) {
+            total += worker.expander.numEmptyChunk;
+        }
+        return total;
+    }
+
+    /**
+     * @return How many of the workers' chunk lookups were in their {@link baritone.utils.BlockStateInterface}'s window
+     */
+    long windowHits() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.context.bsi.getWindowHits();
+        }
+        return total;
+    }
+
+    long windowMisses() {
+        long total = 0;
+        for (Worker worker : workers) {
+            total += worker.context.bsi.getWindowMisses();
+        }
+        return total;
+    }
+
+    /**
+     * Handles every {@code workers.length}th node of the batch, starting from its own index
+     */
+    final class Worker implements Callable<Void>, NodeExpander.Sink {
+
+        private final CalculationContext context;
+
+        private final NodeExpander expander;
+
+        private final int index;
+
+        /**
+         * Where each of this worker's nodes' results start and end in the arrays below, indexed by batch slot
+         */
+        final int[] start;
+        final int[] end;
+
+        int[] x = new int[64];
+        int[] y = new int[64];
+        int[] z = new int[64];
+        double[] cost = new double[64];
+        byte[] move = new byte[64];
+
+        int size;
+
+        private Worker(CalculationContext context, int index) {
+            this.context = context;
+            this.expander = new NodeExpander(context);
+            this.index = index;
+            this.start = new int[batchX.length];
+            this.end = new int[batchX.length];
+        }
+
+        @Override
+        public Void call() {
+            for (int slot = index; slot < batchSize; slot += workers.length) {
+                start[slot] = size;
+                expander.expand(batchX[slot], batchY[slot], batchZ[slot], this);
+                end[slot] = size;
+            }
+            return null;
+        }
+
+        @Override
+        public void accept(int destX, int destY, int destZ, double actionCost, byte moves) {
+            if (size == x.length) {
+                int capacity = size << 1;
+                x = Arrays.copyOf(x, capacity);
+                y = Arrays.copyOf(y, capacity);
+                z = Arrays.copyOf(z, capacity);
+                cost = Arrays.copyOf(cost, capacity);
+                move = Arrays.copyOf(move, capacity);
+            }
+            x[size] = destX;
+            y[size] = destY;
+            z[size] = destZ;
+            cost[size] = actionCost;
+            move[size] = moves;
+            size++;
+        }
+    }
+}
@@ -40,6 +40,8 @@ import java.util.List;
  */
 class Path extends PathBase {
 
+    private static final Moves[] ALL_MOVES = Moves.values();
+
     /**
      * The start position of this path
      */
@@ -97,13 +99,20 @@ class Path extends PathBase {
         return goal;
     }
 
+    /**
+     * @return What the search worked out the whole path costs, in ticks
+     */
+    double cost() {
+        return nodes.get(nodes.size() - 1).cost;
+    }
+
     private boolean assembleMovements() {
         if (path.isEmpty() || !movements.isEmpty()) {
             throw new IllegalStateException();
         }
         for (int i = 0; i < path.size() - 1; i++) {
             double cost = nodes.get(i + 1).cost - nodes.get(i).cost;
-            Movement move = runBackwards(path.get(i), path.get(i + 1), cost);
+            Movement move = runBackwards(path.get(i), path.get(i + 1), cost, nodes.get(i + 1).previousMove);
             if (move == null) {
                 return true;
             } else {
@@ -113,7 +122,16 @@ class Path extends PathBase {
         return false;
     }
 
-    private Movement runBackwards(BetterBlockPos src, BetterBlockPos dest, double cost) {
+    private Movement runBackwards(BetterBlockPos src, BetterBlockPos dest, double cost, byte previousMove) {
+        if (previousMove != -1) {
+            // the search remembered which move it was, so only that one needs to be created
+            Movement move = ALL_MOVES[previousMove].apply0(context, src, dest);
+            if (move != null && move.getDest().equals(dest)) {
+                move.override(Math.min(move.calculateCost(context), cost));
+                return move;
+            }
+            // something changed since it was calculated, see if any other move still gets there
+        }
         for (Moves moves : Moves.values()) {
             if (moves.canHaveMultipleDestinations()) {
                 for (Movement move : moves.getMultiDestination(context, src)) {
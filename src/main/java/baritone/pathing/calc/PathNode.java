@@ -58,6 +58,12 @@ public final class PathNode {
      */
     public PathNode previous;
 
+    /**
+     * The ordinal of the {@link baritone.pathing.movement.Moves} that got here from previous, or -1 if that isn't known
+     * Mutable and changed by PathFinder
+     */
+    public byte previousMove;
+
     /**
      * Where is this node in the array flattenization of the binary heap? Needed for decrease-key operations.
      */
@@ -65,6 +71,7 @@ public final class PathNode {
 
     public PathNode(int x, int y, int z, Goal goal) {
         this.previous = null;
+        this.previousMove = -1;
         this.cost = ActionCosts.COST_INF;
         this.estimatedCostToGoal = goal.heuristic(x, y, z);
         if (Double.isNaN(estimatedCostToGoal)) {
@@ -0,0 +1,249 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.pathing.calc.PathNode;
+
+import java.util.Arrays;
+
+/**
+ * A bucket queue keyed on the combined cost rounded down to a multiple of the bucket width.
+ * <p>
+ * In A* the lowest combined cost in the open set almost never goes down, so the lowest non empty bucket only moves
+ * forward and insert, update and removeLowest are all O(1) apart from the scan inside one bucket. That scan is
+ * exact, so this still always returns the lowest node, it's just slower if the width is so wide that a lot of
+ * nodes end up in the same bucket. Inserting below the current bucket is allowed, it just moves the cursor back.
+ * <p>
+ * Like {@link PairingHeapOpenSet}, {@link PathNode#heapPosition} holds a slot number, and each slot knows its
+ * bucket and where it is in that bucket.
+ */
+public final class BucketOpenSet implements IOpenSet {
+
+    /**
+     * Default bucket width, in ticks
+     */
+    public static final double DEFAULT_BUCKET_WIDTH = 0.25;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int INITIAL_BUCKET_SIZE = 8;
+
+    private final double inverseWidth;
+
+    /**
+     * The bucket number (combined cost / width) of {@code buckets[0]}, picked on the first insert
+     */
+    private long base;
+
+    private boolean hasBase;
+
+    private int[][] buckets = new int[64][];
+
+    private int[] bucketSizes = new int[64];
+
+    /**
+     * Every bucket below this one is empty
+     */
+    private int cursor;
+
+    private PathNode[] nodes;
+
+    private double[] costs;
+
+    private int[] slotBucket;
+
+    private int[] slotIndex;
+
+    /**
+     * Free slots, linked through slotIndex
+     */
+    private int free = -1;
+
+    private int used;
+
+    private int size;
+
+    public BucketOpenSet() {
+        this(DEFAULT_BUCKET_WIDTH);
+    }
+
+    public BucketOpenSet(double bucketWidth) {
+        if (!(bucketWidth > 0)) {
+            throw new IllegalArgumentException("Bucket width " + bucketWidth);
+        }
+        this.inverseWidth = 1 / bucketWidth;
+        this.nodes = new PathNode[INITIAL_CAPACITY];
+        this.costs = new double[INITIAL_CAPACITY];
+        this.slotBucket = new int[INITIAL_CAPACITY];
+        this.slotIndex = new int[INITIAL_CAPACITY];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void insert(PathNode value) {
+        int slot = allocate();
+        nodes[slot] = value;
+        value.heapPosition = slot;
+        add(slot, value.combinedCost);
+        size++;
+    }
+
+    @Override
+    public void update(PathNode val) {
+        int slot = val.heapPosition;
+        double cost = val.combinedCost;
+        long key = (long) Math.floor(cost * inverseWidth);
+        if (key - base == slotBucket[slot]) {
+            costs[slot] = cost; // still in the same bucket
+            return;
+        }
+        remove(slot);
+        add(slot, cost);
+    }
+
+    @Override
+    public PathNode removeLowest() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        while (bucketSizes[cursor] == 0) {
+            cursor++;
+        }
+        int[] bucket = buckets[cursor];
+        int count = bucketSizes[cursor];
+        int best = bucket[0];
+        double bestCost = costs[best];
+        for (int i = 1; i < count; i++) {
+            int slot = bucket[i];
+            double cost = costs[slot];
+            if (cost < bestCost) {
+                best = slot;
+                bestCost = cost;
+            }
+        }
+        remove(best);
+        PathNode result = nodes[best];
+        result.heapPosition = -1;
+        nodes[best] = null;
+        slotIndex[best] = free;
+        free = best;
+        size--;
+        return result;
+    }
+
+    private void add(int slot, double cost) {
+        long key = (long) Math.floor(cost * inverseWidth);
+        if (!hasBase) {
+            base = key - 8; // leave a little room below for costs that go slightly down
+            cursor = 8;
+            hasBase = true;
+        }
+        if (key < base) {
+            rebase(key);
+        }
+        long offset = key - base;
+        if (offset >= buckets.length) {
+            if (offset > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("Combined cost " + cost + " is too far from " + base / inverseWidth);
+            }
+            int length = buckets.length;
+            while (length <= offset) {
+                length <<= 1;
+            }
+            buckets = Arrays.copyOf(buckets, length);
+            bucketSizes = Arrays.copyOf(bucketSizes, length);
+        }
+        int b = (int) offset;
+        int[] bucket = buckets[b];
+        int count = bucketSizes[b];
+        if (bucket == null) {
+            bucket = buckets[b] = new int[INITIAL_BUCKET_SIZE];
+        } else if (count == bucket.length) {
+            bucket = buckets[b] = Arrays.copyOf(bucket, count << 1);
+        }
+        bucket[count] = slot;
+        bucketSizes[b] = count + 1;
+        costs[slot] = cost;
+        slotBucket[slot] = b;
+        slotIndex[slot] = count;
+        if (b < cursor) {
+            cursor = b;
+        }
+    }
+
+    private void remove(int slot) {
+        int b = slotBucket[slot];
+        int index = slotIndex[slot];
+        int last = --bucketSizes[b];
+        int moved = buckets[b][last];
+        buckets[b][index] = moved;
+        slotIndex[moved] = index;
+    }
+
+    /**
+     * Moves every bucket up so that bucket number {@code key} fits at the bottom
+     */
+    private void rebase(long key) {
+        long shift = base - key + buckets.length / 2;
+        if (shift + buckets.length > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Combined cost " + key / inverseWidth + " is too far from " + base / inverseWidth);
+        }
+        int length = buckets.length;
+        while (length < shift + buckets.length) {
+            length <<= 1;
+        }
+        int[][] newBuckets = new int[length][];
+        int[] newSizes = new int[length];
+        System.arraycopy(buckets, 0, newBuckets, (int) shift, buckets.length);
+        System.arraycopy(bucketSizes, 0, newSizes, (int) shift, bucketSizes.length);
+        for (int slot = 0; slot < used; slot++) {
+            if (nodes[slot] != null) {
+                slotBucket[slot] += (int) shift;
+            }
+        }
+        buckets = newBuckets;
+        bucketSizes = newSizes;
+        base -= shift;
+        cursor += (int) shift;
+    }
+
+    private int allocate() {
+        if (free != -1) {
+            int slot = free;
+            free = slotIndex[slot];
+            return slot;
+        }
+        if (used == nodes.length) {
+            int capacity = nodes.length << 1;
+            nodes = Arrays.copyOf(nodes, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            slotBucket = Arrays.copyOf(slotBucket, capacity);
+            slotIndex = Arrays.copyOf(slotIndex, capacity);
+        }
+        return used++;
+    }
+}
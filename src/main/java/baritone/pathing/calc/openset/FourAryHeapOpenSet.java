@@ -0,0 +1,151 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.pathing.calc.PathNode;
+
+import java.util.Arrays;
+
+/**
+ * A 4-ary heap. Half the depth of {@link BinaryHeapOpenSet}, at the cost of comparing four children instead of two
+ * on the way down.
+ * <p>
+ * The costs are kept in their own array next to the nodes so comparisons don't have to go through the
+ * {@link PathNode}. The four children of a node are next to each other, so picking the smallest one reads 32
+ * contiguous bytes of costs instead of chasing four pointers.
+ */
+public final class FourAryHeapOpenSet implements IOpenSet {
+
+    /**
+     * The initial capacity of the heap (2^10)
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The array backing the heap, 0 indexed, the children of {@code i} are {@code 4i+1 .. 4i+4}
+     */
+    private PathNode[] nodes;
+
+    /**
+     * The combined cost of the node at the same index in {@link #nodes}
+     */
+    private double[] costs;
+
+    /**
+     * The size of the heap
+     */
+    private int size;
+
+    public FourAryHeapOpenSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public FourAryHeapOpenSet(int size) {
+        this.size = 0;
+        this.nodes = new PathNode[Math.max(1, size)];
+        this.costs = new double[Math.max(1, size)];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void insert(PathNode value) {
+        if (size >= nodes.length) {
+            nodes = Arrays.copyOf(nodes, nodes.length << 1);
+            costs = Arrays.copyOf(costs, costs.length << 1);
+        }
+        siftUp(value, size++);
+    }
+
+    @Override
+    public void update(PathNode val) {
+        siftUp(val, val.heapPosition);
+    }
+
+    private void siftUp(PathNode val, int index) {
+        double cost = val.combinedCost;
+        while (index > 0) {
+            int parent = (index - 1) >>> 2;
+            double parentCost = costs[parent];
+            if (parentCost <= cost) {
+                break;
+            }
+            PathNode parentNode = nodes[parent];
+            nodes[index] = parentNode;
+            costs[index] = parentCost;
+            parentNode.heapPosition = index;
+            index = parent;
+        }
+        nodes[index] = val;
+        costs[index] = cost;
+        val.heapPosition = index;
+    }
+
+    @Override
+    public PathNode removeLowest() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        PathNode result = nodes[0];
+        result.heapPosition = -1;
+        size--;
+        PathNode val = nodes[size];
+        double cost = costs[size];
+        nodes[size] = null;
+        if (size == 0) {
+            return result;
+        }
+        int index = 0;
+        while (true) {
+            int firstChild = (index << 2) + 1;
+            if (firstChild >= size) {
+                break;
+            }
+            int lastChild = Math.min(firstChild + 4, size);
+            int smallest = firstChild;
+            double smallestCost = costs[firstChild];
+            for (int child = firstChild + 1; child < lastChild; child++) {
+                double childCost = costs[child];
+                if (childCost < smallestCost) {
+                    smallest = child;
+                    smallestCost = childCost;
+                }
+            }
+            if (cost <= smallestCost) {
+                break;
+            }
+            PathNode smallestNode = nodes[smallest];
+            nodes[index] = smallestNode;
+            costs[index] = smallestCost;
+            smallestNode.heapPosition = index;
+            index = smallest;
+        }
+        nodes[index] = val;
+        costs[index] = cost;
+        val.heapPosition = index;
+        return result;
+    }
+}
@@ -51,4 +51,9 @@ public interface IOpenSet {
      * @param node The node
      */
     void update(PathNode node);
+
+    /**
+     * @return The number of elements in the heap
+     */
+    int size();
 }
@@ -0,0 +1,220 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc.openset;
+
+import baritone.pathing.calc.PathNode;
+
+import java.util.Arrays;
+
+/**
+ * A pairing heap. Insert and decrease-key are O(1), all the work is deferred to removeLowest, which is
+ * O(log n) amortized.
+ * <p>
+ * The tree is stored in int arrays indexed by a slot number instead of as objects, and a node's slot is kept in
+ * {@link PathNode#heapPosition} while it's in the heap. Slots are reused once their node is removed.
+ */
+public final class PairingHeapOpenSet implements IOpenSet {
+
+    /**
+     * The initial capacity of the heap (2^10)
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private PathNode[] nodes;
+
+    /**
+     * The combined cost of each slot as of when it was inserted or last updated
+     */
+    private double[] costs;
+
+    /**
+     * The leftmost child of each slot, or -1
+     */
+    private int[] child;
+
+    /**
+     * The next sibling to the right of each slot, or -1. Also links the free list.
+     */
+    private int[] sibling;
+
+    /**
+     * The sibling to the left of each slot, or its parent if it's the leftmost child, or -1 for the root
+     */
+    private int[] prev;
+
+    /**
+     * Scratch space for the first pass of removeLowest
+     */
+    private int[] pairs;
+
+    private int root = -1;
+
+    private int free = -1;
+
+    private int used;
+
+    private int size;
+
+    public PairingHeapOpenSet() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public PairingHeapOpenSet(int size) {
+        int capacity = Math.max(1, size);
+        this.nodes = new PathNode[capacity];
+        this.costs = new double[capacity];
+        this.child = new int[capacity];
+        this.sibling = new int[capacity];
+        this.prev = new int[capacity];
+        this.pairs = new int[16];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public void insert(PathNode value) {
+        int slot = allocate();
+        nodes[slot] = value;
+        costs[slot] = value.combinedCost;
+        child[slot] = -1;
+        sibling[slot] = -1;
+        prev[slot] = -1;
+        value.heapPosition = slot;
+        root = root == -1 ? slot : meld(root, slot);
+        size++;
+    }
+
+    @Override
+    public void update(PathNode val) {
+        int slot = val.heapPosition;
+        costs[slot] = val.combinedCost;
+        if (slot == root) {
+            return;
+        }
+        // cut it (and its subtree) out of wherever it is, then meld it back in at the top
+        int left = prev[slot];
+        int right = sibling[slot];
+        if (child[left] == slot) {
+            child[left] = right;
+        } else {
+            sibling[left] = right;
+        }
+        if (right != -1) {
+            prev[right] = left;
+        }
+        sibling[slot] = -1;
+        prev[slot] = -1;
+        root = meld(root, slot);
+    }
+
+    @Override
+    public PathNode removeLowest() {
+        if (size == 0) {
+            throw new IllegalStateException();
+        }
+        int slot = root;
+        PathNode result = nodes[slot];
+        result.heapPosition = -1;
+        root = mergePairs(child[slot]);
+        nodes[slot] = null;
+        sibling[slot] = free;
+        free = slot;
+        size--;
+        return result;
+    }
+
+    /**
+     * The standard two pass merge of the children of the removed root, left to right in pairs then right to left
+     *
+     * @param first The leftmost child of the removed root
+     * @return The new root
+     */
+    private int mergePairs(int first) {
+        int count = 0;
+        int current = first;
+        while (current != -1) {
+            int second = sibling[current];
+            int next = second == -1 ? -1 : sibling[second];
+            if (count == pairs.length) {
+                pairs = Arrays.copyOf(pairs, pairs.length << 1);
+            }
+            pairs[count++] = second == -1 ? detach(current) : meld(current, second);
+            current = next;
+        }
+        if (count == 0) {
+            return -1;
+        }
+        int result = pairs[--count];
+        while (count > 0) {
+            result = meld(pairs[--count], result);
+        }
+        return result;
+    }
+
+    /**
+     * Makes the root with the larger cost the leftmost child of the other one
+     *
+     * @return The root of the combined tree
+     */
+    private int meld(int a, int b) {
+        if (costs[b] < costs[a]) {
+            int tmp = a;
+            a = b;
+            b = tmp;
+        }
+        int oldChild = child[a];
+        sibling[b] = oldChild;
+        if (oldChild != -1) {
+            prev[oldChild] = b;
+        }
+        prev[b] = a;
+        child[a] = b;
+        return detach(a);
+    }
+
+    private int detach(int slot) {
+        sibling[slot] = -1;
+        prev[slot] = -1;
+        return slot;
+    }
+
+    private int allocate() {
+        if (free != -1) {
+            int slot = free;
+            free = sibling[slot];
+            return slot;
+        }
+        if (used == nodes.length) {
+            int capacity = nodes.length << 1;
+            nodes = Arrays.copyOf(nodes, capacity);
+            costs = Arrays.copyOf(costs, capacity);
+            child = Arrays.copyOf(child, capacity);
+            sibling = Arrays.copyOf(sibling, capacity);
+            prev = Arrays.copyOf(prev, capacity);
+        }
+        return used++;
+    }
+}
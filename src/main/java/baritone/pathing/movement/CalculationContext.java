@@ -27,11 +27,7 @@ import baritone.utils.ToolSet;
 import baritone.utils.pathing.BetterWorldBorder;
 import net.minecraft.client.player.LocalPlayer;
 import net.minecraft.core.BlockPos;
-import net.minecraft.world.entity.player.Inventory;
-import net.minecraft.world.item.ItemStack;
-import net.minecraft.world.item.Items;
-import net.minecraft.world.item.enchantment.EnchantmentHelper;
-import net.minecraft.world.item.enchantment.Enchantments;
+import net.minecraft.world.effect.MobEffects;
 import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
@@ -47,17 +43,16 @@ import static baritone.api.pathing.movement.ActionCosts.COST_INF;
  */
 public class CalculationContext {
 
-    private static final ItemStack STACK_BUCKET_WATER = new ItemStack(Items.WATER_BUCKET);
-
     public final boolean safeForThreadedUse;
     public final IBaritone baritone;
-    public final Level world;
+    public final Level world; // null without a client, see CalculationContext(BlockStateInterface)
     public final WorldData worldData;
     public final BlockStateInterface bsi;
-    public final ToolSet toolSet;
+    public final ToolSet toolSet; // null without a player, in which case nothing can be broken
     public final boolean hasWaterBucket;
     public final boolean hasThrowaway;
     public final boolean canSprint;
+    public final int jumpBoostLevel; // 0 for none, otherwise the amplifier plus one
     protected final double placeBlockCost; // protected because you should call the function instead
     public final boolean allowBreak;
     public final List<Block> allowBreakAnyway;
@@ -90,20 +85,50 @@ public class CalculationContext {
     }
 
     public CalculationContext(IBaritone baritone, boolean forUseOnAnotherThread) {
-        this.precomputedData = new PrecomputedData();
+        this(baritone, baritone.getPlayerContext().player(), baritone.getPlayerContext().world(), new BlockStateInterface(baritone.getPlayerContext(), forUseOnAnotherThread), forUseOnAnotherThread);
+    }
+
+    /**
+     * A context for pathing through blocks that aren't the client's world, for tests and benchmarks that run without
+     * a client. Everything comes from the settings like usual, except that there's no player: the inventory is empty,
+     * so nothing can be placed, and nothing can be broken either, since there's no telling how long it would take.
+     *
+     * @param bsi The blocks, see {@link BlockStateInterface#BlockStateInterface(baritone.utils.WorldSnapshot, int, int)}
+     */
+    public CalculationContext(BlockStateInterface bsi) {
+        this(null, null, null, bsi, true);
+    }
+
+    private CalculationContext(IBaritone baritone, LocalPlayer player, Level world, BlockStateInterface bsi, boolean forUseOnAnotherThread) {
+        this.precomputedData = PrecomputedData.get(); // shared, it's only worked out again when the settings change
         this.safeForThreadedUse = forUseOnAnotherThread;
         this.baritone = baritone;
-        LocalPlayer player = baritone.getPlayerContext().player();
-        this.world = baritone.getPlayerContext().world();
-        this.worldData = (WorldData) baritone.getPlayerContext().worldData();
-        this.bsi = new BlockStateInterface(baritone.getPlayerContext(), forUseOnAnotherThread);
-        this.toolSet = new ToolSet(player);
-        this.hasThrowaway = Baritone.settings().allowPlace.value && ((Baritone) baritone).getInventoryBehavior().hasGenericThrowaway();
-        this.hasWaterBucket = Baritone.settings().allowWaterBucketFall.value && Inventory.isHotbarSlot(player.getInventory().findSlotMatchingItem(STACK_BUCKET_WATER)) && world.dimension() != Level.NETHER;
-        this.canSprint = Baritone.settings().allowSprint.value && player.getFoodData().getFoodLevel() > 6;
+        this.world = world;
+        this.worldData = baritone == null ? null : (WorldData) baritone.getPlayerContext().worldData();
+        this.bsi = bsi;
+        if (player != null) {
+            this.toolSet = new ToolSet(player);
+            InventorySnapshot inventory = InventorySnapshot.get((Baritone) baritone, player, world);
+            this.hasThrowaway = inventory.hasThrowaway;
+            this.hasWaterBucket = inventory.hasWaterBucket;
+            this.frostWalker = inventory.frostWalker;
+            this.waterWalkSpeed = inventory.waterWalkSpeed;
+            this.canSprint = Baritone.settings().allowSprint.value && player.getFoodData().getFoodLevel() > 6;
+            this.jumpBoostLevel = Baritone.settings().considerPotionEffects.value && player.hasEffect(MobEffects.JUMP) ? player.getEffect(MobEffects.JUMP).getAmplifier() + 1 : 0;
+            this.allowBreak = Baritone.settings().allowBreak.value;
+            this.allowBreakAnyway = new ArrayList<>(Baritone.settings().allowBreakAnyway.value);
+        } else {
+            this.toolSet = null;
+            this.hasThrowaway = false;
+            this.hasWaterBucket = false;
+            this.frostWalker = 0;
+            this.waterWalkSpeed = ActionCosts.WALK_ONE_IN_WATER_COST;
+            this.canSprint = Baritone.settings().allowSprint.value;
+            this.jumpBoostLevel = 0;
+            this.allowBreak = false;
+            this.allowBreakAnyway = new ArrayList<>();
+        }
         this.placeBlockCost = Baritone.settings().blockPlacementPenalty.value;
-        this.allowBreak = Baritone.settings().allowBreak.value;
-        this.allowBreakAnyway = new ArrayList<>(Baritone.settings().allowBreakAnyway.value);
         this.allowParkour = Baritone.settings().allowParkour.value;
         this.allowParkourPlace = Baritone.settings().allowParkourPlace.value;
         this.allowParkourAdv = Baritone.settings().allowParkourAdv.value;
@@ -112,19 +137,12 @@ public class CalculationContext {
         this.allowParkourAscend = Baritone.settings().allowParkourAscend.value;
         this.assumeWalkOnWater = Baritone.settings().assumeWalkOnWater.value;
         this.allowFallIntoLava = false; // Super secret internal setting for ElytraBehavior
-        this.frostWalker = EnchantmentHelper.getEnchantmentLevel(Enchantments.FROST_WALKER, baritone.getPlayerContext().player());
         this.allowDiagonalDescend = Baritone.settings().allowDiagonalDescend.value;
         this.allowDiagonalAscend = Baritone.settings().allowDiagonalAscend.value;
         this.allowDownward = Baritone.settings().allowDownward.value;
         this.minFallHeight = 3; // Minimum fall height used by MovementFall
         this.maxFallHeightNoWater = Baritone.settings().maxFallHeightNoWater.value;
         this.maxFallHeightBucket = Baritone.settings().maxFallHeightBucket.value;
-        int depth = EnchantmentHelper.getDepthStrider(player);
-        if (depth > 3) {
-            depth = 3;
-        }
-        float mult = depth / 3.0F;
-        this.waterWalkSpeed = ActionCosts.WALK_ONE_IN_WATER_COST * (1 - mult) + ActionCosts.WALK_ONE_BLOCK_COST * mult;
         this.breakBlockAdditionalCost = Baritone.settings().blockBreakAdditionalPenalty.value;
         this.backtrackCostFavoringCoefficient = Baritone.settings().backtrackCostFavoringCoefficient.value;
         this.jumpPenalty = Baritone.settings().jumpPenalty.value;
@@ -132,7 +150,56 @@ public class CalculationContext {
         // why cache these things here, why not let the movements just get directly from settings?
         // because if some movements are calculated one way and others are calculated another way,
         // then you get a wildly inconsistent path that isn't optimal for either scenario.
-        this.worldBorder = new BetterWorldBorder(world.getWorldBorder());
+        this.worldBorder = bsi.worldBorder;
+    }
+
+    /**
+     * A copy of another context for a pathing worker thread. Everything is the same except that it has its own
+     * {@link BlockStateInterface} and {@link ToolSet}, since those have caches that can't be shared between threads.
+     * <p>
+     * This doesn't carry over anything a subclass overrides, so only copy plain CalculationContexts.
+     *
+     * @param other The context to copy, which has to be safeForThreadedUse
+     */
+    public CalculationContext(CalculationContext other) {
+        if (!other.safeForThreadedUse) {
+            throw new IllegalStateException();
+        }
+        this.precomputedData = other.precomputedData;
+        this.safeForThreadedUse = true;
+        this.baritone = other.baritone;
+        this.world = other.world;
+        this.worldData = other.worldData;
+        this.bsi = new BlockStateInterface(other.bsi);
+        this.toolSet = other.toolSet == null ? null : new ToolSet(other.toolSet);
+        this.hasThrowaway = other.hasThrowaway;
+        this.hasWaterBucket = other.hasWaterBucket;
+        this.canSprint = other.canSprint;
+        this.jumpBoostLevel = other.jumpBoostLevel;
+        this.placeBlockCost = other.placeBlockCost;
+        this.allowBreak = other.allowBreak;
+        this.allowBreakAnyway = other.allowBreakAnyway;
+        this.allowParkour = other.allowParkour;
+        this.allowParkourPlace = other.allowParkourPlace;
+        this.allowParkourAdv = other.allowParkourAdv;
+        this.allowParkourMomentumOrNeo = other.allowParkourMomentumOrNeo;
+        this.allowJumpAt256 = other.allowJumpAt256;
+        this.allowParkourAscend = other.allowParkourAscend;
+        this.assumeWalkOnWater = other.assumeWalkOnWater;
+        this.allowFallIntoLava = other.allowFallIntoLava;
+        this.frostWalker = other.frostWalker;
+        this.allowDiagonalDescend = other.allowDiagonalDescend;
+        this.allowDiagonalAscend = other.allowDiagonalAscend;
+        this.allowDownward = other.allowDownward;
+        this.minFallHeight = other.minFallHeight;
+        this.maxFallHeightNoWater = other.maxFallHeightNoWater;
+        this.maxFallHeightBucket = other.maxFallHeightBucket;
+        this.waterWalkSpeed = other.waterWalkSpeed;
+        this.breakBlockAdditionalCost = other.breakBlockAdditionalCost;
+        this.backtrackCostFavoringCoefficient = other.backtrackCostFavoringCoefficient;
+        this.jumpPenalty = other.jumpPenalty;
+        this.walkOnWaterOnePenalty = other.walkOnWaterOnePenalty;
+        this.worldBorder = other.worldBorder;
     }
 
     public final IBaritone getBaritone() {
@@ -0,0 +1,118 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package baritone.pathing.movement;
+
+import baritone.Baritone;
+import baritone.api.pathing.movement.ActionCosts;
+import net.minecraft.client.player.LocalPlayer;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.world.entity.player.Inventory;
+import net.minecraft.world.item.ItemStack;
+import net.minecraft.world.item.Items;
+import net.minecraft.world.item.enchantment.EnchantmentHelper;
+import net.minecraft.world.item.enchantment.Enchantments;
+import net.minecraft.world.level.Level;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * What a {@link CalculationContext} works out from the player's inventory, which means looking through it. Only worked
+ * out again once the inventory, or a setting that goes into it, has changed, so making a context every tick doesn't
+ * mean going through the inventory every tick.
+ */
+final class InventorySnapshot {
+
+    private static final ItemStack STACK_BUCKET_WATER = new ItemStack(Items.WATER_BUCKET);
+
+    /**
+     * The last one made, which the next context uses too if nothing it depends on has changed
+     */
+    private static volatile InventorySnapshot latest;
+
+    private final LocalPlayer player;
+    private final ResourceKey<Level> dimension;
+    private final ItemStack[] inventory;
+    private final List<Object> settings;
+
+    final boolean hasThrowaway;
+    final boolean hasWaterBucket;
+    final int frostWalker;
+    final double waterWalkSpeed;
+
+    private InventorySnapshot(Baritone baritone, LocalPlayer player, Level world, List<Object> settings) {
+        this.player = player;
+        this.dimension = world.dimension();
+        this.inventory = new ItemStack[player.getInventory().getContainerSize()];
+        for (int i = 0; i < inventory.length; i++) {
+            inventory[i] = player.getInventory().getItem(i).copy();
+        }
+        this.settings = settings;
+        this.hasThrowaway = Baritone.settings().allowPlace.value && baritone.getInventoryBehavior().hasGenericThrowaway();
+        this.hasWaterBucket = Baritone.settings().allowWaterBucketFall.value && Inventory.isHotbarSlot(player.getInventory().findSlotMatchingItem(STACK_BUCKET_WATER)) && world.dimension() != Level.NETHER;
+        this.frostWalker = EnchantmentHelper.getEnchantmentLevel(Enchantments.FROST_WALKER, player);
+        int depth = EnchantmentHelper.getDepthStrider(player);
+        if (depth > 3) {
+            depth = 3;
+        }
+        float mult = depth / 3.0F;
+        this.waterWalkSpeed = ActionCosts.WALK_ONE_IN_WATER_COST * (1 - mult) + ActionCosts.WALK_ONE_BLOCK_COST * mult;
+    }
+
+    /**
+     * @return The last snapshot, or a new one if the player's inventory or the settings have changed since
+     */
+    static InventorySnapshot get(Baritone baritone, LocalPlayer player, Level world) {
+        List<Object> settings = settings();
+        InventorySnapshot snapshot = latest;
+        if (snapshot == null || snapshot.player != player || snapshot.dimension != world.dimension() || !snapshot.settings.equals(settings) || !snapshot.matches(player.getInventory())) {
+            snapshot = new InventorySnapshot(baritone, player, world, settings);
+            latest = snapshot;
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return Whether every slot, including armor and the off hand, still has the same stack in it as when this was
+     * made, down to its enchantments (frost walker and depth strider can be added to boots without anything else about
+     * them changing)
+     */
+    private boolean matches(Inventory inventory) {
+        if (this.inventory.length != inventory.getContainerSize()) {
+            return false;
+        }
+        for (int i = 0; i < this.inventory.length; i++) {
+            if (!ItemStack.matches(this.inventory[i], inventory.getItem(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The values of the settings that go into this
+     */
+    private static List<Object> settings() {
+        return Arrays.asList(
+                Baritone.settings().allowPlace.value,
+                Baritone.settings().allowInventory.value,
+                new ArrayList<>(Baritone.settings().acceptableThrowawayItems.value),
+                Baritone.settings().allowWaterBucketFall.value
+        );
+    }
+}
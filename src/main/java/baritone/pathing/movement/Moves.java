@@ -349,6 +349,11 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkourAdv.cost(context, x, y, z, result, Direction.NORTH);
         }
+
+        @Override
+        public Movement apply0(CalculationContext context, BetterBlockPos src, BetterBlockPos dest) {
+            return MovementParkourAdv.create(context, src, dest, Direction.NORTH);
+        }
     },
 
     PARKOUR_ADV_SOUTH(0, 0, +5, true, true) {
@@ -372,6 +377,11 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkourAdv.cost(context, x, y, z, result, Direction.SOUTH);
         }
+
+        @Override
+        public Movement apply0(CalculationContext context, BetterBlockPos src, BetterBlockPos dest) {
+            return MovementParkourAdv.create(context, src, dest, Direction.SOUTH);
+        }
     },
 
     PARKOUR_ADV_EAST(+5, 0, 0, true, true) {
@@ -395,6 +405,11 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkourAdv.cost(context, x, y, z, result, Direction.EAST);
         }
+
+        @Override
+        public Movement apply0(CalculationContext context, BetterBlockPos src, BetterBlockPos dest) {
+            return MovementParkourAdv.create(context, src, dest, Direction.EAST);
+        }
     },
 
     PARKOUR_ADV_WEST(-5, 0, 0, true, true) {
@@ -418,6 +433,11 @@ public enum Moves {
         public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
             MovementParkourAdv.cost(context, x, y, z, result, Direction.WEST);
         }
+
+        @Override
+        public Movement apply0(CalculationContext context, BetterBlockPos src, BetterBlockPos dest) {
+            return MovementParkourAdv.create(context, src, dest, Direction.WEST);
+        }
      };
 
 	
@@ -445,6 +465,24 @@ public enum Moves {
 
     public abstract Movement apply0(CalculationContext context, BetterBlockPos src);
 
+    /**
+     * Creates the movement from src that the search found going to dest, for when a move can go more than one place
+     * and {@link #apply0(CalculationContext, BetterBlockPos)} wouldn't know which one
+     *
+     * @return The movement, or null if there is none. It may not end up at dest if the world changed since.
+     */
+    public Movement apply0(CalculationContext context, BetterBlockPos src, BetterBlockPos dest) {
+        if (canHaveMultipleDestinations()) {
+            for (Movement move : getMultiDestination(context, src)) {
+                if (move.getDest().equals(dest)) {
+                    return move;
+                }
+            }
+            return null;
+        }
+        return apply0(context, src);
+    }
+
     public void apply(CalculationContext context, int x, int y, int z, MutableMoveResult result) {
         if (dynamicXZ || dynamicY) {
             throw new UnsupportedOperationException();
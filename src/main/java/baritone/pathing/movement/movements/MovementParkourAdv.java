@@ -55,6 +55,7 @@ import net.minecraft.core.Rotations;
 
 import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Allows baritone to make jumps at different angles (diagonally)
@@ -67,7 +68,7 @@ public class MovementParkourAdv extends Movement {
 
     private static final EnumMap<Direction, HashMap<Vec3i, JumpType>> ALL_VALID_DIR = new EnumMap<>(Direction.class);
 
-    private static final HashMap<Vec3i, Double> DISTANCE_CACHE = new HashMap<>();
+    private static final Map<Vec3i, Double> DISTANCE_CACHE = new ConcurrentHashMap<>(); // movements can be calculated on more than one thread at once
 
     private static final double ASCEND_DIST_PER_BLOCK = 0.6;
     private static final double DESCEND_DIST_PER_BLOCK = -0.2; // its easier to descend
@@ -115,6 +116,41 @@ public class MovementParkourAdv extends Movement {
         }
     }
 
+    /*
+     * Everything the cost calculation needs is precalculated into these tables, so that it doesn't allocate or hash
+     * anything per node. Directions are indexed by Direction#get2DDataValue.
+     */
+
+    /** The same jumps as ALL_VALID_DIR, as offsets from src and the technique to use */
+    private static final int[][] JUMP_X = new int[4][];
+    private static final int[][] JUMP_Z = new int[4][];
+    private static final JumpType[][] JUMP_TYPE = new JumpType[4][];
+
+    /** How far the end of a jump line can be from its start, horizontally and vertically */
+    private static final int SWEEP_RADIUS = 7;
+    private static final int SWEEP_MIN_Y = -8;
+    private static final int SWEEP_MAX_Y = 2;
+
+    /**
+     * Layout of one block in a sweep: its offset, then the tick the player gets there at walking, sprinting and
+     * momentum jump speeds
+     */
+    private static final int SWEEP_STRIDE = 6;
+    private static final int SWEEP_TICK_WALK = 3;
+    private static final int SWEEP_TICK_SPRINT = 4;
+    private static final int SWEEP_TICK_MOMENTUM = 5;
+
+    /** The blocks that getLineApprox(end, 0.3, 2) goes through, for every end point in range */
+    private static final int[][] SWEEPS = new int[(2 * SWEEP_RADIUS + 1) * (2 * SWEEP_RADIUS + 1) * (SWEEP_MAX_Y - SWEEP_MIN_Y + 1)][];
+
+    /** The player's feet and head block heights relative to the jump, by jump boost level and tick */
+    private static final int FALL_TICKS = 128;
+    private static final int[][] FALL_FEET = new int[5][];
+    private static final int[][] FALL_HEAD = new int[5][];
+    private static final double[] MAX_JUMP_HEIGHT = new double[5];
+
+    private static final double PLAYER_HEIGHT = 1.8;
+
     static {
     	final HashMap<Vec3i, JumpType> south = new HashMap<>();
         final HashMap<Vec3i, JumpType> west = new HashMap<>();
@@ -145,6 +181,38 @@ public class MovementParkourAdv extends Movement {
         ALL_VALID_DIR.put(Direction.WEST, west);
         ALL_VALID_DIR.put(Direction.NORTH, north);
         ALL_VALID_DIR.put(Direction.EAST, east);
+
+        for (Direction dir : ALL_VALID_DIR.keySet()) {
+            HashMap<Vec3i, JumpType> jumps = ALL_VALID_DIR.get(dir);
+            int index = dir.get2DDataValue();
+            JUMP_X[index] = new int[jumps.size()];
+            JUMP_Z[index] = new int[jumps.size()];
+            JUMP_TYPE[index] = new JumpType[jumps.size()];
+            int i = 0;
+            for (Map.Entry<Vec3i, JumpType> jump : jumps.entrySet()) {
+                JUMP_X[index][i] = jump.getKey().getX();
+                JUMP_Z[index][i] = jump.getKey().getZ();
+                JUMP_TYPE[index][i] = jump.getValue();
+                i++;
+            }
+        }
+        for (int x = -SWEEP_RADIUS; x <= SWEEP_RADIUS; x++) {
+            for (int z = -SWEEP_RADIUS; z <= SWEEP_RADIUS; z++) {
+                for (int y = SWEEP_MIN_Y; y <= SWEEP_MAX_Y; y++) {
+                    SWEEPS[sweepIndex(x, y, z)] = buildSweep(x, y, z);
+                }
+            }
+        }
+        for (int jumpBoost = 0; jumpBoost < FALL_FEET.length; jumpBoost++) {
+            FALL_FEET[jumpBoost] = new int[FALL_TICKS];
+            FALL_HEAD[jumpBoost] = new int[FALL_TICKS];
+            for (int tick = 0; tick < FALL_TICKS; tick++) {
+                double height = calcFallPosition(tick, true, jumpBoost);
+                FALL_FEET[jumpBoost][tick] = (int) height;
+                FALL_HEAD[jumpBoost][tick] = (int) Math.ceil(PLAYER_HEIGHT + height);
+            }
+            MAX_JUMP_HEIGHT[jumpBoost] = calcMaxJumpHeight(true, jumpBoost);
+        }
     }
 
     /** The moveDistance (a metric to determine the maximum jump lengths) of this jump */
@@ -396,52 +464,95 @@ public class MovementParkourAdv extends Movement {
         return out;
     }
 
-    private static final double PLAYER_HEIGHT = 1.8;
-
     // true if blocks are in the way
-    private static boolean checkBlocksInWay(CalculationContext context, int srcX, int srcY, int srcZ, Vec3i jump, int extraAscend, Direction jumpDirection, JumpType type, boolean sprint) {
-        if (!MovementHelper.fullyPassable(context, srcX + jump.getX(), srcY + jump.getY() + extraAscend, srcZ + jump.getZ()) || !MovementHelper.fullyPassable(context, srcX + jump.getX(), srcY + jump.getY() + extraAscend + 1, srcZ + jump.getZ())) {
+    private static boolean checkBlocksInWay(CalculationContext context, int srcX, int srcY, int srcZ, int jumpX, int jumpY, int jumpZ, int extraAscend, Direction jumpDirection, JumpType type, boolean sprint) {
+        if (!MovementHelper.fullyPassable(context, srcX + jumpX, srcY + jumpY + extraAscend, srcZ + jumpZ) || !MovementHelper.fullyPassable(context, srcX + jumpX, srcY + jumpY + extraAscend + 1, srcZ + jumpZ)) {
             return true; // Destination is blocked
         }
-        Direction entryDir = getValidEntryPoint(context, srcX, srcY, srcZ, jump.getX(), jump.getY() + extraAscend, jump.getZ(), jumpDirection, getDestDirection(jumpDirection, jump.getX(), jump.getZ()), type);
+        Direction entryDir = getValidEntryPoint(context, srcX, srcY, srcZ, jumpX, jumpY + extraAscend, jumpZ, jumpDirection, getDestDirection(jumpDirection, jumpX, jumpZ), type);
         if (entryDir == null) {
             return true;
         }
-        Vec3i endPoint = VecUtils.add(jump, -entryDir.getStepX() - jumpDirection.getStepX(), extraAscend, -entryDir.getStepZ() - jumpDirection.getStepZ());
-        Set<Vec3i> jumpLine = getLineApprox(endPoint, 0.3, 2);
-
-        int jumpBoost = getPotionEffectAmplifier(context.getBaritone().getPlayerContext(), MobEffects.JUMP);
-        double stepSize = sprint ? SPRINT_JUMP_DISTANCE : WALK_JUMP_DISTANCE; // estimates
-
+        int[] sweep = sweep(jumpX - entryDir.getStepX() - jumpDirection.getStepX(), jumpY + extraAscend, jumpZ - entryDir.getStepZ() - jumpDirection.getStepZ());
+        int tickOffset = sprint ? SWEEP_TICK_SPRINT : SWEEP_TICK_WALK; // estimates
+        if (type == JumpType.MOMENTUM) {
+            tickOffset = SWEEP_TICK_MOMENTUM;
+        }
+        // jumpDirection is subtracted at the beginning (re-added here)
+        int lineX = srcX + jumpDirection.getStepX();
+        int lineZ = srcZ + jumpDirection.getStepZ();
+        for (int i = 0; i < sweep.length; i += SWEEP_STRIDE) {
+            if (blockedAt(context, lineX + sweep[i], srcY + sweep[i + 1], lineZ + sweep[i + 2], sweep[i + tickOffset], context.jumpBoostLevel)) {
+                return true; // block in way
+            }
+        }
         if (type == JumpType.MOMENTUM) {
-            jumpLine.add(new Vec3i(-jumpDirection.getStepX(), 2, -jumpDirection.getStepZ())); // The block above the src is entered during a momentum jump (check block above head)
-            stepSize = MOMENTUM_JUMP_DISTANCE;
+            // The block above the src is entered during a momentum jump (check block above head), 1 block back from the start of the line
+            return blockedAt(context, srcX, srcY + 2, srcZ, (int) (1 / MOMENTUM_JUMP_DISTANCE) + 1, context.jumpBoostLevel);
         }
-        Iterator<Vec3i> jumpItr = jumpLine.iterator();
+        return false;
+    }
 
-        double prevHeight = 0;
-        int prevTick = 0;
-        for (int i = 0; i < jumpLine.size(); i++) {
-            Vec3i vec = jumpItr.next();
-            double distance = Math.sqrt(vec.getX() * vec.getX() + vec.getZ() * vec.getZ());
-            int tick = (int) (distance / stepSize) + 1;
-            if (tick == prevTick + 1) {
-                prevHeight += calcFallVelocity(tick, true, jumpBoost); // faster
-                prevTick = tick;
-            } else if (tick != prevTick) {
-                prevHeight = calcFallPosition(tick, true, jumpBoost); // slower
-                prevTick = tick;
-            }
-            for (int j = (int) prevHeight; j <= Math.ceil(PLAYER_HEIGHT + prevHeight); j++) { // Checks feet, head, for each block. (can double check some blocks on ascends/descends)
-                // jumpDirection is subtracted at the beginning (re-added here)
-                if (!MovementHelper.fullyPassable(context, vec.getX() + srcX + jumpDirection.getStepX(), vec.getY() + srcY + j, vec.getZ() + srcZ + jumpDirection.getStepZ())) {
-                    return true; // block in way
-                }
+    /**
+     * @return Whether there's a block in the way of the player's feet or head, at this tick of the jump
+     */
+    private static boolean blockedAt(CalculationContext context, int x, int y, int z, int tick, int jumpBoost) {
+        int feet;
+        int head;
+        if (jumpBoost >= 0 && jumpBoost < FALL_FEET.length && tick < FALL_TICKS) {
+            feet = FALL_FEET[jumpBoost][tick];
+            head = FALL_HEAD[jumpBoost][tick];
+        } else {
+            double height = calcFallPosition(tick, true, jumpBoost);
+            feet = (int) height;
+            head = (int) Math.ceil(PLAYER_HEIGHT + height);
+        }
+        for (int j = feet; j <= head; j++) { // Checks feet, head, for each block. (can double check some blocks on ascends/descends)
+            if (!MovementHelper.fullyPassable(context, x, y + j, z)) {
+                return true;
             }
         }
         return false;
     }
 
+    private static int sweepIndex(int x, int y, int z) {
+        return ((x + SWEEP_RADIUS) * (2 * SWEEP_RADIUS + 1) + (z + SWEEP_RADIUS)) * (SWEEP_MAX_Y - SWEEP_MIN_Y + 1) + (y - SWEEP_MIN_Y);
+    }
+
+    /**
+     * @return The blocks a jump line to this end point goes through, in {@link #SWEEP_STRIDE} ints each
+     */
+    private static int[] sweep(int x, int y, int z) {
+        if (Math.abs(x) <= SWEEP_RADIUS && Math.abs(z) <= SWEEP_RADIUS && y >= SWEEP_MIN_Y && y <= SWEEP_MAX_Y) {
+            return SWEEPS[sweepIndex(x, y, z)];
+        }
+        return buildSweep(x, y, z); // a really long fall, not worth having a table entry for
+    }
+
+    private static int[] buildSweep(int x, int y, int z) {
+        Set<Vec3i> jumpLine = getLineApprox(new Vec3i(x, y, z), 0.3, 2);
+        int[] sweep = new int[jumpLine.size() * SWEEP_STRIDE];
+        int i = 0;
+        for (Vec3i vec : jumpLine) {
+            double distance = Math.sqrt(vec.getX() * vec.getX() + vec.getZ() * vec.getZ());
+            sweep[i] = vec.getX();
+            sweep[i + 1] = vec.getY();
+            sweep[i + 2] = vec.getZ();
+            sweep[i + SWEEP_TICK_WALK] = (int) (distance / WALK_JUMP_DISTANCE) + 1;
+            sweep[i + SWEEP_TICK_SPRINT] = (int) (distance / SPRINT_JUMP_DISTANCE) + 1;
+            sweep[i + SWEEP_TICK_MOMENTUM] = (int) (distance / MOMENTUM_JUMP_DISTANCE) + 1;
+            i += SWEEP_STRIDE;
+        }
+        return sweep;
+    }
+
+    private static double maxJumpHeight(int jumpBoost) {
+        if (jumpBoost >= 0 && jumpBoost < MAX_JUMP_HEIGHT.length) {
+            return MAX_JUMP_HEIGHT[jumpBoost];
+        }
+        return calcMaxJumpHeight(true, jumpBoost);
+    }
+
     /**
      * Recalculates the cost for this jump making sure the cost has not changed since initial calculations.
      *
@@ -480,7 +591,7 @@ public class MovementParkourAdv extends Movement {
         }
 
         if (moveDis <= maxJump &&
-                !checkBlocksInWay(context, src.x, src.y, src.z, jump, 0, jumpDirection, initType, moveDis > type.maxJumpNoSprint)) { // no blocks in way
+                !checkBlocksInWay(context, src.x, src.y, src.z, jump.getX(), jump.getY(), jump.getZ(), 0, jumpDirection, initType, moveDis > type.maxJumpNoSprint)) { // no blocks in way
             cost = costFromJump(context, src.x, src.y, src.z, jump.getX(), jump.getY(), jump.getZ(), extraAscend, jumpDirection, type);
         }
 
@@ -488,37 +599,43 @@ public class MovementParkourAdv extends Movement {
     }
 
     public static Collection<Movement> cost(CalculationContext context, BetterBlockPos src, Direction jumpDirection) {
-    	MutableMoveResult res = new MutableMoveResult();
-    	Collection<Movement> out = new ArrayList<>();
-    	cost(context, src.getX(), src.getY(), src.getZ(), res, jumpDirection);
-    	while (res != null) {
-    	   	 if (res.cost >= COST_INF) {
-   	            res = res.getNext();
-	            continue;
-	         }
-
-	        Vec3i relativeOffset = new Vec3i(res.x - src.x, 0, res.z - src.z);
-	        JumpType type = ALL_VALID_DIR.get(jumpDirection).get(relativeOffset);
-		
-		//BaritoneAPI.getSettings().logger.value.accept(Component.literal(type.toString()));
-
-
-	        if (type == JumpType.MOMENTUM) {
-    int oppositeXOffset = -jumpDirection.getStepX();
-    int oppositeZOffset = -jumpDirection.getStepZ();
-    
-    if (MovementHelper.fullyPassable(context, src.getX() + oppositeXOffset, src.getY(), src.getZ() + oppositeZOffset) &&
-        MovementHelper.fullyPassable(context, src.getX() + oppositeXOffset, src.getY() + 1, src.getZ() + oppositeZOffset)) {
-        type = JumpType.MOMENTUM_NO_BLOCK;
-    } else {
-        type = JumpType.MOMENTUM_BLOCK;
+        MutableMoveResult res = new MutableMoveResult();
+        Collection<Movement> out = new ArrayList<>();
+        cost(context, src.getX(), src.getY(), src.getZ(), res, jumpDirection);
+        for (; res != null; res = res.getNext()) {
+            if (res.cost >= COST_INF) {
+                continue;
+            }
+            MovementParkourAdv movement = create(context, src, new BetterBlockPos(res.x, res.y, res.z), jumpDirection);
+            if (movement != null) {
+                out.add(movement);
+            }
+        }
+        return out;
     }
-}
 
-	        out.add(new MovementParkourAdv(context, src, new BetterBlockPos(res.x, res.y, res.z), jumpDirection, type));
-	        res = res.getNext();
-	    }
-	    return out;
+    /**
+     * Creates the one jump from src to dest, without working out every other jump in this direction like
+     * {@link #cost(CalculationContext, BetterBlockPos, Direction)} does
+     *
+     * @return The jump, or null if dest isn't somewhere a jump in this direction can go
+     */
+    public static MovementParkourAdv create(CalculationContext context, BetterBlockPos src, BetterBlockPos dest, Direction jumpDirection) {
+        JumpType type = ALL_VALID_DIR.get(jumpDirection).get(new Vec3i(dest.x - src.x, 0, dest.z - src.z));
+        if (type == null) {
+            return null;
+        }
+        if (type == JumpType.MOMENTUM) {
+            int oppositeXOffset = -jumpDirection.getStepX();
+            int oppositeZOffset = -jumpDirection.getStepZ();
+            if (MovementHelper.fullyPassable(context, src.x + oppositeXOffset, src.y, src.z + oppositeZOffset) &&
+                    MovementHelper.fullyPassable(context, src.x + oppositeXOffset, src.y + 1, src.z + oppositeZOffset)) {
+                type = JumpType.MOMENTUM_NO_BLOCK;
+            } else {
+                type = JumpType.MOMENTUM_BLOCK;
+            }
+        }
+        return new MovementParkourAdv(context, src, dest, jumpDirection, type);
     }
 
 public static void cost(CalculationContext context, int srcX, int srcY, int srcZ, MutableMoveResult res, Direction jumpDirection) {
@@ -572,11 +689,11 @@ public static void cost(CalculationContext context, int srcX, int srcY, int srcZ
         extraAscend += 0.5;
     }
 
-    MutableMoveResult root = res;
-    firstResult = true;
-
-    for (Vec3i posbJump : ALL_VALID_DIR.get(jumpDirection).keySet()) {
-        JumpType type = ALL_VALID_DIR.get(jumpDirection).get(posbJump);
+    int dir = jumpDirection.get2DDataValue();
+    for (int jump = 0; jump < JUMP_TYPE[dir].length; jump++) {
+        int posbX = JUMP_X[dir][jump];
+        int posbZ = JUMP_Z[dir][jump];
+        JumpType type = JUMP_TYPE[dir][jump];
 
 
 	//if (!type){
@@ -588,9 +705,9 @@ public static void cost(CalculationContext context, int srcX, int srcY, int srcZ
             continue;
         }
 
-        int destX = srcX + posbJump.getX();
+        int destX = srcX + posbX;
         int destY = srcY;
-        int destZ = srcZ + posbJump.getZ();
+        int destZ = srcZ + posbZ;
 
         final double maxJump;
         if (context.canSprint) {
@@ -612,24 +729,24 @@ public static void cost(CalculationContext context, int srcX, int srcY, int srcZ
 	// temporary fix?
 
         if (!MovementHelper.fullyPassable(context, destX, destY, destZ, destInto) && type != JumpType.NORMAL_STRAIGHT_DESCEND) {
-            moveDis = calcMoveDist(context, srcX, srcY, srcZ, posbJump.getX(), posbJump.getY() + 1, posbJump.getZ(), extraAscend, jumpDirection);
+            moveDis = calcMoveDist(context, srcX, srcY, srcZ, posbX, 1, posbZ, extraAscend, jumpDirection);
 
             if (moveDis > maxJump) {
-                continue; // jump is too long (recalculated with new posbJump)
+                continue; // jump is too long (recalculated with the ascend)
             }
 
             if (context.allowParkourAscend && MovementHelper.canWalkOn(context.bsi, destX, destY, destZ, destInto)) {
                 destY += 1;
 
-                if (checkBlocksInWay(context, srcX, srcY, srcZ, posbJump, 1, jumpDirection, type, moveDis > type.maxJumpNoSprint)) {
+                if (checkBlocksInWay(context, srcX, srcY, srcZ, posbX, 0, posbZ, 1, jumpDirection, type, moveDis > type.maxJumpNoSprint)) {
                     continue; // Blocks are in the way
                 }
-                addMoveResult(context, srcX, srcY, srcZ, destX, destY, destZ, extraAscend, posbJump, jumpDirection, type, 0, res);
+                res = addMoveResult(context, srcX, srcY, srcZ, destX, destY, destZ, extraAscend, posbX, posbZ, jumpDirection, type, 0, res);
             }
             continue;
         }
 
-        moveDis = calcMoveDist(context, srcX, srcY, srcZ, posbJump.getX(), posbJump.getY(), posbJump.getZ(), extraAscend, jumpDirection);
+        moveDis = calcMoveDist(context, srcX, srcY, srcZ, posbX, 0, posbZ, extraAscend, jumpDirection);
         if (moveDis > maxJump) {
             continue; // jump is too long (usually due to ascending (slab) or no sprint)
         }
@@ -639,10 +756,10 @@ public static void cost(CalculationContext context, int srcX, int srcY, int srcZ
 
             // farmland needs to be canWalkOn otherwise farm can never work at all, but we want to specifically disallow ending a jump on farmland
             if (landingOn.getBlock() != Blocks.FARMLAND && (MovementHelper.canWalkOn(context.bsi, destX, destY - descendAmount - 1, destZ, landingOn) /* || landingOn.getBlock() == Blocks.WATER */)) {
-                if (checkBlocksInWay(context, srcX, srcY, srcZ, posbJump, -descendAmount, jumpDirection, type, (moveDis + descendAmount * DESCEND_DIST_PER_BLOCK) > type.maxJumpNoSprint)) {
+                if (checkBlocksInWay(context, srcX, srcY, srcZ, posbX, 0, posbZ, -descendAmount, jumpDirection, type, (moveDis + descendAmount * DESCEND_DIST_PER_BLOCK) > type.maxJumpNoSprint)) {
                     continue; // Blocks are in the way
                 }
-                addMoveResult(context, srcX, srcY, srcZ, destX, destY - descendAmount, destZ, extraAscend - descendAmount, posbJump, jumpDirection, type, 0, res);
+                res = addMoveResult(context, srcX, srcY, srcZ, destX, destY - descendAmount, destZ, extraAscend - descendAmount, posbX, posbZ, jumpDirection, type, 0, res);
             }
         }
 
@@ -660,8 +777,8 @@ public static void cost(CalculationContext context, int srcX, int srcY, int srcZ
             continue; // Solid/Non-replaceable block here
         }
 
-        int jumpX = posbJump.getX() - xDiff;
-        int jumpZ = posbJump.getZ() - zDiff;
+        int jumpX = posbX - xDiff;
+        int jumpZ = posbZ - zDiff;
         double jumpLength = Math.sqrt(jumpX * jumpX + jumpZ * jumpZ);
         boolean blocksCheckedYet = false;
 
@@ -674,45 +791,41 @@ public static void cost(CalculationContext context, int srcX, int srcY, int srcZ
                 double angle = Math.acos((againstX * jumpX + againstZ * jumpZ) / jumpLength) * RotationUtils.RAD_TO_DEG;
                 if (angle <= 90) { // we can't turn around that fast
                     if (!blocksCheckedYet) { // reduce expensive block checking
-                        if (checkBlocksInWay(context, srcX, srcY, srcZ, posbJump, 0, jumpDirection, type, moveDis > type.maxJumpNoSprint)) {
+                        if (checkBlocksInWay(context, srcX, srcY, srcZ, posbX, 0, posbZ, 0, jumpDirection, type, moveDis > type.maxJumpNoSprint)) {
                             break;
                         }
                         blocksCheckedYet = true;
                     }
-                    addMoveResult(context, srcX, srcY, srcZ, destX, destY, destZ, extraAscend, posbJump, jumpDirection, type, placeCost, res);
+                    res = addMoveResult(context, srcX, srcY, srcZ, destX, destY, destZ, extraAscend, posbX, posbZ, jumpDirection, type, placeCost, res);
                 }
             }
         }
     }
-    res = root;
 }
-    
-    private static boolean firstResult;
 
-private static void addMoveResult(CalculationContext context, int srcX, int srcY, int srcZ, int destX, int destY, int destZ, double extraAscend, Vec3i jump, Direction jumpDirection, JumpType type, double costModifiers, MutableMoveResult res) {
+/**
+ * Adds the jump to the end of the result chain if it's possible. res is the end of the chain so far, so every result
+ * is kept instead of each one overwriting the second, and nothing is shared between calculations.
+ *
+ * @return The new end of the chain
+ */
+private static MutableMoveResult addMoveResult(CalculationContext context, int srcX, int srcY, int srcZ, int destX, int destY, int destZ, double extraAscend, int jumpX, int jumpZ, Direction jumpDirection, JumpType type, double costModifiers, MutableMoveResult res) {
 
     // jump overlaps with another possible jump
     if (type == JumpType.EDGE &&
-            ((Math.abs(jump.getX()) == 1 && Math.abs(jump.getZ()) == 3) || (Math.abs(jump.getX()) == 3 && Math.abs(jump.getZ()) == 1))) {
-        Direction destDirection = getDestDirection(jumpDirection, jump.getX(), jump.getZ());
-        double moveDist = calcMoveDist(context, srcX, srcY, srcZ, jump.getX(), destY - srcY, jump.getZ(), extraAscend, destDirection);
-        if (!checkBlocksInWay(context, srcX, srcY, srcZ, jump, destY - srcY, destDirection, JumpType.NORMAL, moveDist > JumpType.NORMAL.maxJumpNoSprint)) {
-            return;
+            ((Math.abs(jumpX) == 1 && Math.abs(jumpZ) == 3) || (Math.abs(jumpX) == 3 && Math.abs(jumpZ) == 1))) {
+        Direction destDirection = getDestDirection(jumpDirection, jumpX, jumpZ);
+        double moveDist = calcMoveDist(context, srcX, srcY, srcZ, jumpX, destY - srcY, jumpZ, extraAscend, destDirection);
+        if (!checkBlocksInWay(context, srcX, srcY, srcZ, jumpX, 0, jumpZ, destY - srcY, destDirection, JumpType.NORMAL, moveDist > JumpType.NORMAL.maxJumpNoSprint)) {
+            return res;
         }
     }
 
-    double cost = costFromJump(context, srcX, srcY, srcZ, jump.getX(), destY - srcY, jump.getZ(), extraAscend, jumpDirection, type) + costModifiers;
+    double cost = costFromJump(context, srcX, srcY, srcZ, jumpX, destY - srcY, jumpZ, extraAscend, jumpDirection, type) + costModifiers;
     if (cost < COST_INF) {
-        if (firstResult) {
-            firstResult = false;
-        } else {
-            res = res.nextPotentialDestination();
-        }
-        res.x = destX;
-        res.y = destY;
-        res.z = destZ;
-        res.cost = cost;
+        return res.append(destX, destY, destZ, cost);
     }
+    return res;
 }
 
 
@@ -736,7 +849,7 @@ private static double calcMoveDist(CalculationContext context, int srcX, int src
 
     // Modifying distance so that ascends have larger distances while descends have smaller
     if (ascendAmount > 0) {
-        if (ascendAmount > calcMaxJumpHeight(true, getPotionEffectAmplifier(context.baritone.getPlayerContext(), MobEffects.JUMP))) {
+        if (ascendAmount > maxJumpHeight(context.jumpBoostLevel)) {
             return COST_INF; // any value > the highest sprint jump distance (about 5)
         }
         distance += ascendAmount * ASCEND_DIST_PER_BLOCK;
@@ -816,7 +929,7 @@ private static double costFromJump(CalculationContext context, int srcX, int src
             }
             break;
     }
-    return type.prepCost + calcJumpTime(jumpY + extraAscend, true, context.baritone.getPlayerContext()) + costMod + LAND_COST;
+    return type.prepCost + calcJumpTime(jumpY + extraAscend, true, context.jumpBoostLevel) + costMod + LAND_COST;
 }
 
 
@@ -17,18 +17,57 @@
 
 package baritone.pathing.precompute;
 
+import baritone.Baritone;
 import baritone.pathing.movement.MovementHelper;
 import baritone.utils.BlockStateInterface;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import static baritone.pathing.precompute.Ternary.MAYBE;
 import static baritone.pathing.precompute.Ternary.YES;
 
 public class PrecomputedData {
 
+    /**
+     * The one every context uses, until a setting that changes what goes in it does
+     */
+    private static volatile PrecomputedData shared;
+
     private final int[] data = new int[Block.BLOCK_STATE_REGISTRY.size()];
 
+    /**
+     * The values of the settings this was filled in with
+     */
+    private final List<Object> settings = settings();
+
+    /**
+     * @return The shared instance, or a new one if the settings it depends on have changed since it was made
+     */
+    public static PrecomputedData get() {
+        PrecomputedData data = shared;
+        if (data == null || !data.settings.equals(settings())) {
+            data = new PrecomputedData();
+            shared = data;
+        }
+        return data;
+    }
+
+    /**
+     * @return The values of the settings that {@link MovementHelper}'s block state checks depend on
+     */
+    private static List<Object> settings() {
+        return Arrays.asList(
+                new ArrayList<>(Baritone.settings().blocksToAvoid.value),
+                Baritone.settings().allowVines.value,
+                Baritone.settings().assumeWalkOnLava.value,
+                Baritone.settings().allowWalkOnBottomSlab.value
+        );
+    }
+
     private static final int COMPLETED_MASK = 1 << 0;
     private static final int CAN_WALK_ON_MASK = 1 << 1;
     private static final int CAN_WALK_ON_SPECIAL_MASK = 1 << 2;
@@ -70,43 +109,77 @@ public class PrecomputedData {
         return blockData;
     }
 
-    public boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+    /**
+     * @return The flags for this block state, which are never 0, working them out if this is the first time it's come up
+     */
+    public int getFlags(BlockState state) {
         int id = Block.BLOCK_STATE_REGISTRY.getId(state);
         int blockData = data[id];
 
         if ((blockData & COMPLETED_MASK) == 0) { // we need to fill in the data
             blockData = fillData(id, state);
         }
+        return blockData;
+    }
 
+    public boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z) {
+        int blockData = bsi.getFlags(this, x, y, z);
+        if (blockData == 0) { // not in a snapshot section, so look the block up
+            return canWalkOn(bsi, x, y, z, bsi.get0(x, y, z));
+        }
         if ((blockData & CAN_WALK_ON_SPECIAL_MASK) != 0) {
-            return MovementHelper.canWalkOnPosition(bsi, x, y, z, state);
+            return MovementHelper.canWalkOnPosition(bsi, x, y, z, bsi.get0(x, y, z));
         } else {
             return (blockData & CAN_WALK_ON_MASK) != 0;
         }
     }
 
-    public boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
-        int id = Block.BLOCK_STATE_REGISTRY.getId(state);
-        int blockData = data[id];
+    public boolean canWalkOn(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+        int blockData = getFlags(state);
 
-        if ((blockData & COMPLETED_MASK) == 0) { // we need to fill in the data
-            blockData = fillData(id, state);
+        if ((blockData & CAN_WALK_ON_SPECIAL_MASK) != 0) {
+            return MovementHelper.canWalkOnPosition(bsi, x, y, z, state);
+        } else {
+            return (blockData & CAN_WALK_ON_MASK) != 0;
         }
+    }
 
+    public boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z) {
+        int blockData = bsi.getFlags(this, x, y, z);
+        if (blockData == 0) { // not in a snapshot section, so look the block up
+            return canWalkThrough(bsi, x, y, z, bsi.get0(x, y, z));
+        }
         if ((blockData & CAN_WALK_THROUGH_SPECIAL_MASK) != 0) {
-            return MovementHelper.canWalkThroughPosition(bsi, x, y, z, state);
+            return MovementHelper.canWalkThroughPosition(bsi, x, y, z, bsi.get0(x, y, z));
         } else {
             return (blockData & CAN_WALK_THROUGH_MASK) != 0;
         }
     }
 
-    public boolean fullyPassable(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
-        int id = Block.BLOCK_STATE_REGISTRY.getId(state);
-        int blockData = data[id];
+    public boolean canWalkThrough(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+        int blockData = getFlags(state);
 
-        if ((blockData & COMPLETED_MASK) == 0) { // we need to fill in the data
-            blockData = fillData(id, state);
+        if ((blockData & CAN_WALK_THROUGH_SPECIAL_MASK) != 0) {
+            return MovementHelper.canWalkThroughPosition(bsi, x, y, z, state);
+        } else {
+            return (blockData & CAN_WALK_THROUGH_MASK) != 0;
+        }
+    }
+
+    public boolean fullyPassable(BlockStateInterface bsi, int x, int y, int z) {
+        int blockData = bsi.getFlags(this, x, y, z);
+        if (blockData == 0) { // not in a snapshot section, so look the block up
+            return fullyPassable(bsi, x, y, z, bsi.get0(x, y, z));
         }
+        if ((blockData & FULLY_PASSABLE_SPECIAL_MASK) != 0) {
+            return MovementHelper.fullyPassablePosition(bsi, x, y, z, bsi.get0(x, y, z));
+        } else {
+            return (blockData & FULLY_PASSABLE_MASK) != 0;
+        }
+    }
+
+    public boolean fullyPassable(BlockStateInterface bsi, int x, int y, int z, BlockState state) {
+        int blockData = getFlags(state);
 
         if ((blockData & FULLY_PASSABLE_SPECIAL_MASK) != 0) {
             return MovementHelper.fullyPassablePosition(bsi, x, y, z, state);
@@ -21,6 +21,7 @@ import baritone.Baritone;
 import baritone.api.utils.IPlayerContext;
 import baritone.cache.CachedRegion;
 import baritone.cache.WorldData;
+import baritone.pathing.precompute.PrecomputedData;
 import baritone.utils.accessor.IClientChunkProvider;
 import baritone.utils.pathing.BetterWorldBorder;
 import net.minecraft.client.multiplayer.ClientChunkCache;
@@ -30,6 +31,7 @@ import net.minecraft.world.level.Level;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.border.WorldBorder;
 import net.minecraft.world.level.chunk.ChunkStatus;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
@@ -42,14 +44,39 @@ import net.minecraft.world.level.chunk.LevelChunkSection;
 public class BlockStateInterface {
 
     private final ClientChunkCache provider;
+
+    /**
+     * The chunks to read instead of {@link #provider}'s, if this is for use on another thread
+     */
+    private final WorldSnapshot snapshot;
+
     private final WorldData worldData;
     protected final Level world;
     public final BlockPos.MutableBlockPos isPassableBlockPos;
     public final BlockGetter access;
     public final BetterWorldBorder worldBorder;
 
-    private LevelChunk prev = null;
-    private CachedRegion prevCached = null;
+    /**
+     * The bottom of the world, and how many blocks tall it is
+     */
+    public final int minY;
+    public final int height;
+
+    /**
+     * The chunks and regions looked up most recently, direct mapped by the low bits of their coordinates, so that a
+     * movement that crosses into the chunks next to it doesn't have to look each one up again every time.
+     * <p>
+     * 4x4 chunks, of which only one set is used depending on whether this is for another thread, and 2x2 regions.
+     */
+    private final LevelChunk[] chunkWindow = new LevelChunk[16];
+    private final ChunkSnapshot[] snapshotWindow = new ChunkSnapshot[16];
+    private final CachedRegion[] regionWindow = new CachedRegion[4];
+
+    /**
+     * How many chunk and region lookups were in the windows, and how many weren't, for profiling
+     */
+    private long windowHits;
+    private long windowMisses;
 
     private final boolean useTheRealWorld;
 
@@ -62,21 +89,68 @@ public class BlockStateInterface {
     public BlockStateInterface(IPlayerContext ctx, boolean copyLoadedChunks) {
         this.world = ctx.world();
         this.worldBorder = new BetterWorldBorder(world.getWorldBorder());
+        this.minY = world.dimensionType().minY();
+        this.height = world.dimensionType().height();
         this.worldData = (WorldData) ctx.worldData();
+        if (!ctx.minecraft().isSameThread()) {
+            throw new IllegalStateException();
+        }
+        this.provider = (ClientChunkCache) world.getChunkSource();
         if (copyLoadedChunks) {
-            this.provider = ((IClientChunkProvider) world.getChunkSource()).createThreadSafeCopy();
+            // the client changes its chunks while the path thread reads them, so take a copy that won't change
+            this.snapshot = ((IClientChunkProvider) provider).snapshot();
         } else {
-            this.provider = (ClientChunkCache) world.getChunkSource();
+            this.snapshot = null;
         }
         this.useTheRealWorld = !Baritone.settings().pathThroughCachedOnly.value;
-        if (!ctx.minecraft().isSameThread()) {
-            throw new IllegalStateException();
-        }
+        this.isPassableBlockPos = new BlockPos.MutableBlockPos();
+        this.access = new BlockStateInterfaceAccessWrapper(this);
+    }
+
+    /**
+     * A view of the same chunks as another BlockStateInterface, with its own caches so that it can be used on another
+     * thread at the same time as the original. Only makes sense if the other one was made with copyLoadedChunks.
+     *
+     * @param other The BlockStateInterface to copy
+     */
+    public BlockStateInterface(BlockStateInterface other) {
+        this.world = other.world;
+        this.worldBorder = other.worldBorder;
+        this.minY = other.minY;
+        this.height = other.height;
+        this.worldData = other.worldData;
+        this.provider = other.provider;
+        this.snapshot = other.snapshot;
+        this.useTheRealWorld = other.useTheRealWorld;
+        this.isPassableBlockPos = new BlockPos.MutableBlockPos();
+        this.access = new BlockStateInterfaceAccessWrapper(this);
+    }
+
+    /**
+     * A view of chunks that aren't from the client's world, for tests and benchmarks to path through without a client.
+     * There's no world border and no chunk cache, so only the chunks in the snapshot are loaded.
+     *
+     * @param snapshot The chunks, see {@link WorldSnapshot#of}
+     * @param minY     The bottom of the world
+     * @param height   How many blocks tall the world is
+     */
+    public BlockStateInterface(WorldSnapshot snapshot, int minY, int height) {
+        this.world = null;
+        this.worldBorder = new BetterWorldBorder(new WorldBorder());
+        this.minY = minY;
+        this.height = height;
+        this.worldData = null;
+        this.provider = null;
+        this.snapshot = snapshot;
+        this.useTheRealWorld = true;
         this.isPassableBlockPos = new BlockPos.MutableBlockPos();
         this.access = new BlockStateInterfaceAccessWrapper(this);
     }
 
     public boolean worldContainsLoadedChunk(int blockX, int blockZ) {
+        if (snapshot != null) {
+            return snapshot.getChunk(blockX >> 4, blockZ >> 4) != null;
+        }
         return provider.hasChunk(blockX >> 4, blockZ >> 4);
     }
 
@@ -95,73 +169,143 @@ public class BlockStateInterface {
     }
 
     public BlockState get0(int x, int y, int z) { // Mickey resigned
-        y -= world.dimensionType().minY();
+        y -= minY;
         // Invalid vertical position
-        if (y < 0 || y >= world.dimensionType().height()) {
+        if (y < 0 || y >= height) {
             return AIR;
         }
 
-        if (useTheRealWorld) {
-            LevelChunk cached = prev;
+        if (useTheRealWorld && snapshot != null) {
+            ChunkSnapshot chunk = snapshotChunk(x >> 4, z >> 4);
+            if (chunk != null) {
+                return chunk.get(x, y, z);
+            }
+        } else if (useTheRealWorld) {
             // there's great cache locality in block state lookups
-            // generally it's within each movement
-            // if it's the same chunk as last time
-            // we can just skip the mc.world.getChunk lookup
-            // which is a Long2ObjectOpenHashMap.get
+            // generally it's within each movement, or the chunks right next to it
+            // so the window usually lets us skip the mc.world.getChunk lookup
             // see issue #113
-            if (cached != null && cached.getPos().x == x >> 4 && cached.getPos().z == z >> 4) {
-                return getFromChunk(cached, x, y, z);
-            }
-            LevelChunk chunk = provider.getChunk(x >> 4, z >> 4, ChunkStatus.FULL, false);
-            if (chunk != null && !chunk.isEmpty()) {
-                prev = chunk;
+            LevelChunk chunk = loadedChunk(x >> 4, z >> 4);
+            if (chunk != null) {
                 return getFromChunk(chunk, x, y, z);
             }
         }
         // same idea here, skip the Long2ObjectOpenHashMap.get if at all possible
         // except here, it's 512x512 tiles instead of 16x16, so even better repetition
-        CachedRegion cached = prevCached;
-        if (cached == null || cached.getX() != x >> 9 || cached.getZ() != z >> 9) {
-            if (worldData == null) {
-                return AIR;
-            }
-            CachedRegion region = worldData.cache.getRegion(x >> 9, z >> 9);
-            if (region == null) {
-                return AIR;
-            }
-            prevCached = region;
-            cached = region;
+        CachedRegion cached = cachedRegion(x >> 9, z >> 9);
+        if (cached == null) {
+            return AIR;
         }
-        BlockState type = cached.getBlock(x & 511, y + world.dimensionType().minY(), z & 511);
+        BlockState type = cached.getBlock(x & 511, y + minY, z & 511);
         if (type == null) {
             return AIR;
         }
         return type;
     }
 
+    /**
+     * The same as {@code data.getFlags(get0(x, y, z))}, except that in a loaded chunk of the snapshot it's one lookup in
+     * the flags of the block's section, worked out once for each section
+     *
+     * @return The flags, or 0 if they aren't kept for this position, in which case the block has to be looked up
+     */
+    public int getFlags(PrecomputedData data, int x, int y, int z) {
+        if (!useTheRealWorld || snapshot == null) {
+            return 0;
+        }
+        y -= minY;
+        if (y < 0 || y >= height) {
+            return 0;
+        }
+        ChunkSnapshot chunk = snapshotChunk(x >> 4, z >> 4);
+        if (chunk == null) {
+            return 0;
+        }
+        return chunk.getFlags(data, x, y, z);
+    }
+
     public boolean isLoaded(int x, int z) {
-        LevelChunk prevChunk = prev;
-        if (prevChunk != null && prevChunk.getPos().x == x >> 4 && prevChunk.getPos().z == z >> 4) {
+        if (snapshot != null ? snapshotChunk(x >> 4, z >> 4) != null : loadedChunk(x >> 4, z >> 4) != null) {
             return true;
         }
-        prevChunk = provider.getChunk(x >> 4, z >> 4, ChunkStatus.FULL, false);
-        if (prevChunk != null && !prevChunk.isEmpty()) {
-            prev = prevChunk;
-            return true;
+        CachedRegion region = cachedRegion(x >> 9, z >> 9);
+        return region != null && region.isCached(x & 511, z & 511);
+    }
+
+    private static int windowIndex(int chunkX, int chunkZ) {
+        return (chunkX & 3) << 2 | (chunkZ & 3);
+    }
+
+    /**
+     * @return The chunk from the snapshot, or null if it wasn't loaded
+     */
+    private ChunkSnapshot snapshotChunk(int chunkX, int chunkZ) {
+        int index = windowIndex(chunkX, chunkZ);
+        ChunkSnapshot chunk = snapshotWindow[index];
+        if (chunk != null && chunk.x == chunkX && chunk.z == chunkZ) {
+            windowHits++;
+            return chunk;
         }
-        CachedRegion prevRegion = prevCached;
-        if (prevRegion != null && prevRegion.getX() == x >> 9 && prevRegion.getZ() == z >> 9) {
-            return prevRegion.isCached(x & 511, z & 511);
+        windowMisses++;
+        chunk = snapshot.getChunk(chunkX, chunkZ);
+        if (chunk != null) {
+            snapshotWindow[index] = chunk;
         }
+        return chunk;
+    }
+
+    /**
+     * @return The chunk from the client's loaded chunks, or null if it isn't loaded
+     */
+    private LevelChunk loadedChunk(int chunkX, int chunkZ) {
+        int index = windowIndex(chunkX, chunkZ);
+        LevelChunk chunk = chunkWindow[index];
+        if (chunk != null && chunk.getPos().x == chunkX && chunk.getPos().z == chunkZ) {
+            windowHits++;
+            return chunk;
+        }
+        windowMisses++;
+        chunk = provider.getChunk(chunkX, chunkZ, ChunkStatus.FULL, false);
+        if (chunk == null || chunk.isEmpty()) {
+            return null;
+        }
+        chunkWindow[index] = chunk;
+        return chunk;
+    }
+
+    /**
+     * @return The cached region, or null if it isn't in RAM yet
+     */
+    private CachedRegion cachedRegion(int regionX, int regionZ) {
+        int index = (regionX & 1) << 1 | (regionZ & 1);
+        CachedRegion region = regionWindow[index];
+        if (region != null && region.getX() == regionX && region.getZ() == regionZ && !region.isEvicted()) {
+            windowHits++;
+            return region;
+        }
+        windowMisses++;
         if (worldData == null) {
-            return false;
+            return null;
         }
-        prevRegion = worldData.cache.getRegion(x >> 9, z >> 9);
-        if (prevRegion == null) {
-            return false;
+        region = worldData.cache.getRegionNonBlocking(regionX, regionZ);
+        if (region != null) {
+            regionWindow[index] = region;
         }
-        prevCached = prevRegion;
-        return prevRegion.isCached(x & 511, z & 511);
+        return region;
+    }
+
+    /**
+     * @return How many chunk and region lookups so far were found in the lookup windows
+     */
+    public long getWindowHits() {
+        return windowHits;
+    }
+
+    /**
+     * @return How many chunk and region lookups so far weren't found in the lookup windows, and had to be looked up
+     */
+    public long getWindowMisses() {
+        return windowMisses;
     }
 
     // get the block at x,y,z from this chunk WITHOUT creating a single blockpos object
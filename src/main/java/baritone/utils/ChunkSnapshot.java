@@ -0,0 +1,146 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package baritone.utils;
+
+import baritone.pathing.precompute.PrecomputedData;
+import baritone.utils.accessor.IChunkSection;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.List;
+
+/**
+ * A copy of the blocks in a loaded chunk, that never changes once it's made, so the path thread can read it while the
+ * client changes the real chunk
+ * <p>
+ * Each section is copied as its palette and the palette id of each block, which is about as quick to copy as an array
+ * and the same speed to read as the real section. Sections that haven't changed since the last snapshot of the chunk
+ * are shared with it instead of being copied again.
+ */
+public final class ChunkSnapshot {
+
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    /**
+     * The chunk x coordinate
+     */
+    public final int x;
+
+    /**
+     * The chunk z coordinate
+     */
+    public final int z;
+
+    /**
+     * The copy of each section, bottom to top, or null if the section is all air
+     */
+    private final SectionSnapshot[] sections;
+
+    /**
+     * The real sections that these are copies of, and the {@link IChunkSection#version()} of each when it was copied,
+     * or null if it isn't a copy of a real chunk
+     */
+    private final LevelChunkSection[] sources;
+    private final int[] versions;
+
+    private ChunkSnapshot(int x, int z, SectionSnapshot[] sections, LevelChunkSection[] sources, int[] versions) {
+        this.x = x;
+        this.z = z;
+        this.sections = sections;
+        this.sources = sources;
+        this.versions = versions;
+    }
+
+    /**
+     * @param y The y coordinate, from the bottom of the world rather than from 0
+     */
+    public BlockState get(int x, int y, int z) {
+        SectionSnapshot section = sections[y >> 4];
+        if (section == null) {
+            return AIR;
+        }
+        return section.get(x, y, z);
+    }
+
+    /**
+     * @param y The y coordinate, from the bottom of the world rather than from 0
+     * @return The {@link PrecomputedData#getFlags(BlockState)} of the block at this position
+     */
+    public int getFlags(PrecomputedData data, int x, int y, int z) {
+        SectionSnapshot section = sections[y >> 4];
+        if (section == null) {
+            return data.getFlags(AIR);
+        }
+        return section.getFlags(data, x, y, z);
+    }
+
+    /**
+     * Copies a chunk, only on the client thread. The previous snapshot of it is returned as it is if nothing in the
+     * chunk has changed since.
+     *
+     * @param chunk    The chunk to copy
+     * @param previous The last snapshot of the same chunk, or null
+     * @return The snapshot
+     */
+    static ChunkSnapshot take(LevelChunk chunk, ChunkSnapshot previous) {
+        LevelChunkSection[] sources = chunk.getSections();
+        // the sections array is the same for as long as the chunk is loaded, a reloaded chunk is a new one
+        boolean samePrevious = previous != null && previous.sources == sources;
+        if (samePrevious && previous.upToDate()) {
+            return previous;
+        }
+        SectionSnapshot[] sections = new SectionSnapshot[sources.length];
+        int[] versions = new int[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            LevelChunkSection section = sources[i];
+            versions[i] = ((IChunkSection) section).version();
+            if (samePrevious && previous.versions[i] == versions[i]) {
+                sections[i] = previous.sections[i];
+            } else {
+                sections[i] = section.hasOnlyAir() ? null : new SectionSnapshot(section.getStates().copy());
+            }
+        }
+        return new ChunkSnapshot(chunk.getPos().x, chunk.getPos().z, sections, sources, versions);
+    }
+
+    /**
+     * A chunk that isn't from the client's world, for tests and benchmarks to path through
+     *
+     * @param sections The blocks of each section, bottom to top, or null where it's all air. These aren't copied, so
+     *                 they mustn't be changed afterwards.
+     * @return The snapshot
+     */
+    public static ChunkSnapshot of(int x, int z, List<PalettedContainer<BlockState>> sections) {
+        SectionSnapshot[] snapshots = new SectionSnapshot[sections.size()];
+        for (int i = 0; i < snapshots.length; i++) {
+            snapshots[i] = sections.get(i) == null ? null : new SectionSnapshot(sections.get(i));
+        }
+        return new ChunkSnapshot(x, z, snapshots, null, null);
+    }
+
+    private boolean upToDate() {
+        for (int i = 0; i < sources.length; i++) {
+            if (((IChunkSection) sources[i]).version() != versions[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
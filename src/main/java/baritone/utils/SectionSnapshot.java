@@ -0,0 +1,109 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package baritone.utils;
+
+import baritone.pathing.precompute.PrecomputedData;
+import baritone.utils.accessor.IPalettedContainer;
+import net.minecraft.util.BitStorage;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.GlobalPalette;
+import net.minecraft.world.level.chunk.Palette;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.Arrays;
+
+/**
+ * The copy of one chunk section in a {@link ChunkSnapshot}, and the {@link PrecomputedData} flags of each of its
+ * blocks, worked out the first time they're needed
+ * <p>
+ * Since the copy never changes, neither do the flags. A section that changes gets a new copy in the next snapshot, and
+ * with it new flags.
+ */
+final class SectionSnapshot {
+
+    private final PalettedContainer<BlockState> states;
+
+    /**
+     * The flags and what they were worked out with, replaced if a different PrecomputedData asks
+     */
+    private volatile Flags flags;
+
+    SectionSnapshot(PalettedContainer<BlockState> states) {
+        this.states = states;
+    }
+
+    BlockState get(int x, int y, int z) {
+        return states.get(x & 15, y & 15, z & 15);
+    }
+
+    /**
+     * @return The flags of the block at this position, see {@link PrecomputedData#getFlags(BlockState)}
+     */
+    int getFlags(PrecomputedData data, int x, int y, int z) {
+        Flags flags = this.flags;
+        if (flags == null || flags.data != data) {
+            flags = new Flags(data, calculateFlags(data));
+            this.flags = flags; // two threads could both do this, but they'd work out the same thing
+        }
+        return flags.byIndex[(y & 15) << 8 | (z & 15) << 4 | (x & 15)];
+    }
+
+    /**
+     * Works out the flags of each palette entry once, rather than for every block
+     */
+    private byte[] calculateFlags(PrecomputedData data) {
+        byte[] byIndex = new byte[4096];
+        if (!(states instanceof IPalettedContainer)) {
+            // only without the mixins, in tests and benchmarks
+            for (int i = 0; i < byIndex.length; i++) {
+                byIndex[i] = (byte) data.getFlags(states.get(i & 15, i >> 8, (i >> 4) & 15));
+            }
+            return byIndex;
+        }
+        Palette<BlockState> palette = ((IPalettedContainer<BlockState>) states).getPalette();
+        BitStorage storage = ((IPalettedContainer<BlockState>) states).getStorage();
+        if (palette instanceof GlobalPalette) {
+            for (int i = 0; i < byIndex.length; i++) {
+                byIndex[i] = (byte) data.getFlags(palette.valueFor(storage.get(i)));
+            }
+            return byIndex;
+        }
+        byte[] byValue = new byte[palette.getSize()];
+        for (int i = 0; i < byValue.length; i++) {
+            byValue[i] = (byte) data.getFlags(palette.valueFor(i));
+        }
+        if (storage.getBits() == 0) {
+            Arrays.fill(byIndex, byValue[0]);
+            return byIndex;
+        }
+        for (int i = 0; i < byIndex.length; i++) {
+            byIndex[i] = byValue[storage.get(i)];
+        }
+        return byIndex;
+    }
+
+    private static final class Flags {
+
+        private final PrecomputedData data;
+        private final byte[] byIndex;
+
+        private Flags(PrecomputedData data, byte[] byIndex) {
+            this.data = data;
+            this.byIndex = byIndex;
+        }
+    }
+}
@@ -28,9 +28,9 @@ import net.minecraft.world.item.enchantment.Enchantments;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * A cached list of the best tools on the hotbar for any block
@@ -40,29 +40,45 @@ import java.util.function.Function;
 public class ToolSet {
 
     /**
-     * A cache mapping a {@link Block} to how long it will take to break
-     * with this toolset, given the optimum tool is used.
+     * The break times of the last toolset that was made, which the next one uses too if nothing they depend on has
+     * changed, so that they're kept from one path calculation to the next until the hotbar, potion effects or
+     * settings change
      */
-    private final Map<Block, Double> breakStrengthCache;
+    private static volatile BreakTimes shared;
 
     /**
-     * My buddy leijurv owned me so we have this to not create a new lambda instance.
+     * How long each block state will take to break with this toolset, given the optimum tool is used, indexed by
+     * block state id. NaN until it's first needed.
+     * <p>
+     * Shared between toolsets and threads. Every thread works out the same value for the same state, so it doesn't
+     * matter which write wins.
      */
-    private final Function<Block, Double> backendCalculation;
+    private final double[] breakStrengthCache;
+
+    private final double amplifier;
 
     private final LocalPlayer player;
 
     public ToolSet(LocalPlayer player) {
-        breakStrengthCache = new HashMap<>();
         this.player = player;
-
-        if (Baritone.settings().considerPotionEffects.value) {
-            double amplifier = potionAmplifier();
-            Function<Double, Double> amplify = x -> amplifier * x;
-            backendCalculation = amplify.compose(this::getBestDestructionTime);
-        } else {
-            backendCalculation = this::getBestDestructionTime;
+        this.amplifier = Baritone.settings().considerPotionEffects.value ? potionAmplifier() : 1;
+        BreakTimes times = shared;
+        if (times == null || !times.matches(player, amplifier)) {
+            times = new BreakTimes(player, amplifier);
+            shared = times;
         }
+        this.breakStrengthCache = times.times;
+    }
+
+    /**
+     * A toolset for the same player, that can be used on another thread at the same time as the original
+     *
+     * @param other The toolset to copy
+     */
+    public ToolSet(ToolSet other) {
+        this.breakStrengthCache = other.breakStrengthCache;
+        this.player = other.player;
+        this.amplifier = other.amplifier;
     }
 
     /**
@@ -72,7 +88,13 @@ public class ToolSet {
      * @return the speed of how fast we'll mine it. 1/(time in ticks)
      */
     public double getStrVsBlock(BlockState state) {
-        return breakStrengthCache.computeIfAbsent(state.getBlock(), backendCalculation);
+        int id = Block.BLOCK_STATE_REGISTRY.getId(state);
+        double strength = breakStrengthCache[id];
+        if (Double.isNaN(strength)) {
+            strength = amplifier * getBestDestructionTime(state.getBlock());
+            breakStrengthCache[id] = strength;
+        }
+        return strength;
     }
 
     /**
@@ -226,4 +248,53 @@ public class ToolSet {
         }
         return speed;
     }
+
+    /**
+     * Break times, along with everything that goes into them other than the block
+     */
+    private static final class BreakTimes {
+
+        private final ItemStack[] hotbar = new ItemStack[9];
+        private final int selected;
+        private final double amplifier;
+        private final List<Object> settings;
+        private final double[] times;
+
+        private BreakTimes(LocalPlayer player, double amplifier) {
+            for (int i = 0; i < 9; i++) {
+                hotbar[i] = player.getInventory().getItem(i).copy();
+            }
+            this.selected = player.getInventory().selected;
+            this.amplifier = amplifier;
+            this.settings = settings();
+            this.times = new double[Block.BLOCK_STATE_REGISTRY.size()];
+            Arrays.fill(times, Double.NaN);
+        }
+
+        private boolean matches(LocalPlayer player, double amplifier) {
+            if (this.amplifier != amplifier || this.selected != player.getInventory().selected || !this.settings.equals(settings())) {
+                return false;
+            }
+            for (int i = 0; i < 9; i++) {
+                if (!ItemStack.matches(hotbar[i], player.getInventory().getItem(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * @return The values of the settings that are used to pick a tool or work out a break time
+         */
+        private static List<Object> settings() {
+            return Arrays.asList(
+                    Baritone.settings().autoTool.value,
+                    Baritone.settings().useSwordToMine.value,
+                    Baritone.settings().itemSaver.value,
+                    Baritone.settings().itemSaverThreshold.value,
+                    new ArrayList<>(Baritone.settings().blocksToAvoidBreaking.value),
+                    Baritone.settings().avoidBreakingMultiplier.value
+            );
+        }
+    }
 }
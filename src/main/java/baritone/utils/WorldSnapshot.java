@@ -0,0 +1,118 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+package baritone.utils;
+
+import baritone.utils.accessor.IChunkArray;
+import net.minecraft.world.level.chunk.LevelChunk;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A {@link ChunkSnapshot} of every chunk the client has loaded, for the path thread to use instead of the client's
+ * chunks, which the client thread keeps changing underneath it
+ * <p>
+ * A new one is taken whenever something needs to read the world from another thread, but only the sections that
+ * changed since the last one are copied, so taking one when nothing has changed costs one check per section.
+ */
+public final class WorldSnapshot {
+
+    private final int minX;
+    private final int minZ;
+    private final int diameter;
+
+    /**
+     * Indexed (x - minX) * diameter + (z - minZ), null where no chunk is loaded
+     */
+    private final ChunkSnapshot[] chunks;
+
+    private WorldSnapshot(int minX, int minZ, int diameter, ChunkSnapshot[] chunks) {
+        this.minX = minX;
+        this.minZ = minZ;
+        this.diameter = diameter;
+        this.chunks = chunks;
+    }
+
+    /**
+     * @param chunkX The chunk x coordinate
+     * @param chunkZ The chunk z coordinate
+     * @return The snapshot of the chunk, or null if it wasn't loaded
+     */
+    public ChunkSnapshot getChunk(int chunkX, int chunkZ) {
+        int dx = chunkX - minX;
+        int dz = chunkZ - minZ;
+        if (dx < 0 || dz < 0 || dx >= diameter || dz >= diameter) {
+            return null;
+        }
+        return chunks[dx * diameter + dz];
+    }
+
+    /**
+     * A world that isn't the client's, for tests and benchmarks to path through
+     *
+     * @param chunks The chunks in it, see {@link ChunkSnapshot#of}
+     * @return The snapshot
+     */
+    public static WorldSnapshot of(Collection<ChunkSnapshot> chunks) {
+        int minX = Integer.MAX_VALUE;
+        int minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxZ = Integer.MIN_VALUE;
+        for (ChunkSnapshot chunk : chunks) {
+            minX = Math.min(minX, chunk.x);
+            minZ = Math.min(minZ, chunk.z);
+            maxX = Math.max(maxX, chunk.x);
+            maxZ = Math.max(maxZ, chunk.z);
+        }
+        int diameter = chunks.isEmpty() ? 0 : Math.max(maxX - minX, maxZ - minZ) + 1;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[diameter * diameter];
+        for (ChunkSnapshot chunk : chunks) {
+            snapshots[(chunk.x - minX) * diameter + (chunk.z - minZ)] = chunk;
+        }
+        return new WorldSnapshot(minX, minZ, diameter, snapshots);
+    }
+
+    /**
+     * Takes a snapshot of the loaded chunks, only on the client thread
+     *
+     * @param loaded   The client's loaded chunks
+     * @param previous The last snapshot of the same world, to share the chunks that haven't changed with, or null
+     * @return The snapshot
+     */
+    public static WorldSnapshot take(IChunkArray loaded, WorldSnapshot previous) {
+        int radius = loaded.viewDistance();
+        int minX = loaded.centerX() - radius;
+        int minZ = loaded.centerZ() - radius;
+        int diameter = radius * 2 + 1;
+        ChunkSnapshot[] snapshots = new ChunkSnapshot[diameter * diameter];
+        AtomicReferenceArray<LevelChunk> chunks = loaded.getChunks();
+        for (int i = 0; i < chunks.length(); i++) {
+            LevelChunk chunk = chunks.get(i);
+            if (chunk == null || chunk.isEmpty()) {
+                continue;
+            }
+            int dx = chunk.getPos().x - minX;
+            int dz = chunk.getPos().z - minZ;
+            if (dx < 0 || dz < 0 || dx >= diameter || dz >= diameter) {
+                continue; // the client hasn't dropped it yet since the player moved
+            }
+            ChunkSnapshot before = previous == null ? null : previous.getChunk(chunk.getPos().x, chunk.getPos().z);
+            snapshots[dx * diameter + dz] = ChunkSnapshot.take(chunk, before);
+        }
+        return new WorldSnapshot(minX, minZ, diameter, snapshots);
+    }
+}
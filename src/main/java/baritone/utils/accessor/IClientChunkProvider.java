@@ -17,10 +17,13 @@
 
 package baritone.utils.accessor;
 
-import net.minecraft.client.multiplayer.ClientChunkCache;
+import baritone.utils.WorldSnapshot;
 
 public interface IClientChunkProvider {
-    ClientChunkCache createThreadSafeCopy();
+    /**
+     * @return A snapshot of the loaded chunks, sharing whatever hasn't changed with the last one this returned
+     */
+    WorldSnapshot snapshot();
 
     IChunkArray extractReferenceArray();
 }
@@ -57,6 +57,21 @@ public final class MutableMoveResult {
         return next;
     }
 
+    /**
+     * Records a destination at the end of the chain, for movements that can go more than one place. Call it on the
+     * head of the chain after {@link #reset()}, and then on whatever it returned last time.
+     *
+     * @return The result that was filled in, which is the new end of the chain
+     */
+    public MutableMoveResult append(int x, int y, int z, double cost) {
+        MutableMoveResult res = this.cost < ActionCosts.COST_INF ? nextPotentialDestination() : this;
+        res.x = x;
+        res.y = y;
+        res.z = z;
+        res.cost = cost;
+        return res;
+    }
+
     public MutableMoveResult getNext() {
         if (!hasNext) {
             return null;
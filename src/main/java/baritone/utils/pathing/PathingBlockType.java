@@ -30,18 +30,40 @@ public enum PathingBlockType {
 
     private final boolean[] bits;
 
+    /**
+     * The two bits as they're packed into a chunk's long[], the first bit is the lower one
+     */
+    private final int packed;
+
+    private static final PathingBlockType[] BY_PACKED = new PathingBlockType[4];
+
+    static {
+        for (PathingBlockType type : values()) {
+            BY_PACKED[type.packed] = type;
+        }
+    }
+
     PathingBlockType(int bits) {
         this.bits = new boolean[]{
                 (bits & 0b10) != 0,
                 (bits & 0b01) != 0
         };
+        this.packed = (bits >> 1) | (bits & 0b01) << 1;
     }
 
     public final boolean[] getBits() {
         return this.bits;
     }
 
+    public final int getPacked() {
+        return this.packed;
+    }
+
     public static PathingBlockType fromBits(boolean b1, boolean b2) {
         return b1 ? b2 ? SOLID : AVOID : b2 ? WATER : AIR;
     }
+
+    public static PathingBlockType fromPacked(int packed) {
+        return BY_PACKED[packed];
+    }
 }
@@ -0,0 +1,160 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.cache;
+
+import org.junit.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RegionFileTest {
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        Path dir = Files.createTempDirectory("regionfile");
+        Path path = dir.resolve("r.0.0.bcr");
+        try {
+            Random rand = new Random(5021);
+            byte[][] data = new byte[RegionFile.ENTRIES][];
+            byte[][] compressed = new byte[RegionFile.ENTRIES][];
+            long[] timestamps = new long[RegionFile.ENTRIES];
+            for (int i = 0; i < RegionFile.ENTRIES; i += 3) {
+                data[i] = new byte[rand.nextInt(5000) + 1];
+                rand.nextBytes(data[i]);
+                compressed[i] = RegionFile.compress(data[i]);
+                timestamps[i] = rand.nextLong();
+            }
+            RegionFile.write(path, RegionFile.build(compressed, timestamps));
+            assertTrue(RegionFile.isRegionFile(path));
+            assertFalse(Files.exists(dir.resolve("r.0.0.bcr.tmp")));
+
+            RegionFile file = RegionFile.open(path);
+            for (int i = 0; i < RegionFile.ENTRIES; i++) {
+                assertEquals(data[i] != null, file.isPresent(i));
+                if (data[i] == null) {
+                    continue;
+                }
+                assertEquals(timestamps[i], file.timestamp(i));
+                assertArrayEquals(compressed[i], file.readCompressed(i));
+                try (DataInputStream in = file.read(i)) {
+                    byte[] read = new byte[data[i].length];
+                    in.readFully(read);
+                    assertArrayEquals(data[i], read);
+                    assertEquals(-1, in.read());
+                }
+            }
+
+            // saving again over it, like CachedRegion does, once nothing reads it with the old table
+            compressed[1] = RegionFile.compress(new byte[]{1, 2, 3});
+            timestamps[1] = 7;
+            file.close();
+            RegionFile.write(path, RegionFile.build(compressed, timestamps));
+            RegionFile reopened = RegionFile.open(path);
+            assertTrue(reopened.isPresent(1));
+            assertEquals(7, reopened.timestamp(1));
+            assertArrayEquals(compressed[0], reopened.readCompressed(0));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void testPatch() throws IOException {
+        Path dir = Files.createTempDirectory("regionfile");
+        Path path = dir.resolve("r.0.0.bcr");
+        try {
+            byte[][] compressed = new byte[RegionFile.ENTRIES][];
+            long[] timestamps = new long[RegionFile.ENTRIES];
+            for (int i = 0; i < 4; i++) {
+                compressed[i] = RegionFile.compress(new byte[]{(byte) i, 1, 2, 3});
+                timestamps[i] = i;
+            }
+            RegionFile.write(path, RegionFile.build(compressed, timestamps));
+            RegionFile file = RegionFile.open(path);
+            RegionFile before = RegionFile.open(path);
+
+            boolean[] changed = new boolean[RegionFile.ENTRIES];
+            byte[][] patched = new byte[RegionFile.ENTRIES][];
+            changed[1] = true; // changed
+            patched[1] = RegionFile.compress(new byte[]{9, 9, 9, 9, 9, 9});
+            timestamps[1] = 100;
+            changed[2] = true; // removed
+            changed[10] = true; // added
+            patched[10] = RegionFile.compress(new byte[]{10});
+            timestamps[10] = 110;
+            long written = file.patch(patched, timestamps, changed);
+            assertEquals(patched[1].length + patched[10].length + 3 * 16, written);
+
+            // the same either way, whether the table was patched or read again
+            for (RegionFile after : new RegionFile[]{file, RegionFile.open(path)}) {
+                assertEquals(before.fileBytes() + patched[1].length + patched[10].length, after.fileBytes());
+                assertArrayEquals(compressed[0], after.readCompressed(0));
+                assertEquals(0, after.timestamp(0));
+                assertArrayEquals(patched[1], after.readCompressed(1));
+                assertEquals(100, after.timestamp(1));
+                assertFalse(after.isPresent(2));
+                assertArrayEquals(compressed[3], after.readCompressed(3));
+                assertArrayEquals(patched[10], after.readCompressed(10));
+                assertEquals(110, after.timestamp(10));
+            }
+
+            // what was opened before still reads what it did, none of it was overwritten
+            assertArrayEquals(compressed[1], before.readCompressed(1));
+            assertArrayEquals(compressed[2], before.readCompressed(2));
+        } finally {
+            Files.deleteIfExists(path);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testClosed() throws IOException {
+        byte[][] compressed = new byte[RegionFile.ENTRIES][];
+        compressed[0] = RegionFile.compress(new byte[]{1, 2, 3});
+        RegionFile file = RegionFile.wrap(RegionFile.build(compressed, new long[RegionFile.ENTRIES]));
+        file.close();
+        file.readCompressed(0);
+    }
+
+    @Test
+    public void testNotRegionFile() throws IOException {
+        Path path = Files.createTempFile("regionfile", ".bcr");
+        try {
+            Files.write(path, new byte[]{0x1f, (byte) 0x8b, 8, 0}); // what the start of the old GZIP format looks like
+            assertFalse(RegionFile.isRegionFile(path));
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void testMalformedTable() throws IOException {
+        ByteBuffer contents = ByteBuffer.allocate(RegionFile.HEADER_SIZE);
+        contents.putInt(RegionFile.MAGIC);
+        contents.putInt(contents.capacity()); // offset of chunk 0
+        contents.putInt(100); // but it runs off the end of the file
+        RegionFile.wrap(contents.array());
+    }
+}
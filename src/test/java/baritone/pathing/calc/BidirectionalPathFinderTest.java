@@ -0,0 +1,61 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.pathing.goals.GoalGetToBlock;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.TestWorld;
+import baritone.utils.pathing.Favoring;
+import net.minecraft.core.BlockPos;
+import org.junit.Test;
+
+import static baritone.utils.TestWorld.MAZE_END;
+import static baritone.utils.TestWorld.MAZE_START;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BidirectionalPathFinderTest {
+
+    private static final long TIMEOUT = 30_000;
+
+    @Test
+    public void testGoalBlock() {
+        assertSameCostAsAStar(new GoalBlock(MAZE_END[0], MAZE_END[1], MAZE_END[2]));
+    }
+
+    @Test
+    public void testGoalGetToBlock() {
+        assertSameCostAsAStar(new GoalGetToBlock(new BlockPos(MAZE_END[0], MAZE_END[1], MAZE_END[2])));
+    }
+
+    private static void assertSameCostAsAStar(Goal goal) {
+        CalculationContext context = TestWorld.maze().context();
+        Path aStar = search(new AStarPathFinder(MAZE_START[0], MAZE_START[1], MAZE_START[2], goal, new Favoring(null, context), context));
+        Path bidirectional = search(new BidirectionalPathFinder(MAZE_START[0], MAZE_START[1], MAZE_START[2], goal, new Favoring(null, context), context));
+        assertTrue(goal.isInGoal(aStar.getDest()));
+        assertTrue(goal.isInGoal(bidirectional.getDest()));
+        // both are optimal, give or take the minimum improvement that isn't repropagated
+        assertEquals(aStar.cost(), bidirectional.cost(), 0.5);
+    }
+
+    private static Path search(AbstractNodeCostSearch search) {
+        return (Path) search.calculate0(TIMEOUT, TIMEOUT).orElseThrow(AssertionError::new);
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.pathing.goals.GoalBlock;
+import baritone.api.utils.BetterBlockPos;
+import baritone.pathing.movement.CalculationContext;
+import baritone.utils.TestWorld;
+import net.minecraft.core.BlockPos;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static baritone.utils.TestWorld.MAZE_END;
+import static baritone.utils.TestWorld.MAZE_START;
+import static org.junit.Assert.*;
+
+public class IncrementalSearchTest {
+
+    private static final long TIMEOUT = 30_000;
+
+    private static final Goal GOAL = new GoalBlock(MAZE_END[0], MAZE_END[1], MAZE_END[2]);
+
+    private static final BetterBlockPos START = new BetterBlockPos(MAZE_START[0], MAZE_START[1], MAZE_START[2]);
+
+    @Test
+    public void testBlockingTheWay() {
+        // most of a wall across the first corridor, leaving a gap on the far side so the way around is longer
+        assertRepairMatchesFreshSearch(2, 2, 20, 11, 5, 20, Blocks.STONE);
+    }
+
+    @Test
+    public void testOpeningAShortcut() {
+        // a door in the first wall, so most of the first corridor can be skipped
+        assertRepairMatchesFreshSearch(12, 2, 5, 12, 3, 5, Blocks.AIR);
+    }
+
+    @Test
+    public void testChunkLoading() {
+        // the only way past the second wall is in chunk 1, 0
+        TestWorld world = TestWorld.maze().setLoaded(1, 0, false);
+        IncrementalSearch search = new IncrementalSearch(GOAL, null);
+        assertFalse(search.computeShortestPath(world.context(), START, deadline(), () -> false));
+
+        world.setLoaded(1, 0, true);
+        search.chunkChanged(1, 0);
+        CalculationContext context = world.context();
+        assertTrue(search.computeShortestPath(context, START, deadline(), () -> false));
+        assertEquals(freshCost(context), search.extractPath(context, START).cost, 1e-6);
+    }
+
+    private static void assertRepairMatchesFreshSearch(int x1, int y1, int z1, int x2, int y2, int z2, Block block) {
+        TestWorld world = TestWorld.maze();
+        CalculationContext before = world.context();
+        IncrementalSearch search = new IncrementalSearch(GOAL, null);
+        assertTrue(search.computeShortestPath(before, START, deadline(), () -> false));
+        double costBefore = search.extractPath(before, START).cost;
+
+        world.fill(x1, y1, z1, x2, y2, z2, block);
+        List<BlockPos> changed = new ArrayList<>();
+        for (BlockPos pos : BlockPos.betweenClosed(x1, y1, z1, x2, y2, z2)) {
+            changed.add(pos.immutable());
+        }
+        search.blocksChanged(changed);
+        CalculationContext after = world.context();
+        assertTrue(search.computeShortestPath(after, START, deadline(), () -> false));
+        PathNode end = search.extractPath(after, START);
+        assertNotNull(end);
+        assertTrue(GOAL.isInGoal(end.x, end.y, end.z));
+        assertNotEquals(costBefore, end.cost, 1e-6);
+        assertEquals(freshCost(after), end.cost, 1e-6);
+    }
+
+    private static double freshCost(CalculationContext context) {
+        IncrementalSearch fresh = new IncrementalSearch(GOAL, null);
+        assertTrue(fresh.computeShortestPath(context, START, deadline(), () -> false));
+        return fresh.extractPath(context, START).cost;
+    }
+
+    private static long deadline() {
+        return System.currentTimeMillis() + TIMEOUT;
+    }
+}
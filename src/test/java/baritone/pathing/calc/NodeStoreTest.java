@@ -0,0 +1,116 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.calc;
+
+import baritone.api.pathing.goals.Goal;
+import baritone.api.utils.BetterBlockPos;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class NodeStoreTest {
+
+    private static final Goal DUMMY_GOAL = new Goal() {
+        @Override
+        public boolean isInGoal(int x, int y, int z) {
+            return false;
+        }
+
+        @Override
+        public double heuristic(int x, int y, int z) {
+            return x + y + z;
+        }
+    };
+
+    @Test
+    public void testIdsSurviveGrowth() {
+        NodeStore store = new NodeStore(DUMMY_GOAL, 16, 0.75f);
+        int[] ids = new int[20000];
+        for (int i = 0; i < ids.length; i++) {
+            int x = i % 100 - 50;
+            int y = i / 10000;
+            int z = i / 100 % 100 - 50;
+            ids[i] = store.getNodeAtPosition(x, y, z, BetterBlockPos.longHash(x, y, z));
+            assertEquals(i, ids[i]);
+        }
+        assertEquals(ids.length, store.size());
+        for (int i = 0; i < ids.length; i++) {
+            int x = i % 100 - 50;
+            int y = i / 10000;
+            int z = i / 100 % 100 - 50;
+            assertEquals(ids[i], store.getNodeAtPosition(x, y, z, BetterBlockPos.longHash(x, y, z)));
+            assertEquals(x, store.x(ids[i]));
+            assertEquals(y, store.y(ids[i]));
+            assertEquals(z, store.z(ids[i]));
+            assertEquals(x + y + z, store.estimatedCostToGoal(ids[i]), 0);
+            assertFalse(store.isOpen(ids[i]));
+        }
+        assertEquals(ids.length, store.size());
+    }
+
+    @Test
+    public void testHeapOrder() {
+        Random rand = new Random(5021);
+        NodeStore store = new NodeStore(DUMMY_GOAL, 16, 0.75f);
+        NodeHeap heap = new NodeHeap(store);
+        double[] costs = new double[5000];
+        for (int i = 0; i < costs.length; i++) {
+            int node = store.getNodeAtPosition(i, 0, -i, BetterBlockPos.longHash(i, 0, -i)); // zero heuristic, combined cost is just the cost
+            costs[i] = rand.nextDouble() * 100;
+            store.setCost(node, costs[i], -1, (byte) -1);
+            heap.insert(node);
+        }
+        // decrease-key on some of them, like a cost improvement
+        for (int i = 0; i < costs.length; i += 3) {
+            costs[i] /= 2;
+            store.setCost(i, costs[i], -1, (byte) -1);
+            heap.update(i);
+        }
+        Arrays.sort(costs);
+        for (double cost : costs) {
+            assertFalse(heap.isEmpty());
+            int node = heap.removeLowest();
+            assertEquals(cost, store.combinedCost(node), 0);
+            assertFalse(store.isOpen(node));
+        }
+        assertTrue(heap.isEmpty());
+    }
+
+    @Test
+    public void testToPathNode() {
+        NodeStore store = new NodeStore(DUMMY_GOAL, 16, 0.75f);
+        int previous = -1;
+        for (int i = 0; i < 10; i++) {
+            int node = store.getNodeAtPosition(i, 64, 0, BetterBlockPos.longHash(i, 64, 0));
+            store.setCost(node, i, previous, (byte) i);
+            previous = node;
+        }
+        PathNode node = store.toPathNode(previous);
+        for (int i = 9; i >= 0; i--) {
+            assertEquals(i, node.x);
+            assertEquals(64, node.y);
+            assertEquals(i, node.cost, 0);
+            assertEquals(i, node.previousMove);
+            node = node.previous;
+        }
+        assertNull(node);
+    }
+}
@@ -78,34 +78,38 @@ public class OpenSetsTest {
         System.out.println("Testing size " + size);
         // Include LinkedListOpenSet even though it's not performant because I absolutely trust that it behaves properly
         // I'm really testing the heap implementations against it as the ground truth
-        IOpenSet[] test = new IOpenSet[]{new BinaryHeapOpenSet(), new LinkedListOpenSet()};
+        IOpenSet[] test = new IOpenSet[]{new BinaryHeapOpenSet(), new FourAryHeapOpenSet(), new PairingHeapOpenSet(), new BucketOpenSet(), new LinkedListOpenSet()};
         for (IOpenSet set : test) {
             assertTrue(set.isEmpty());
         }
 
         // generate the pathnodes that we'll be testing the sets on
-        PathNode[] toInsert = new PathNode[size];
+        // each set gets its own copies, since the heaps all keep their own bookkeeping in heapPosition
+        PathNode[][] toInsert = new PathNode[test.length][size];
         for (int i = 0; i < size; i++) {
-            // can't use an existing goal
-            // because they use Baritone.settings()
-            // and we can't do that because Minecraft itself isn't initted
-            PathNode pn = new PathNode(0, 0, 0, new Goal() {
-                @Override
-                public boolean isInGoal(int x, int y, int z) {
-                    return false;
-                }
-
-                @Override
-                public double heuristic(int x, int y, int z) {
-                    return 0;
-                }
-            });
-            pn.combinedCost = Math.random();
-            toInsert[i] = pn;
+            double combinedCost = Math.random();
+            for (int j = 0; j < test.length; j++) {
+                // can't use an existing goal
+                // because they use Baritone.settings()
+                // and we can't do that because Minecraft itself isn't initted
+                PathNode pn = new PathNode(i, 0, 0, new Goal() {
+                    @Override
+                    public boolean isInGoal(int x, int y, int z) {
+                        return false;
+                    }
+
+                    @Override
+                    public double heuristic(int x, int y, int z) {
+                        return 0;
+                    }
+                });
+                pn.combinedCost = combinedCost;
+                toInsert[j][i] = pn;
+            }
         }
 
         // create a list of what the first removals should be
-        ArrayList<PathNode> copy = new ArrayList<>(Arrays.asList(toInsert));
+        ArrayList<PathNode> copy = new ArrayList<>(Arrays.asList(toInsert[0]));
         copy.sort(Comparator.comparingDouble(pn -> pn.combinedCost));
         Set<PathNode> lowestQuarter = new HashSet<>(copy.subList(0, size / 4));
 
@@ -115,10 +119,11 @@ public class OpenSetsTest {
         }
 
         System.out.println("Insertion");
-        for (IOpenSet set : test) {
+        for (int j = 0; j < test.length; j++) {
+            IOpenSet set = test[j];
             long before = System.nanoTime() / 1000000L;
             for (int i = 0; i < size; i++)
-                set.insert(toInsert[i]);
+                set.insert(toInsert[j][i]);
             System.out.println(set.getClass() + " " + (System.nanoTime() / 1000000L - before));
             //all three take either 0 or 1ms to insert up to 10,000 nodes
             //linkedlist takes 0ms most often (because there's no array resizing or allocation there, just pointer shuffling)
@@ -127,6 +132,7 @@ public class OpenSetsTest {
         // all opensets should now be full
         for (IOpenSet set : test) {
             assertFalse(set.isEmpty());
+            assertEquals(size, set.size());
         }
 
         System.out.println("Removal round 1");
@@ -139,16 +145,17 @@ public class OpenSetsTest {
         }
         int cnt = 0;
         for (int i = 0; cnt < size / 2 && i < size; i++) {
-            if (lowestQuarter.contains(toInsert[i])) { // these were already removed and can't be updated to test
+            if (lowestQuarter.contains(toInsert[0][i])) { // these were already removed and can't be updated to test
                 continue;
             }
-            toInsert[i].combinedCost *= Math.random();
+            double factor = Math.random();
             // multiplying it by a random number between 0 and 1 is guaranteed to decrease it
-            for (IOpenSet set : test) {
+            for (int j = 0; j < test.length; j++) {
                 // it's difficult to benchmark these individually because if you modify all at once then update then
                 // it breaks the internal consistency of the heaps.
                 // you have to call update every time you modify a node.
-                set.update(toInsert[i]);
+                toInsert[j][i].combinedCost *= factor;
+                test[j].update(toInsert[j][i]);
             }
             cnt++;
         }
@@ -165,6 +172,7 @@ public class OpenSetsTest {
         // every set should now be empty
         for (IOpenSet set : test) {
             assertTrue(set.isEmpty());
+            assertEquals(0, set.size());
         }
     }
 }
@@ -0,0 +1,116 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.pathing.movement;
+
+import baritone.Baritone;
+import baritone.api.Settings;
+import baritone.utils.TestWorld;
+import baritone.utils.pathing.MutableMoveResult;
+import net.minecraft.world.level.block.Blocks;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.assertEquals;
+
+public class MovesTest {
+
+    /**
+     * Every movement out of every spot in the middle chunk of some rough ground, worked out on lots of threads at once
+     * the way the pathing workers do, each with its own copy of the context. Any state the movements share between
+     * threads (parkour especially) would make some of them come out different from working them out on one thread.
+     */
+    @Test
+    public void testConcurrentMovesMatchSingleThreaded() throws Exception {
+        Settings settings = Baritone.settings();
+        boolean allowParkour = settings.allowParkour.value;
+        boolean allowParkourAdv = settings.allowParkourAdv.value;
+        boolean allowParkourAscend = settings.allowParkourAscend.value;
+        settings.allowParkour.value = true;
+        settings.allowParkourAdv.value = true;
+        settings.allowParkourAscend.value = true;
+        try {
+            CalculationContext context = roughGround().context();
+            List<String> expected = allMoves(context);
+            int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            try {
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<List<String>>> futures = new ArrayList<>();
+                for (int t = 0; t < threads * 2; t++) {
+                    CalculationContext copy = new CalculationContext(context);
+                    futures.add(executor.submit(() -> {
+                        start.await();
+                        return allMoves(copy);
+                    }));
+                }
+                start.countDown();
+                for (Future<List<String>> future : futures) {
+                    assertEquals(expected, future.get(120, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdownNow();
+            }
+        } finally {
+            settings.allowParkour.value = allowParkour;
+            settings.allowParkourAdv.value = allowParkourAdv;
+            settings.allowParkourAscend.value = allowParkourAscend;
+        }
+    }
+
+    /**
+     * Three by three chunks of floor at different heights, with holes in it, so there's something to jump over and up
+     */
+    private static TestWorld roughGround() {
+        TestWorld world = new TestWorld(3, 3);
+        Random rand = new Random(5021);
+        for (int x = 0; x < 48; x++) {
+            for (int z = 0; z < 48; z++) {
+                if (rand.nextInt(3) != 0) {
+                    world.fill(x, 0, z, x, rand.nextInt(4), z, Blocks.STONE);
+                }
+            }
+        }
+        return world;
+    }
+
+    /**
+     * @return Where every movement out of every spot in the middle chunk ends up and what it costs, in order
+     */
+    private static List<String> allMoves(CalculationContext context) {
+        List<String> results = new ArrayList<>();
+        MutableMoveResult result = new MutableMoveResult();
+        for (int x = 16; x < 32; x++) {
+            for (int z = 16; z < 32; z++) {
+                for (int y = 1; y <= 5; y++) {
+                    for (Moves moves : Moves.values()) {
+                        result.reset();
+                        moves.apply(context, x, y, z, result);
+                        for (MutableMoveResult res = result; res != null; res = res.getNext()) {
+                            results.add(moves + " " + x + " " + y + " " + z + " " + res.x + " " + res.y + " " + res.z + " " + res.cost);
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+}
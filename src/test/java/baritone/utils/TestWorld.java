@@ -0,0 +1,145 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils;
+
+import baritone.pathing.movement.CalculationContext;
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A small world for tests to path through without a client, from 0, 0, 0 up, with nothing loaded around it
+ */
+public final class TestWorld {
+
+    static {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+    }
+
+    public static final int HEIGHT = 64;
+
+    public static final int[] MAZE_START = {3, 2, 3};
+
+    public static final int[] MAZE_END = {44, 2, 44};
+
+    private final int chunksX;
+    private final int chunksZ;
+
+    /**
+     * The sections of each chunk, bottom to top, indexed by chunkX * chunksZ + chunkZ
+     */
+    private final List<List<PalettedContainer<BlockState>>> chunks = new ArrayList<>();
+
+    /**
+     * Which chunks are left out of snapshots, indexed the same way
+     */
+    private final boolean[] unloaded;
+
+    public TestWorld(int chunksX, int chunksZ) {
+        this.chunksX = chunksX;
+        this.chunksZ = chunksZ;
+        this.unloaded = new boolean[chunksX * chunksZ];
+        for (int i = 0; i < chunksX * chunksZ; i++) {
+            List<PalettedContainer<BlockState>> sections = new ArrayList<>();
+            for (int y = 0; y < HEIGHT; y += 16) {
+                sections.add(new PalettedContainer<>(Block.BLOCK_STATE_REGISTRY, Blocks.AIR.defaultBlockState(), PalettedContainer.Strategy.SECTION_STATES));
+            }
+            chunks.add(sections);
+        }
+    }
+
+    /**
+     * Three by three chunks of stone floor (walking on y = 2) with walls around the edge, and walls inside that make
+     * the way from {@link #MAZE_START} to {@link #MAZE_END} wind back and forth, with a row of one block bumps to jump
+     * over halfway
+     */
+    public static TestWorld maze() {
+        TestWorld world = new TestWorld(3, 3);
+        world.fill(0, 0, 0, 47, 1, 47, Blocks.STONE);
+        world.fill(0, 2, 0, 47, 5, 0, Blocks.STONE);
+        world.fill(0, 2, 47, 47, 5, 47, Blocks.STONE);
+        world.fill(0, 2, 0, 0, 5, 47, Blocks.STONE);
+        world.fill(47, 2, 0, 47, 5, 47, Blocks.STONE);
+        world.fill(12, 2, 0, 12, 5, 36, Blocks.STONE);
+        world.fill(24, 2, 11, 24, 5, 47, Blocks.STONE);
+        world.fill(36, 2, 0, 36, 5, 36, Blocks.STONE);
+        world.fill(25, 2, 20, 35, 2, 20, Blocks.STONE);
+        return world;
+    }
+
+    public TestWorld set(int x, int y, int z, Block block) {
+        if (x < 0 || x >= chunksX * 16 || y < 0 || y >= HEIGHT || z < 0 || z >= chunksZ * 16) {
+            throw new IllegalArgumentException(x + " " + y + " " + z);
+        }
+        chunks.get((x >> 4) * chunksZ + (z >> 4)).get(y >> 4).getAndSetUnchecked(x & 15, y & 15, z & 15, block.defaultBlockState());
+        return this;
+    }
+
+    /**
+     * Whether snapshots include this chunk, they all do to begin with
+     */
+    public TestWorld setLoaded(int chunkX, int chunkZ, boolean loaded) {
+        unloaded[chunkX * chunksZ + chunkZ] = !loaded;
+        return this;
+    }
+
+    public TestWorld fill(int x1, int y1, int z1, int x2, int y2, int z2, Block block) {
+        for (int x = x1; x <= x2; x++) {
+            for (int y = y1; y <= y2; y++) {
+                for (int z = z1; z <= z2; z++) {
+                    set(x, y, z, block);
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return The blocks as they are now, later changes to this world don't change it
+     */
+    public WorldSnapshot snapshot() {
+        List<ChunkSnapshot> snapshots = new ArrayList<>();
+        for (int chunkX = 0; chunkX < chunksX; chunkX++) {
+            for (int chunkZ = 0; chunkZ < chunksZ; chunkZ++) {
+                if (unloaded[chunkX * chunksZ + chunkZ]) {
+                    continue;
+                }
+                List<PalettedContainer<BlockState>> sections = new ArrayList<>();
+                for (PalettedContainer<BlockState> section : chunks.get(chunkX * chunksZ + chunkZ)) {
+                    sections.add(section.copy());
+                }
+                snapshots.add(ChunkSnapshot.of(chunkX, chunkZ, sections));
+            }
+        }
+        return WorldSnapshot.of(snapshots);
+    }
+
+    /**
+     * A context for pathing through the blocks as they are now, with no player, so nothing is broken or placed
+     */
+    public CalculationContext context() {
+        return new CalculationContext(new BlockStateInterface(snapshot(), 0, HEIGHT));
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * This file is part of Baritone.
+ *
+ * Baritone is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * Baritone is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with Baritone.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package baritone.utils.pathing;
+
+import baritone.api.pathing.movement.ActionCosts;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class MutableMoveResultTest {
+
+    @Test
+    public void testChainKeepsEveryResult() {
+        MutableMoveResult head = new MutableMoveResult();
+        MutableMoveResult tail = head;
+        for (int i = 0; i < 10; i++) {
+            tail = tail.append(i, 64, -i, i + 1);
+        }
+        assertChain(head, 0, 10);
+    }
+
+    @Test
+    public void testResetReusesChain() {
+        MutableMoveResult head = new MutableMoveResult();
+        MutableMoveResult tail = head;
+        for (int i = 0; i < 10; i++) {
+            tail = tail.append(i, 64, -i, i + 1);
+        }
+        head.reset();
+        assertEquals(ActionCosts.COST_INF, head.cost, 0);
+        assertNull(head.getNext());
+        tail = head;
+        for (int i = 0; i < 3; i++) {
+            tail = tail.append(i, 64, -i, i + 1);
+        }
+        assertChain(head, 0, 3); // nothing left over from the longer chain before
+    }
+
+    private static void assertChain(MutableMoveResult head, int offset, int count) {
+        MutableMoveResult res = head;
+        for (int i = 0; i < count; i++) {
+            assertNotNull(res);
+            assertEquals(offset + i, res.x);
+            assertEquals(64, res.y);
+            assertEquals(-(offset + i), res.z);
+            assertEquals(offset + i + 1, res.cost, 0);
+            res = res.getNext();
+        }
+        assertNull(res);
+    }
+}
@@ -19,6 +19,7 @@ package baritone.utils.pathing;
 
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class PathingBlockTypeTest {
@@ -30,4 +31,14 @@ public class PathingBlockTypeTest {
             assertTrue(type == PathingBlockType.fromBits(bits[0], bits[1]));
         }
     }
+
+    @Test
+    public void testPacked() {
+        for (PathingBlockType type : PathingBlockType.values()) {
+            boolean[] bits = type.getBits();
+            // the same bit order as a BitSet over the same long[], so the saved format doesn't change
+            assertEquals((bits[0] ? 1 : 0) | (bits[1] ? 2 : 0), type.getPacked());
+            assertTrue(type == PathingBlockType.fromPacked(type.getPacked()));
+        }
+    }
 }